@@ -0,0 +1,41 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the regular JMH command line, writing the results as
+ * JSON to benchmark-results/jmh-<time>.json unless another result format or
+ * file was asked for. The JSON files of different releases can be compared to
+ * track regressions.
+ */
+public class BenchmarksRunner {
+	private static final String RESULTS_DIRECTORY = "benchmark-results";
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		if (commandLineOptions.shouldHelp() || commandLineOptions.shouldList()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+		if (!commandLineOptions.getResultFormat().hasValue())
+			options.resultFormat(ResultFormatType.JSON);
+		if (!commandLineOptions.getResult().hasValue()) {
+			new File(RESULTS_DIRECTORY).mkdirs();
+			options.result(RESULTS_DIRECTORY + "/jmh-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date())
+					+ ".json");
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,82 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import search_engine.ConcurrentLongIntHashMap;
+
+/**
+ * Duplicate detection of a multi threaded search - threads adding encoded
+ * states to a shared table, where many of the states were already added by
+ * another thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConcurrentMapBenchmark {
+	private static final int NUMBER_OF_KEYS = 1 << 20;
+
+	@Param({ "ConcurrentLongIntHashMap", "ConcurrentHashMap" })
+	public String implementation;
+
+	private long[] keys;
+	private ConcurrentLongIntHashMap primitiveMap;
+	private ConcurrentHashMap<Long, Integer> boxedMap;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		keys = new long[NUMBER_OF_KEYS];
+		for (int i = 0; i < NUMBER_OF_KEYS; i++)
+			keys[i] = random.nextLong() & ((1L << 42) - 1);
+	}
+
+	@Setup(Level.Iteration)
+	public void createMap() {
+		primitiveMap = new ConcurrentLongIntHashMap(NUMBER_OF_KEYS);
+		boxedMap = new ConcurrentHashMap<>(NUMBER_OF_KEYS);
+	}
+
+	@State(Scope.Thread)
+	public static class Cursor {
+		private int next;
+
+		@Setup(Level.Iteration)
+		public void setUp() {
+			next = (int) (Thread.currentThread().getId() * 104729L % NUMBER_OF_KEYS);
+		}
+
+		int nextKeyIndex() {
+			next = (next + 1) & (NUMBER_OF_KEYS - 1);
+			return next;
+		}
+	}
+
+	@Benchmark
+	public int putIfAbsent(Cursor cursor) {
+		int keyIndex = cursor.nextKeyIndex();
+		if (implementation.equals("ConcurrentLongIntHashMap"))
+			return primitiveMap.putIfAbsent(keys[keyIndex], keyIndex);
+		Integer previousValue = boxedMap.putIfAbsent(keys[keyIndex], keyIndex);
+		return previousValue == null ? ConcurrentLongIntHashMap.NO_VALUE : previousValue;
+	}
+}
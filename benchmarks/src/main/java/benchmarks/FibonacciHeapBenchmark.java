@@ -0,0 +1,71 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import search_engine.FibonacciHeap;
+
+/**
+ * Open list operations with the f values mix of a Rush Hour search - many
+ * entries sharing few whole priorities.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FibonacciHeapBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int numberOfEntries;
+
+	private double[] priorities;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		priorities = new double[numberOfEntries];
+		for (int i = 0; i < numberOfEntries; i++)
+			priorities[i] = 10 + random.nextInt(50);
+	}
+
+	@Benchmark
+	public void enqueueAndDequeueAll(Blackhole blackhole) {
+		FibonacciHeap<Integer> heap = new FibonacciHeap<>();
+		for (int i = 0; i < priorities.length; i++)
+			heap.enqueue(i, priorities[i]);
+		while (!heap.isEmpty())
+			blackhole.consume(heap.dequeueMin());
+	}
+
+	@Benchmark
+	public void enqueueDecreaseKeyAndDequeueAll(Blackhole blackhole) {
+		FibonacciHeap<Integer> heap = new FibonacciHeap<>();
+		@SuppressWarnings("unchecked")
+		FibonacciHeap.Entry<Integer>[] entries = new FibonacciHeap.Entry[priorities.length];
+		for (int i = 0; i < priorities.length; i++)
+			entries[i] = heap.enqueue(i, priorities[i]);
+		// A dequeue first consolidates the heap, as it happens during a search
+		blackhole.consume(heap.dequeueMin());
+		for (int i = 1; i < entries.length; i += 4)
+			if (entries[i].getPriority() > 0)
+				heap.decreaseKey(entries[i], entries[i].getPriority() - 1);
+		while (!heap.isEmpty())
+			blackhole.consume(heap.dequeueMin());
+	}
+}
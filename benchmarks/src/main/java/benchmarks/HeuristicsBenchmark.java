@@ -0,0 +1,100 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import rush_hour.BoardState;
+import rush_hour.MoveGenerator;
+import rush_hour.RawPuzzleObject;
+import search_engine.astar.BlockerChainHeuristic;
+import search_engine.astar.BlockersAndDistanceHeuristic;
+import search_engine.astar.BlockersHeuristicCalculator;
+import search_engine.astar.CachedHeuristic;
+import search_engine.astar.HeuristicsCalculator;
+import search_engine.astar.MaxOfHeuristics;
+import search_engine.astar.PatternDatabaseHeuristic;
+import search_engine.astar.TargetVehicleDistanceFromExitHeuristic;
+
+/**
+ * Heuristic evaluation over the start states of all puzzles and their
+ * successors, which are the states AStar evaluates most of the time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicsBenchmark {
+
+	@Param({ "Blockers", "TargetVehicleDistanceFromExit", "BlockersAndDistance", "PatternDatabase", "BlockerChain",
+			"CachedBlockerChain", "MaxOfBlockersAndBlockerChain" })
+	public String heuristic;
+
+	private HeuristicsCalculator calculator;
+	private BoardState[] boardStates;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		calculator = createCalculator(heuristic);
+		List<BoardState> states = new ArrayList<>();
+		for (RawPuzzleObject puzzle : PuzzleTier.getAllPuzzles()) {
+			BoardState start = BoardState.fromVehicles(puzzle.getVehicles());
+			states.add(start);
+			int[] movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(start.getLayout())];
+			int numberOfMoves = MoveGenerator.getGenerator().generateMoves(start, movesBuffer);
+			for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++) {
+				BoardState successor = new BoardState(start);
+				successor.moveVehicle(MoveGenerator.getVehicleIndex(movesBuffer[moveIndex]),
+						MoveGenerator.getNewOffset(movesBuffer[moveIndex]));
+				states.add(successor);
+			}
+		}
+		boardStates = states.toArray(new BoardState[0]);
+	}
+
+	static HeuristicsCalculator createCalculator(String heuristic) {
+		switch (heuristic) {
+		case "Blockers":
+			return new BlockersHeuristicCalculator();
+		case "TargetVehicleDistanceFromExit":
+			return new TargetVehicleDistanceFromExitHeuristic();
+		case "BlockersAndDistance":
+			return new BlockersAndDistanceHeuristic();
+		case "PatternDatabase":
+			return new PatternDatabaseHeuristic();
+		case "BlockerChain":
+			return new BlockerChainHeuristic();
+		case "CachedBlockerChain":
+			return new CachedHeuristic(new BlockerChainHeuristic());
+		case "MaxOfBlockersAndBlockerChain":
+			return new MaxOfHeuristics(new BlockersHeuristicCalculator(), new BlockerChainHeuristic());
+		default:
+			throw new IllegalArgumentException("Unknown heuristic: " + heuristic);
+		}
+	}
+
+	/**
+	 * Time per evaluation is the reported time divided by the number of states
+	 */
+	@Benchmark
+	public void calculateValue(Blackhole blackhole) {
+		for (BoardState boardState : boardStates)
+			blackhole.consume(calculator.calculateValue(boardState));
+	}
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import rush_hour.RawPuzzleObject;
+
+/**
+ * Difficulty tiers of rh.txt, matching the files of statisticsResults - every
+ * tier is 10 consecutive puzzles of the input file.
+ */
+public enum PuzzleTier {
+	Beginner(1), Intermediate(11), Advanced(21), Expert(31);
+
+	public static final int PUZZLES_PER_TIER = 10;
+	// The benchmarks run either from the project root or from the benchmarks module
+	private static final String PUZZLES_FILE_PROPERTY = "rushhour.puzzles";
+	private static final String[] DEFAULT_PUZZLES_FILES = { "rh.txt", "../rh.txt" };
+
+	private final int firstPuzzleID;
+
+	private PuzzleTier(int firstPuzzleID) {
+		this.firstPuzzleID = firstPuzzleID;
+	}
+
+	public List<RawPuzzleObject> getPuzzles() {
+		List<String> rawPuzzles = readRawPuzzles();
+		List<RawPuzzleObject> puzzles = new ArrayList<>();
+		for (int puzzleID = firstPuzzleID; puzzleID < firstPuzzleID + PUZZLES_PER_TIER; puzzleID++)
+			puzzles.add(new RawPuzzleObject(rawPuzzles.get(puzzleID - 1), puzzleID));
+		return puzzles;
+	}
+
+	public static List<RawPuzzleObject> getAllPuzzles() {
+		List<RawPuzzleObject> puzzles = new ArrayList<>();
+		for (PuzzleTier tier : values())
+			puzzles.addAll(tier.getPuzzles());
+		return puzzles;
+	}
+
+	// GameUtils also writes the puzzles as csv files, which benchmarks shouldn't
+	// do, so the input file is read here
+	private static List<String> readRawPuzzles() {
+		try {
+			return Files.readAllLines(getPuzzlesFile());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static Path getPuzzlesFile() {
+		String puzzlesFile = System.getProperty(PUZZLES_FILE_PROPERTY);
+		if (puzzlesFile != null)
+			return Paths.get(puzzlesFile);
+		for (String defaultPuzzlesFile : DEFAULT_PUZZLES_FILES)
+			if (Files.exists(Paths.get(defaultPuzzlesFile)))
+				return Paths.get(defaultPuzzlesFile);
+		throw new IllegalStateException(
+				"Couldn't find rh.txt, pass it's path with -D" + PUZZLES_FILE_PROPERTY + "=<path>");
+	}
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import rush_hour.RawPuzzleObject;
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.AStarSolver;
+import search_engine.astar.HeuristicsCalculator;
+
+/**
+ * End to end AStarSolver runs, solving all puzzles of a tier per operation
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Djava.util.logging.config.file=/dev/null" })
+public class SolverBenchmark {
+	private static final double TIME_LIMIT_FOR_PUZZLE = 100000;
+
+	@Param({ "Beginner", "Intermediate", "Advanced", "Expert" })
+	public PuzzleTier tier;
+
+	@Param({ "Blockers", "BlockersAndDistance", "PatternDatabase", "BlockerChain" })
+	public String heuristic;
+
+	private List<RawPuzzleObject> puzzles;
+	private HeuristicsCalculator calculator;
+	private AStarSolver solver;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		puzzles = tier.getPuzzles();
+		calculator = HeuristicsBenchmark.createCalculator(heuristic);
+		solver = new AStarSolver(calculator, TIME_LIMIT_FOR_PUZZLE);
+	}
+
+	@Benchmark
+	public void solveTier(Blackhole blackhole) {
+		for (RawPuzzleObject puzzle : puzzles)
+			blackhole.consume(solver.getBestSolution(new AStarSearchNode(puzzle, calculator)));
+	}
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import rush_hour.BoardState;
+import rush_hour.MoveGenerator;
+import rush_hour.RawPuzzleObject;
+import rush_hour.StateCodec;
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.BlockersHeuristicCalculator;
+
+/**
+ * Successor generation of the start nodes of a tier. The state identifier of a
+ * node is StateCodec.encode, so it's measured directly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SuccessorsBenchmark {
+
+	@Param({ "Beginner", "Intermediate", "Advanced", "Expert" })
+	public PuzzleTier tier;
+
+	private List<AStarSearchNode> startNodes;
+	private int[] movesBuffer;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		startNodes = new ArrayList<>();
+		for (RawPuzzleObject puzzle : tier.getPuzzles())
+			startNodes.add(new AStarSearchNode(puzzle, new BlockersHeuristicCalculator()));
+		movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(startNodes.get(0).getBoardState().getLayout()) * 2];
+	}
+
+	@Benchmark
+	public void getSuccessors(Blackhole blackhole) {
+		for (AStarSearchNode node : startNodes) {
+			Set<AStarSearchNode> successors = node.getSuccessors();
+			blackhole.consume(successors);
+		}
+	}
+
+	@Benchmark
+	public void getNextState(Blackhole blackhole) {
+		for (AStarSearchNode node : startNodes) {
+			int numberOfMoves = node.generateMoves(movesBuffer);
+			for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++)
+				blackhole.consume(node.getNextState(movesBuffer[moveIndex], moveIndex + 1));
+		}
+	}
+
+	@Benchmark
+	public void generateMoves(Blackhole blackhole) {
+		MoveGenerator moveGenerator = MoveGenerator.getGenerator();
+		for (AStarSearchNode node : startNodes)
+			blackhole.consume(moveGenerator.generateMoves(node.getBoardState(), movesBuffer));
+	}
+
+	@Benchmark
+	public void generateStateIdentifier(Blackhole blackhole) {
+		for (AStarSearchNode node : startNodes) {
+			BoardState boardState = node.getBoardState();
+			StateCodec codec = boardState.getLayout().getStateCodec();
+			blackhole.consume(codec.encode(boardState));
+		}
+	}
+}
@@ -0,0 +1,235 @@
+package rush_hour;
+
+import java.awt.Point;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * This static class converts puzzles and their solutions to a compact binary
+ * form and back, and between it and the text forms of the input file and the
+ * statistics output.
+ *
+ * A puzzle is a fixed size record of PUZZLE_RECORD_SIZE bytes - a bit set of
+ * the identifiers of it's vehicles, followed by a byte per vehicle in the order
+ * of it's VehicleLayout, which the identifiers give. The byte of a vehicle
+ * packs it's orientation, size, fixed line and offset, and unused vehicle
+ * bytes are 0.
+ *
+ * A canonical record leaves the identifiers out, so puzzles which differ only
+ * by the naming of their vehicles get the same record - the number of vehicles
+ * followed by their bytes, the target vehicle first and the others ordered by
+ * their byte. Two vehicles never share a byte, since they would overlap.
+ *
+ * A move is a single byte packing the index of the vehicle in the layout, the
+ * direction along it's line and the distance it moves.
+ */
+public final class BinaryPuzzleCodec {
+	public static final int MAX_VEHICLES = Constants.BOARD_SIZE * Constants.BOARD_SIZE / Constants.CAR_SIZE;
+	public static final int PUZZLE_RECORD_SIZE = Integer.BYTES + MAX_VEHICLES;
+	public static final int CANONICAL_RECORD_SIZE = 1 + MAX_VEHICLES;
+	private static final char FIRST_IDENTIFIER = 'A';
+	private static final char EMPTY_CELL = '.';
+	// Vehicle byte - orientation bit, size bit, 3 bits of fixed line and 3 of
+	// offset
+	private static final int ORIENTATION_BIT = 1 << 7;
+	private static final int TRUCK_BIT = 1 << 6;
+	private static final int LINE_SHIFT = 3;
+	private static final int POSITION_MASK = 0x7;
+	// Move byte - 5 bits of vehicle index, direction bit and 2 bits of distance-1
+	private static final int MOVE_VEHICLE_SHIFT = 3;
+	private static final int FORWARD_BIT = 1 << 2;
+	private static final int DISTANCE_MASK = 0x3;
+	private static final String MOVES_SEPARATOR = "-->";
+	private static final String SOLUTION_END = " END";
+
+	private BinaryPuzzleCodec() {
+	}
+
+	public static void encodePuzzle(BoardState boardState, ByteBuffer buffer) {
+		VehicleLayout layout = boardState.getLayout();
+		if (layout.getNumberOfVehicles() > MAX_VEHICLES)
+			throw new IllegalArgumentException("Puzzle has more than " + MAX_VEHICLES + " vehicles");
+		int identifiers = 0;
+		for (int vehicleIndex = 0; vehicleIndex < layout.getNumberOfVehicles(); vehicleIndex++)
+			identifiers |= 1 << getIdentifierBit(layout.getIdentifier(vehicleIndex));
+		buffer.putInt(identifiers);
+		for (int vehicleIndex = 0; vehicleIndex < MAX_VEHICLES; vehicleIndex++) {
+			if (vehicleIndex >= layout.getNumberOfVehicles()) {
+				buffer.put((byte) 0);
+				continue;
+			}
+			buffer.put((byte) getVehicleByte(boardState, vehicleIndex));
+		}
+	}
+
+	private static int getVehicleByte(BoardState boardState, int vehicleIndex) {
+		VehicleLayout layout = boardState.getLayout();
+		return (layout.getOrientation(vehicleIndex) == Constants.HORIZONTAL ? ORIENTATION_BIT : 0)
+				| (layout.getSize(vehicleIndex) == Constants.TRUCK_SIZE ? TRUCK_BIT : 0)
+				| layout.getFixedLine(vehicleIndex) << LINE_SHIFT | boardState.getOffset(vehicleIndex);
+	}
+
+	/**
+	 * @return layout indices of the vehicles in the order of the canonical record
+	 */
+	public static int[] getCanonicalOrder(BoardState boardState) {
+		int numberOfVehicles = boardState.getLayout().getNumberOfVehicles();
+		if (numberOfVehicles > MAX_VEHICLES)
+			throw new IllegalArgumentException("Puzzle has more than " + MAX_VEHICLES + " vehicles");
+		// Sorting vehicle byte << 8 | index keeps the index along with it's byte
+		int[] order = new int[numberOfVehicles - 1];
+		for (int vehicleIndex = 1; vehicleIndex < numberOfVehicles; vehicleIndex++)
+			order[vehicleIndex - 1] = getVehicleByte(boardState, vehicleIndex) << Byte.SIZE | vehicleIndex;
+		Arrays.sort(order);
+		int[] canonicalOrder = new int[numberOfVehicles];
+		canonicalOrder[0] = VehicleLayout.TARGET_VEHICLE_INDEX;
+		for (int position = 1; position < numberOfVehicles; position++)
+			canonicalOrder[position] = order[position - 1] & 0xFF;
+		return canonicalOrder;
+	}
+
+	/**
+	 * Writes the canonical record of the puzzle, with the vehicles in the given
+	 * canonical order
+	 */
+	public static void encodeCanonicalPuzzle(BoardState boardState, int[] canonicalOrder, ByteBuffer buffer) {
+		buffer.put((byte) canonicalOrder.length);
+		for (int position = 0; position < MAX_VEHICLES; position++)
+			buffer.put(position < canonicalOrder.length ? (byte) getVehicleByte(boardState, canonicalOrder[position])
+					: 0);
+	}
+
+	public static BoardState decodePuzzle(ByteBuffer buffer) {
+		int identifiers = buffer.getInt();
+		if ((identifiers & (1 << getIdentifierBit(Constants.TARGET_VEHICLE_IDENTIFIER))) == 0)
+			throw new IllegalArgumentException("Puzzle record has no target vehicle");
+		// Vehicles are kept in the order of the layout - target vehicle first and the
+		// others by their identifier
+		char[] sortedIdentifiers = new char[Integer.bitCount(identifiers)];
+		sortedIdentifiers[0] = Constants.TARGET_VEHICLE_IDENTIFIER;
+		int numberOfVehicles = 1;
+		for (int bit = 0; bit < Integer.SIZE; bit++)
+			if ((identifiers & (1 << bit)) != 0 && bit != getIdentifierBit(Constants.TARGET_VEHICLE_IDENTIFIER))
+				sortedIdentifiers[numberOfVehicles++] = (char) (FIRST_IDENTIFIER + bit);
+		if (numberOfVehicles > MAX_VEHICLES)
+			throw new IllegalArgumentException("Puzzle record has more than " + MAX_VEHICLES + " vehicles");
+
+		Collection<Vehicle> vehicles = new ArrayList<>(numberOfVehicles);
+		for (int vehicleIndex = 0; vehicleIndex < MAX_VEHICLES; vehicleIndex++) {
+			int vehicleByte = buffer.get() & 0xFF;
+			if (vehicleIndex < numberOfVehicles)
+				vehicles.add(toVehicle(sortedIdentifiers[vehicleIndex], vehicleByte));
+		}
+		return BoardState.fromVehicles(vehicles);
+	}
+
+	private static int getIdentifierBit(char identifier) {
+		if (identifier < FIRST_IDENTIFIER || identifier >= FIRST_IDENTIFIER + Integer.SIZE)
+			throw new IllegalArgumentException("Vehicle identifier " + identifier + " can't be encoded");
+		return identifier - FIRST_IDENTIFIER;
+	}
+
+	private static Vehicle toVehicle(char identifier, int vehicleByte) {
+		boolean orientation = (vehicleByte & ORIENTATION_BIT) != 0 ? Constants.HORIZONTAL : Constants.VERTICAL;
+		int size = (vehicleByte & TRUCK_BIT) != 0 ? Constants.TRUCK_SIZE : Constants.CAR_SIZE;
+		int line = (vehicleByte >>> LINE_SHIFT) & POSITION_MASK;
+		int offset = vehicleByte & POSITION_MASK;
+		Point startPosition = orientation == Constants.HORIZONTAL ? new Point(line, offset) : new Point(offset, line);
+		Vehicle vehicle = new Vehicle(identifier, startPosition);
+		vehicle.setEndPos(orientation == Constants.HORIZONTAL ? new Point(line, offset + size - 1)
+				: new Point(offset + size - 1, line));
+		vehicle.setOrientation(orientation);
+		vehicle.setSize(size);
+		return vehicle;
+	}
+
+	/**
+	 * @return the puzzle as a line of the input file - the cells row by row, with
+	 *         the identifier of the vehicle on each of them or '.'
+	 */
+	public static String toText(BoardState boardState) {
+		VehicleLayout layout = boardState.getLayout();
+		char[] cells = new char[Constants.BOARD_SIZE * Constants.BOARD_SIZE];
+		Arrays.fill(cells, EMPTY_CELL);
+		for (int vehicleIndex = 0; vehicleIndex < layout.getNumberOfVehicles(); vehicleIndex++)
+			for (int position = boardState.getOffset(vehicleIndex); position < boardState.getOffset(vehicleIndex)
+					+ layout.getSize(vehicleIndex); position++)
+				cells[layout.getCellIndex(vehicleIndex, position)] = layout.getIdentifier(vehicleIndex);
+		return new String(cells);
+	}
+
+	public static BoardState fromText(String rawPuzzle) {
+		return BoardState.fromVehicles(new RawPuzzleObject(rawPuzzle, 0).getVehicles());
+	}
+
+	public static byte encodeMove(int vehicleIndex, int oldOffset, int newOffset) {
+		int distance = Math.abs(newOffset - oldOffset);
+		if (distance == 0 || distance > DISTANCE_MASK + 1)
+			throw new IllegalArgumentException("Move distance " + distance + " can't be encoded");
+		return (byte) (vehicleIndex << MOVE_VEHICLE_SHIFT | (newOffset > oldOffset ? FORWARD_BIT : 0)
+				| (distance - 1));
+	}
+
+	/**
+	 * @return the same move, of the vehicle at the given index
+	 */
+	public static byte withVehicleIndex(byte move, int vehicleIndex) {
+		return (byte) (vehicleIndex << MOVE_VEHICLE_SHIFT | move & ((1 << MOVE_VEHICLE_SHIFT) - 1));
+	}
+
+	public static int getVehicleIndex(byte move) {
+		return (move & 0xFF) >>> MOVE_VEHICLE_SHIFT;
+	}
+
+	/**
+	 * @return signed distance of the move along the vehicle's line
+	 */
+	public static int getDistance(byte move) {
+		int distance = (move & DISTANCE_MASK) + 1;
+		return (move & FORWARD_BIT) != 0 ? distance : -distance;
+	}
+
+	/**
+	 * @param solution - moves as written by the statistics output, such as " XR2
+	 *                 --> AU1 --> END"
+	 * @return a byte per move, for the vehicles of the layout
+	 */
+	public static byte[] encodeSolution(VehicleLayout layout, String solution) {
+		String moves = solution.trim();
+		if (moves.endsWith(SOLUTION_END.trim()))
+			moves = moves.substring(0, moves.length() - SOLUTION_END.trim().length());
+		ArrayList<Byte> encodedMoves = new ArrayList<>();
+		for (String move : moves.split(MOVES_SEPARATOR)) {
+			move = move.trim();
+			if (move.isEmpty())
+				continue;
+			int vehicleIndex = layout.getIndexOf(move.charAt(0));
+			if (vehicleIndex == -1)
+				throw new IllegalArgumentException("Move " + move + " of a vehicle which isn't in the puzzle");
+			Direction direction = Direction.valueOf(move.substring(1, 2));
+			int distance = Integer.parseInt(move.substring(2));
+			boolean isForward = direction == Direction.R || direction == Direction.D;
+			encodedMoves.add(encodeMove(vehicleIndex, 0, isForward ? distance : -distance));
+		}
+		byte[] encodedSolution = new byte[encodedMoves.size()];
+		for (int moveIndex = 0; moveIndex < encodedSolution.length; moveIndex++)
+			encodedSolution[moveIndex] = encodedMoves.get(moveIndex);
+		return encodedSolution;
+	}
+
+	/**
+	 * @return the moves as written by the statistics output
+	 */
+	public static String solutionToText(VehicleLayout layout, byte[] moves) {
+		StringBuilder solution = new StringBuilder();
+		for (byte move : moves) {
+			int vehicleIndex = getVehicleIndex(move);
+			int distance = getDistance(move);
+			solution.append(
+					new Movement(layout.getIdentifier(vehicleIndex), layout.getOrientation(vehicleIndex), 0, distance));
+		}
+		return solution.append(SOLUTION_END).toString();
+	}
+}
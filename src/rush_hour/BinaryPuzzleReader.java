@@ -0,0 +1,83 @@
+package rush_hour;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class reads the records of a binary puzzles file written by
+ * BinaryPuzzleWriter, one at a time through a buffer refilled from the file's
+ * channel.
+ */
+public class BinaryPuzzleReader implements Iterator<BinaryPuzzleRecord>, Closeable {
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private boolean isEndOfFile;
+
+	public BinaryPuzzleReader(Path inputFile) throws IOException {
+		channel = FileChannel.open(inputFile, StandardOpenOption.READ);
+		buffer = ByteBuffer.allocateDirect(BinaryPuzzleWriter.BUFFER_SIZE);
+		buffer.flip();
+		if (!fill(Integer.BYTES) || buffer.getInt() != BinaryPuzzleWriter.FILE_MAGIC) {
+			channel.close();
+			throw new IOException(inputFile + " is not a binary puzzles file");
+		}
+	}
+
+	/**
+	 * Reads from the file until the buffer has the given number of bytes
+	 *
+	 * @return false if the file ended before
+	 */
+	private boolean fill(int numberOfBytes) throws IOException {
+		if (buffer.remaining() >= numberOfBytes)
+			return true;
+		buffer.compact();
+		while (buffer.position() < numberOfBytes && !isEndOfFile)
+			isEndOfFile = channel.read(buffer) == -1;
+		buffer.flip();
+		return buffer.remaining() >= numberOfBytes;
+	}
+
+	@Override
+	public boolean hasNext() {
+		try {
+			return fill(1);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public BinaryPuzzleRecord next() {
+		try {
+			if (!fill(BinaryPuzzleCodec.PUZZLE_RECORD_SIZE + Short.BYTES)) {
+				if (!buffer.hasRemaining())
+					throw new NoSuchElementException();
+				throw new IOException("Puzzle record was cut");
+			}
+			BoardState puzzle = BinaryPuzzleCodec.decodePuzzle(buffer);
+			short numberOfMoves = buffer.getShort();
+			if (numberOfMoves == BinaryPuzzleWriter.NO_SOLUTION)
+				return new BinaryPuzzleRecord(puzzle, null);
+			if (!fill(numberOfMoves))
+				throw new IOException("Solution record was cut");
+			byte[] solution = new byte[numberOfMoves];
+			buffer.get(solution);
+			return new BinaryPuzzleRecord(puzzle, solution);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
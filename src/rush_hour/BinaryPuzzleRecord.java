@@ -0,0 +1,31 @@
+package rush_hour;
+
+/**
+ * A puzzle of a binary puzzles file, with the moves of it's solution when it
+ * was solved
+ */
+public class BinaryPuzzleRecord {
+	private final BoardState puzzle;
+	private final byte[] solution;
+
+	/**
+	 * @param solution - a byte per move as encoded by BinaryPuzzleCodec, null if
+	 *                 the puzzle wasn't solved
+	 */
+	public BinaryPuzzleRecord(BoardState puzzle, byte[] solution) {
+		this.puzzle = puzzle;
+		this.solution = solution;
+	}
+
+	public BoardState getPuzzle() {
+		return puzzle;
+	}
+
+	public byte[] getSolution() {
+		return solution;
+	}
+
+	public boolean isSolved() {
+		return solution != null;
+	}
+}
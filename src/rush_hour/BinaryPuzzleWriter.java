@@ -0,0 +1,68 @@
+package rush_hour;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class writes puzzles and their solutions to a binary puzzles file. The
+ * file starts with FILE_MAGIC, followed by a record per puzzle - the puzzle
+ * record of BinaryPuzzleCodec, the number of moves of it's solution as a
+ * short (NO_SOLUTION if it wasn't solved) and a byte per move.
+ */
+public class BinaryPuzzleWriter implements Closeable {
+	public static final int FILE_MAGIC = 0x52484231; // "RHB1"
+	public static final short NO_SOLUTION = -1;
+	static final int BUFFER_SIZE = 1 << 16;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+
+	public BinaryPuzzleWriter(Path outputFile) throws IOException {
+		channel = FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		buffer.putInt(FILE_MAGIC);
+	}
+
+	/**
+	 * @param solution - a byte per move, null if the puzzle wasn't solved
+	 */
+	public void write(BoardState puzzle, byte[] solution) throws IOException {
+		int numberOfMoves = solution == null ? 0 : solution.length;
+		if (numberOfMoves > Short.MAX_VALUE)
+			throw new IllegalArgumentException("Solution of " + numberOfMoves + " moves is too long");
+		if (buffer.remaining() < BinaryPuzzleCodec.PUZZLE_RECORD_SIZE + Short.BYTES + numberOfMoves)
+			flush();
+		BinaryPuzzleCodec.encodePuzzle(puzzle, buffer);
+		if (solution == null) {
+			buffer.putShort(NO_SOLUTION);
+		} else {
+			buffer.putShort((short) numberOfMoves);
+			buffer.put(solution);
+		}
+	}
+
+	public void write(BinaryPuzzleRecord record) throws IOException {
+		write(record.getPuzzle(), record.getSolution());
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+}
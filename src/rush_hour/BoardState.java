@@ -0,0 +1,142 @@
+package rush_hour;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * This class represents the dynamic part of a board - the offset of every
+ * vehicle of a VehicleLayout along it's line, plus a 36-bit occupancy mask of
+ * the board (bit row * BOARD_SIZE + column is set when the cell is taken).
+ * Moving a vehicle only updates a single offset and the mask, so states are
+ * cheap to copy and compare.
+ */
+public class BoardState {
+	private final VehicleLayout layout;
+	private final byte[] offsets;
+	private long occupancy;
+
+	public BoardState(VehicleLayout layout, byte[] offsets) {
+		this.layout = layout;
+		this.offsets = offsets;
+		rebuildOccupancy();
+	}
+
+	public BoardState(BoardState other) {
+		layout = other.layout;
+		offsets = other.offsets.clone();
+		occupancy = other.occupancy;
+	}
+
+	public static BoardState fromVehicles(Collection<Vehicle> vehicles) {
+		VehicleLayout layout = new VehicleLayout(vehicles);
+		byte[] offsets = new byte[layout.getNumberOfVehicles()];
+		for (Vehicle vehicle : vehicles)
+			offsets[layout.getIndexOf(vehicle.getIdentifier())] = (byte) VehicleLayout.getOffsetOf(vehicle);
+		return new BoardState(layout, offsets);
+	}
+
+	public static int getCellIndex(int row, int col) {
+		return row * Constants.BOARD_SIZE + col;
+	}
+
+	public VehicleLayout getLayout() {
+		return layout;
+	}
+
+	public int getOffset(int vehicleIndex) {
+		return offsets[vehicleIndex];
+	}
+
+	public long getOccupancy() {
+		return occupancy;
+	}
+
+	public boolean isCellFree(int cellIndex) {
+		return (occupancy & (1L << cellIndex)) == 0;
+	}
+
+	/**
+	 * Moves a vehicle along it's line, assuming the new offset is reachable
+	 */
+	public void moveVehicle(int vehicleIndex, int newOffset) {
+		occupancy &= ~layout.getVehicleMask(vehicleIndex, offsets[vehicleIndex]);
+		offsets[vehicleIndex] = (byte) newOffset;
+		occupancy |= layout.getVehicleMask(vehicleIndex, newOffset);
+	}
+
+	/**
+	 * Sets the offset of a vehicle without updating the occupancy mask, used when
+	 * several vehicles are placed at once - rebuildOccupancy must be called after
+	 * all of them are set
+	 */
+	void setOffset(int vehicleIndex, int offset) {
+		offsets[vehicleIndex] = (byte) offset;
+	}
+
+	void rebuildOccupancy() {
+		occupancy = 0L;
+		for (int vehicleIndex = 0; vehicleIndex < offsets.length; vehicleIndex++)
+			occupancy |= layout.getVehicleMask(vehicleIndex, offsets[vehicleIndex]);
+	}
+
+	/**
+	 * @return index of the vehicle that covers the given cell, -1 if the cell is
+	 *         empty or out of the board
+	 */
+	public int getVehicleIndexAt(int row, int col) {
+		if (row < 0 || row >= Constants.BOARD_SIZE || col < 0 || col >= Constants.BOARD_SIZE
+				|| isCellFree(getCellIndex(row, col)))
+			return -1;
+		long cellMask = 1L << getCellIndex(row, col);
+		for (int vehicleIndex = 0; vehicleIndex < offsets.length; vehicleIndex++)
+			if ((layout.getVehicleMask(vehicleIndex, offsets[vehicleIndex]) & cellMask) != 0)
+				return vehicleIndex;
+		return -1;
+	}
+
+	/**
+	 * Goal state is a state where the target vehicle reached the exit, means it's
+	 * end is on the last column of the board
+	 */
+	public boolean isGoal() {
+		return offsets[VehicleLayout.TARGET_VEHICLE_INDEX]
+				+ layout.getSize(VehicleLayout.TARGET_VEHICLE_INDEX) >= Constants.BOARD_SIZE;
+	}
+
+	public Vehicle getVehicle(int vehicleIndex) {
+		return layout.toVehicle(vehicleIndex, offsets[vehicleIndex]);
+	}
+
+	public Collection<Vehicle> getVehicles() {
+		Collection<Vehicle> vehicles = new ArrayList<>();
+		for (int vehicleIndex = 0; vehicleIndex < offsets.length; vehicleIndex++)
+			vehicles.add(getVehicle(vehicleIndex));
+		return vehicles;
+	}
+
+	public Collection<Point> getEmptySpots() {
+		Collection<Point> emptySpots = new ArrayList<>();
+		for (int row = 0; row < Constants.BOARD_SIZE; row++)
+			for (int col = 0; col < Constants.BOARD_SIZE; col++)
+				if (isCellFree(getCellIndex(row, col)))
+					emptySpots.add(new Point(row, col));
+		return emptySpots;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof BoardState))
+			return false;
+		BoardState other = (BoardState) o;
+		return occupancy == other.occupancy && Arrays.equals(offsets, other.offsets) && layout.equals(other.layout);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(offsets);
+	}
+}
@@ -1,9 +1,7 @@
 package rush_hour;
 
 import java.io.BufferedReader;
-import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.logging.Logger;
@@ -30,6 +28,57 @@ public final class GameUtils {
 		return defaultTimeLimit;
 	}
 
+	public static int getNumberOfWorkersFromCommandLine(String[] args) {
+		int numberOfWorkers = Runtime.getRuntime().availableProcessors();
+		if (args.length > 2) {
+			try {
+				numberOfWorkers = Integer.parseInt(args[2]);
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		} else {
+			LOGGER.warning("You didn't pass number of workers, using number of available processors..");
+		}
+		LOGGER.info("Number of workers solving puzzles: " + numberOfWorkers);
+		return numberOfWorkers;
+	}
+
+	/**
+	 * @return number of puzzles in each raw puzzles CSV file, 0 when puzzles
+	 *         shouldn't be exported at all
+	 */
+	public static int getRawPuzzlesPerCsvFileFromCommandLine(String[] args) {
+		int rawPuzzlesPerCsvFile = 0;
+		if (args.length > 3) {
+			try {
+				rawPuzzlesPerCsvFile = Integer.parseInt(args[3]);
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+		LOGGER.info("Raw puzzles per CSV file: " + rawPuzzlesPerCsvFile);
+		return rawPuzzlesPerCsvFile;
+	}
+
+	/**
+	 * @return true if the output of a former batch should be resumed, skipping
+	 *         the puzzles stored there, instead of being overwritten
+	 */
+	public static boolean getResumeFromCommandLine(String[] args) {
+		boolean resume = args.length > 4 && Boolean.parseBoolean(args[4]);
+		LOGGER.info("Resuming former output: " + resume);
+		return resume;
+	}
+
+	/**
+	 * @return directory of the solution store, null when solutions aren't stored
+	 */
+	public static String getSolutionStoreDirectoryFromCommandLine(String[] args) {
+		String solutionStoreDirectory = args.length > 5 ? args[5] : null;
+		LOGGER.info("Solution store directory: " + solutionStoreDirectory);
+		return solutionStoreDirectory;
+	}
+
 	public static String getInputFilePath(String[] args) {
 		String inputFilePath = "./rh.txt";
 		if (args.length > 0) {
@@ -50,9 +99,7 @@ public final class GameUtils {
 		String inputFilePath = GameUtils.getInputFilePath(args);
 
 		ArrayList<String> rawPuzzles = new ArrayList<String>();
-		BufferedReader reader;
-		try {
-			reader = new BufferedReader(new FileReader(inputFilePath));
+		try (BufferedReader reader = new BufferedReader(new FileReader(inputFilePath))) {
 			String rawPuzzle = reader.readLine();
 			while (rawPuzzle != null) {
 				rawPuzzles.add(rawPuzzle);
@@ -63,7 +110,6 @@ public final class GameUtils {
 			LOGGER.severe("IOException had catched, exiting the application!");
 			System.exit(-1);
 		}
-		parsePuzzlesToCsv(rawPuzzles);
 		return rawPuzzles;
 	}
 
@@ -71,41 +117,17 @@ public final class GameUtils {
 		return Constants.RAW_CSV_PUZZELS_OUTPUT_PATH + puzzleNumber + ".csv";
 	}
 
+	/**
+	 * Exports every puzzle to it's own CSV file, and waits for them to be written
+	 */
 	public static void parsePuzzlesToCsv(ArrayList<String> rawPuzzlesAs) {
-		int puzzleNumber = 1;
-
-		// Check if output directory exists
-		File directory = new File(Constants.RAW_CSV_PUZZELS_OUTPUT_PATH);
-		if (!directory.exists()) {
-			directory.mkdir();
-		}
-
-		for (String puzzle : rawPuzzlesAs) {
-			String fileHeaderAndFooter = ",0,1,2,3,4,5\n";
-			try {
-				FileWriter myWriter = new FileWriter(getPuzzleRawCsvPath(puzzleNumber));
-				myWriter.write(fileHeaderAndFooter);
-				int rawIndex = 0;
-				for (String puzzleRaw : puzzle.split("(?<=\\G.{6})")) {
-					String lineToPrint = rawIndex + "|,";
-					for (char cell : puzzleRaw.toCharArray())
-						lineToPrint += cell + ",";
-					if (rawIndex == Constants.EXIT_RAW)
-						lineToPrint += "EXIT,";
-					else
-						lineToPrint += "|";
-					lineToPrint += "\n";
-					myWriter.write(lineToPrint);
-					rawIndex += 1;
-				}
-				myWriter.write(fileHeaderAndFooter);
-				myWriter.close();
-
-			} catch (IOException e) {
-				System.out.println("An error occurred.");
-				e.printStackTrace();
-			}
-			puzzleNumber += 1;
+		try (RawPuzzleCsvExporter exporter = new RawPuzzleCsvExporter(Constants.RAW_CSV_PUZZELS_OUTPUT_PATH, 1)) {
+			int puzzleNumber = 1;
+			for (String puzzle : rawPuzzlesAs)
+				exporter.accept(puzzle, puzzleNumber++);
+		} catch (IOException e) {
+			System.out.println("An error occurred.");
+			e.printStackTrace();
 		}
 	}
 
@@ -11,22 +11,23 @@ import java.util.logging.Logger;
 public final class InputHandler {
 	private static Logger LOGGER = Logger.getLogger(Main.class.getName());
 
-	static int puzzleID;
-
 	private InputHandler() {
-		puzzleID = 0;
 	}
 
 	/**
-	 * Static function to get parsed puzzle from an input file
+	 * Static function to get parsed puzzle from an input file. Puzzles are
+	 * numbered by their line in the input, starting from 1, so the numbering
+	 * doesn't depend on other calls or threads
 	 * 
-	 * @param inputFilePath - path to file to read from
+	 * @param rawPuzzles - lines read from the input file
 	 * @return A list initialized with RawPuzzleObject which is parsed puzzle in raw
 	 *         condition from input file.
 	 */
 	public static ArrayList<RawPuzzleObject> getPuzzles(ArrayList<String> rawPuzzles) {
 		ArrayList<RawPuzzleObject> rawPuzzlesList = new ArrayList<RawPuzzleObject>();
-		rawPuzzles.forEach(rawPuzzle -> rawPuzzlesList.add(new RawPuzzleObject(rawPuzzle, ++puzzleID)));
+		int puzzleID = 0;
+		for (String rawPuzzle : rawPuzzles)
+			rawPuzzlesList.add(new RawPuzzleObject(rawPuzzle, ++puzzleID));
 		return rawPuzzlesList;
 	}
 }
\ No newline at end of file
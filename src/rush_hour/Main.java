@@ -1,12 +1,18 @@
 package rush_hour;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import search_engine.SearchAlgorithmSolver;
+import search_engine.astar.AStar;
 import search_engine.astar.AStarSolutionStatisticsData;
 import search_engine.astar.AStarSolver;
 import search_engine.astar.BlockersAndDistanceHeuristic;
+import search_engine.solution_store.SolutionStore;
 import search_engine.statistics_calculator.StatisticsWriter;
 
 public class Main {
@@ -15,19 +21,57 @@ public class Main {
 	public static void main(String[] args) {
 		LOGGER.setLevel(Level.WARNING);
 		double timeLimitForPuzzle = GameUtils.getTimeLimitFromCommandLine(args);
-		ArrayList<String> rawPuzzlesAsString = GameUtils.getRawPuzzlesFromInputFile(args);
-		ArrayList<RawPuzzleObject> rawPuzzles = InputHandler.getPuzzles(rawPuzzlesAsString);
-		LOGGER.info("Input file read successfully!");
-		StatisticsWriter<AStarSolutionStatisticsData> statisticsWriter = new StatisticsWriter<>(
-				GameUtils.getOutputFileName(args));
+		int numberOfWorkers = GameUtils.getNumberOfWorkersFromCommandLine(args);
+		// Every worker gets an equal share of the heap for it's search nodes
+		int nodesLimitForWorker = AStar.getNodesLimitForMemory(Runtime.getRuntime().maxMemory() / numberOfWorkers);
 //		BlockersHeuristicCalculator h = new BlockersHeuristicCalculator();
 		BlockersAndDistanceHeuristic h = new BlockersAndDistanceHeuristic();
+//		PatternDatabaseHeuristic h = new PatternDatabaseHeuristic();
+//		BlockerChainHeuristic h = new BlockerChainHeuristic();
+//		CachedHeuristic h = new CachedHeuristic(new BlockerChainHeuristic());
+//		MaxOfHeuristics h = new MaxOfHeuristics(new BlockersHeuristicCalculator(), new BlockerChainHeuristic(),
+//				new PatternDatabaseHeuristic());
 //		TargetVehicleDistanceFromExitHeuristic h = new TargetVehicleDistanceFromExitHeuristic();
+		// Debug mode - compares every incremental value with a full evaluation
+//		CheckedIncrementalHeuristic h = new CheckedIncrementalHeuristic(new BlockersAndDistanceHeuristic());
 
-		AStarSolver searchAlgorithm = new AStarSolver(h, timeLimitForPuzzle);
-//		IterativeDeepeningDFS searchAlgorithm = new IterativeDeepeningDFS(timeLimitForPuzzle);
+		Supplier<SearchAlgorithmSolver> searchAlgorithm = () -> new AStarSolver(h, timeLimitForPuzzle,
+				nodesLimitForWorker);
+//		Supplier<SearchAlgorithmSolver> searchAlgorithm = () -> new IterativeDeepeningDFS(timeLimitForPuzzle);
+//		Supplier<SearchAlgorithmSolver> searchAlgorithm = () -> new IDAStarSolver(h, timeLimitForPuzzle, 1 << 20);
+//		Supplier<SearchAlgorithmSolver> searchAlgorithm = () -> new DistanceDatabaseSolver();
+//		Supplier<SearchAlgorithmSolver> searchAlgorithm = () -> new BidirectionalBFSSolver(timeLimitForPuzzle);
+//		Supplier<SearchAlgorithmSolver> searchAlgorithm = () -> new ParallelBFSSolver(timeLimitForPuzzle,
+//				Runtime.getRuntime().availableProcessors());
+		// Searches every puzzle with all cores, meant to be used with a single batch worker
+//		Supplier<SearchAlgorithmSolver> searchAlgorithm = () -> new HDAStarSolver(h, timeLimitForPuzzle,
+//				Runtime.getRuntime().availableProcessors());
 
-		PuzzlesSolver solver = new PuzzlesSolver(statisticsWriter, rawPuzzles, h, searchAlgorithm);
-		solver.startSolve();
+		// Puzzles are read lazily, while the ones before them are solved, and their
+		// rows are appended as they're solved - a resumed batch skips the puzzles it's
+		// output has already. Exporting them as CSV is for debugging, and is off unless
+		// it's asked for. Puzzles solved by former runs are taken from the solution
+		// store when it's given
+		int rawPuzzlesPerCsvFile = GameUtils.getRawPuzzlesPerCsvFileFromCommandLine(args);
+		String inputFilePath = GameUtils.getInputFilePath(args);
+		String solutionStoreDirectory = GameUtils.getSolutionStoreDirectoryFromCommandLine(args);
+		try (StatisticsWriter<AStarSolutionStatisticsData> statisticsWriter = new StatisticsWriter<>(
+				GameUtils.getOutputFileName(args), GameUtils.getResumeFromCommandLine(args));
+				RawPuzzleCsvExporter csvExporter = rawPuzzlesPerCsvFile > 0
+				? new RawPuzzleCsvExporter(Constants.RAW_CSV_PUZZELS_OUTPUT_PATH, rawPuzzlesPerCsvFile)
+				: null;
+				PuzzleReader rawPuzzles = csvExporter != null ? new PuzzleReader(inputFilePath, csvExporter)
+						: new PuzzleReader(inputFilePath);
+				SolutionStore solutionStore = solutionStoreDirectory != null
+						? SolutionStore.open(Paths.get(solutionStoreDirectory))
+						: null) {
+			PuzzlesSolver solver = new PuzzlesSolver(statisticsWriter, rawPuzzles, h, searchAlgorithm, numberOfWorkers);
+			solver.setSolutionStore(solutionStore);
+			solver.startSolve();
+		} catch (IOException | UncheckedIOException e) {
+			e.printStackTrace();
+			LOGGER.severe("IOException had catched, exiting the application!");
+			System.exit(-1);
+		}
 	}
 }
@@ -0,0 +1,124 @@
+package rush_hour;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class generates all the legal slides of a board state using lookup
+ * tables which are built once per board size.
+ *
+ * Every row and column of the board is looked at as a line pattern - a mask of
+ * BOARD_SIZE bits out of the occupancy mask. Row patterns are a simple shift
+ * of the occupancy, column patterns are collected by spreading each row
+ * pattern into the columns it touches. For every line pattern and position we
+ * keep the number of free cells before it and from it, so the slide range of a
+ * vehicle is two table reads.
+ *
+ * A move is encoded as a single int (vehicle index and new offset), moves are
+ * written to a buffer owned by the caller so generating them allocates
+ * nothing.
+ */
+public final class MoveGenerator {
+	private static final Map<Integer, MoveGenerator> GENERATORS = new ConcurrentHashMap<>();
+	private static final int OFFSET_BITS = 4;
+	private static final int OFFSET_MASK = (1 << OFFSET_BITS) - 1;
+
+	private final int boardSize;
+	private final long lineMask;
+	// For every row pattern, the bit of column c is moved to bit c * boardSize
+	private final long[] rowPatternSpread;
+	// [pattern * (boardSize + 1) + position] - number of free cells right before
+	// position / starting at position
+	private final byte[] freeCellsBefore;
+	private final byte[] freeCellsFrom;
+
+	private MoveGenerator(int boardSize) {
+		this.boardSize = boardSize;
+		int numberOfPatterns = 1 << boardSize;
+		lineMask = numberOfPatterns - 1;
+		rowPatternSpread = new long[numberOfPatterns];
+		freeCellsBefore = new byte[numberOfPatterns * (boardSize + 1)];
+		freeCellsFrom = new byte[numberOfPatterns * (boardSize + 1)];
+
+		for (int pattern = 0; pattern < numberOfPatterns; pattern++) {
+			for (int col = 0; col < boardSize; col++)
+				if ((pattern & (1 << col)) != 0)
+					rowPatternSpread[pattern] |= 1L << (col * boardSize);
+
+			for (int position = 0; position <= boardSize; position++) {
+				int before = 0;
+				while (position - before - 1 >= 0 && (pattern & (1 << (position - before - 1))) == 0)
+					before++;
+				int from = 0;
+				while (position + from < boardSize && (pattern & (1 << (position + from))) == 0)
+					from++;
+				freeCellsBefore[pattern * (boardSize + 1) + position] = (byte) before;
+				freeCellsFrom[pattern * (boardSize + 1) + position] = (byte) from;
+			}
+		}
+	}
+
+	public static MoveGenerator getGenerator() {
+		return getGenerator(Constants.BOARD_SIZE);
+	}
+
+	public static MoveGenerator getGenerator(int boardSize) {
+		if (boardSize * boardSize > Long.SIZE || boardSize > OFFSET_MASK)
+			throw new IllegalArgumentException("Board of size " + boardSize + " does not fit in occupancy mask");
+		return GENERATORS.computeIfAbsent(boardSize, MoveGenerator::new);
+	}
+
+	/**
+	 * @return size of buffer which is big enough to hold all the moves of any
+	 *         state of the given layout
+	 */
+	public static int getMaxNumberOfMoves(VehicleLayout layout) {
+		return layout.getNumberOfVehicles() * (Constants.BOARD_SIZE - 1);
+	}
+
+	public static int encodeMove(int vehicleIndex, int newOffset) {
+		return (vehicleIndex << OFFSET_BITS) | newOffset;
+	}
+
+	public static int getVehicleIndex(int move) {
+		return move >>> OFFSET_BITS;
+	}
+
+	public static int getNewOffset(int move) {
+		return move & OFFSET_MASK;
+	}
+
+	/**
+	 * Writes all the legal moves of the given state to the buffer. For each
+	 * vehicle, moves backward are written first (closest first) and then moves
+	 * forward.
+	 *
+	 * @param boardState - state to expand
+	 * @param movesBuffer - buffer of at least getMaxNumberOfMoves entries
+	 * @return number of moves written to the buffer
+	 */
+	public int generateMoves(BoardState boardState, int[] movesBuffer) {
+		VehicleLayout layout = boardState.getLayout();
+		long occupancy = boardState.getOccupancy();
+		long columnPatterns = 0L;
+		for (int row = 0; row < boardSize; row++)
+			columnPatterns |= rowPatternSpread[(int) ((occupancy >>> (row * boardSize)) & lineMask)] << row;
+
+		int numberOfMoves = 0;
+		for (int vehicleIndex = 0; vehicleIndex < layout.getNumberOfVehicles(); vehicleIndex++) {
+			int lineShift = layout.getFixedLine(vehicleIndex) * boardSize;
+			int pattern = (int) (((layout.getOrientation(vehicleIndex) == Constants.HORIZONTAL ? occupancy
+					: columnPatterns) >>> lineShift) & lineMask);
+			int offset = boardState.getOffset(vehicleIndex);
+			int patternBase = pattern * (boardSize + 1);
+			int minOffset = offset - freeCellsBefore[patternBase + offset];
+			int maxOffset = offset + freeCellsFrom[patternBase + offset + layout.getSize(vehicleIndex)];
+
+			for (int newOffset = offset - 1; newOffset >= minOffset; newOffset--)
+				movesBuffer[numberOfMoves++] = encodeMove(vehicleIndex, newOffset);
+			for (int newOffset = offset + 1; newOffset <= maxOffset; newOffset++)
+				movesBuffer[numberOfMoves++] = encodeMove(vehicleIndex, newOffset);
+		}
+		return numberOfMoves;
+	}
+}
@@ -24,6 +24,15 @@ public class Movement {
 		}
 	}
 
+	public Movement(Character vehicleID, boolean vehicleOrientation, int oldOffset, int newOffset) {
+		vehicleIdentifier = vehicleID;
+		if (vehicleOrientation == Constants.HORIZONTAL)
+			movementDirection = oldOffset < newOffset ? Direction.R : Direction.L;
+		else
+			movementDirection = oldOffset < newOffset ? Direction.D : Direction.U;
+		movementSize = Math.abs(oldOffset - newOffset);
+	}
+
 	@Override
 	public String toString() {
 		return " " + vehicleIdentifier + movementDirection + movementSize + " -->";
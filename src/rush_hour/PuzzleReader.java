@@ -0,0 +1,72 @@
+package rush_hour;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * This class reads puzzles from an input file one at a time, parsing each of
+ * them only when it's asked for - so a file of any size is read in constant
+ * memory and the first puzzle is ready as soon as it's line was read. Puzzles
+ * are numbered by their line in the input, starting from 1, and empty lines
+ * are skipped.
+ */
+public class PuzzleReader implements Iterator<RawPuzzleObject>, Closeable {
+	private static final BiConsumer<String, Integer> NO_LISTENER = (rawPuzzle, puzzleID) -> {
+	};
+
+	private final BufferedReader reader;
+	private final BiConsumer<String, Integer> onPuzzleRead;
+	private String nextRawPuzzle;
+	private int lineNumber;
+
+	public PuzzleReader(String inputFilePath) throws IOException {
+		this(inputFilePath, NO_LISTENER);
+	}
+
+	/**
+	 * @param onPuzzleRead - gets every puzzle line and it's number as it's read
+	 */
+	public PuzzleReader(String inputFilePath, BiConsumer<String, Integer> onPuzzleRead) throws IOException {
+		reader = Files.newBufferedReader(Paths.get(inputFilePath));
+		this.onPuzzleRead = onPuzzleRead;
+	}
+
+	@Override
+	public boolean hasNext() {
+		try {
+			while (nextRawPuzzle == null) {
+				String line = reader.readLine();
+				if (line == null)
+					return false;
+				lineNumber++;
+				if (!line.trim().isEmpty())
+					nextRawPuzzle = line.trim();
+			}
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed reading puzzle after line " + lineNumber, e);
+		}
+	}
+
+	@Override
+	public RawPuzzleObject next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		String rawPuzzle = nextRawPuzzle;
+		nextRawPuzzle = null;
+		onPuzzleRead.accept(rawPuzzle, lineNumber);
+		return new RawPuzzleObject(rawPuzzle, lineNumber);
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
@@ -1,6 +1,15 @@
 package rush_hour;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 import search_engine.SearchAlgorithmSolver;
@@ -8,35 +17,187 @@ import search_engine.astar.AStarSearchNode;
 import search_engine.astar.AStarSolutionStatisticsData;
 import search_engine.astar.HeuristicsCalculator;
 import search_engine.astar.SolvedPuzzle;
+import search_engine.solution_store.SolutionStore;
 import search_engine.statistics_calculator.StatisticsWriter;
 
+/**
+ * This class solves a batch of puzzles, either one after another or by a pool
+ * of workers. Each worker gets it's own solver out of the solvers factory, and
+ * results are stored in the order of the puzzles no matter which one finished
+ * first.
+ *
+ * Puzzles are taken from an iterator only when there is room for them - at
+ * most MAX_PENDING_PUZZLES_PER_WORKER for every worker are submitted and not
+ * stored yet - so a lazily read input is solved in constant memory, and each
+ * result is stored as soon as the puzzles before it are. Puzzles which the
+ * statistics writer stored already, by a batch it resumes, are skipped. A
+ * puzzle whose solver throws is logged and the batch goes on without it.
+ *
+ * With a solution store, a puzzle which has a stored solution isn't searched
+ * at all, and the solutions which are found are stored for the next runs.
+ */
 public class PuzzlesSolver {
 	private static Logger LOGGER = Logger.getLogger(Main.class.getName());
+	private static final int MAX_PENDING_PUZZLES_PER_WORKER = 4;
 
 	protected StatisticsWriter<AStarSolutionStatisticsData> statisticsWriter;
-	protected ArrayList<RawPuzzleObject> puzzlesToSolve;
+	protected Iterator<RawPuzzleObject> puzzlesToSolve;
 	private HeuristicsCalculator calculator;
-	private SearchAlgorithmSolver puzzleSolver;
+	private ThreadLocal<SearchAlgorithmSolver> puzzleSolver;
+	private int numberOfWorkers;
+	private SolutionStore solutionStore;
 
 	public PuzzlesSolver(StatisticsWriter<AStarSolutionStatisticsData> statisticsWriter_,
 			ArrayList<RawPuzzleObject> puzzlesToSolve_, HeuristicsCalculator calculator_,
 			SearchAlgorithmSolver puzzleSolver_) {
+		this(statisticsWriter_, puzzlesToSolve_, calculator_, () -> puzzleSolver_, 1);
+	}
+
+	public PuzzlesSolver(StatisticsWriter<AStarSolutionStatisticsData> statisticsWriter_,
+			ArrayList<RawPuzzleObject> puzzlesToSolve_, HeuristicsCalculator calculator_,
+			Supplier<SearchAlgorithmSolver> solversFactory, int numberOfWorkers_) {
+		this(statisticsWriter_, puzzlesToSolve_.iterator(), calculator_, solversFactory, numberOfWorkers_);
+	}
+
+	/**
+	 * @param puzzlesToSolve_ - puzzles in their order, taken as workers are free
+	 * @param solversFactory  - creates the solver of each worker
+	 * @param numberOfWorkers - number of puzzles solved at the same time
+	 */
+	public PuzzlesSolver(StatisticsWriter<AStarSolutionStatisticsData> statisticsWriter_,
+			Iterator<RawPuzzleObject> puzzlesToSolve_, HeuristicsCalculator calculator_,
+			Supplier<SearchAlgorithmSolver> solversFactory, int numberOfWorkers_) {
 		statisticsWriter = statisticsWriter_;
 		puzzlesToSolve = puzzlesToSolve_;
 		calculator = calculator_;
-		puzzleSolver = puzzleSolver_;
+		puzzleSolver = ThreadLocal.withInitial(solversFactory);
+		numberOfWorkers = Math.max(1, numberOfWorkers_);
+	}
+
+	/**
+	 * @param solutionStore_ - store to look puzzles up in before they're searched,
+	 *                       null to search every puzzle
+	 */
+	public void setSolutionStore(SolutionStore solutionStore_) {
+		solutionStore = solutionStore_;
 	}
 
 	public void startSolve() {
-		for (RawPuzzleObject rawPuzzle : puzzlesToSolve) {
-			solveSinglePuzzle(rawPuzzle);
+		if (numberOfWorkers == 1) {
+			for (RawPuzzleObject rawPuzzle = takeNextPuzzle(); rawPuzzle != null; rawPuzzle = takeNextPuzzle()) {
+				try {
+					storeResult(solveSinglePuzzle(rawPuzzle));
+				} catch (RuntimeException e) {
+					logFailure(rawPuzzle.getPuzzleId(), e);
+				}
+			}
+		} else {
+			solveInParallel();
 		}
 		statisticsWriter.writeOutputFile();
+		if (solutionStore != null)
+			System.out.println("Solution store: " + solutionStore.getHits() + " hits, " + solutionStore.getMisses()
+					+ " misses, hit rate " + String.format("%.1f", 100 * solutionStore.getHitRate()) + "%");
 	}
 
-	private void solveSinglePuzzle(RawPuzzleObject rawPuzzle) {
-		SolvedPuzzle result = puzzleSolver.getBestSolution(new AStarSearchNode(rawPuzzle, calculator));
+	private void solveInParallel() {
+		LOGGER.info("Solving puzzles with " + numberOfWorkers + " workers");
+		ExecutorService workers = Executors.newFixedThreadPool(numberOfWorkers);
+		int maxPendingPuzzles = numberOfWorkers * MAX_PENDING_PUZZLES_PER_WORKER;
+		try {
+			Deque<PendingPuzzle> results = new ArrayDeque<>();
+			RawPuzzleObject nextPuzzle = takeNextPuzzle();
+			while (nextPuzzle != null || !results.isEmpty()) {
+				while (results.size() < maxPendingPuzzles && nextPuzzle != null) {
+					RawPuzzleObject rawPuzzle = nextPuzzle;
+					results.add(new PendingPuzzle(rawPuzzle.getPuzzleId(),
+							workers.submit(() -> solveSinglePuzzle(rawPuzzle))));
+					nextPuzzle = takeNextPuzzle();
+				}
+				// Waiting on the results by their order keeps the output in puzzles order
+				PendingPuzzle pendingPuzzle = results.poll();
+				try {
+					storeResult(pendingPuzzle.result.get());
+				} catch (ExecutionException e) {
+					logFailure(pendingPuzzle.puzzleId, e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.severe("Interrupted while waiting for puzzles to be solved");
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return next puzzle which isn't stored already, null if there is none
+	 */
+	private RawPuzzleObject takeNextPuzzle() {
+		while (puzzlesToSolve.hasNext()) {
+			RawPuzzleObject rawPuzzle = puzzlesToSolve.next();
+			if (!statisticsWriter.isStored(rawPuzzle.getPuzzleId()))
+				return rawPuzzle;
+			LOGGER.info("Skipping puzzle " + rawPuzzle.getPuzzleId() + ", it's stored already");
+		}
+		return null;
+	}
+
+	private SolvedPuzzle solveSinglePuzzle(RawPuzzleObject rawPuzzle) {
+		AStarSearchNode startNode = new AStarSearchNode(rawPuzzle, calculator);
+		if (solutionStore == null)
+			return puzzleSolver.get().getBestSolution(startNode);
+		// Solvers may change the start state as they search
+		BoardState startState = new BoardState(startNode.getBoardState());
+		try {
+			byte[] storedSolution = solutionStore.getSolution(startState);
+			if (storedSolution != null)
+				return getStoredSolution(rawPuzzle.getPuzzleId(), startState.getLayout(), storedSolution);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		SolvedPuzzle result = puzzleSolver.get().getBestSolution(startNode);
+		if (result != null && result.getStatisticsData().isSolved()) {
+			try {
+				solutionStore.putSolution(startState, BinaryPuzzleCodec.encodeSolution(startState.getLayout(),
+						result.getStatisticsData().getPuzzleSolution()));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		return result;
+	}
+
+	private SolvedPuzzle getStoredSolution(int puzzleId, VehicleLayout layout, byte[] moves) {
+		AStarSolutionStatisticsData statisticsData = new AStarSolutionStatisticsData(puzzleId, SolutionStore.NAME);
+		statisticsData.setNumberOfPassedMoves(moves.length);
+		statisticsData.setMinDepthIfNeeded(moves.length);
+		statisticsData.setMaxDepthIfNeeded(moves.length);
+		statisticsData.setPuzzleSolution(BinaryPuzzleCodec.solutionToText(layout, moves));
+		statisticsData.calculateFinalData();
+		return new SolvedPuzzle(statisticsData);
+	}
+
+	private void storeResult(SolvedPuzzle result) {
 		if (result != null)
 			statisticsWriter.storeResult(result.getStatisticsData());
 	}
+
+	/**
+	 * A puzzle whose solver failed gets no row, so a resumed batch tries it again
+	 */
+	private static void logFailure(int puzzleId, Throwable cause) {
+		cause.printStackTrace();
+		LOGGER.severe("Solving puzzle " + puzzleId + " failed: " + cause);
+	}
+
+	private static class PendingPuzzle {
+		private final int puzzleId;
+		private final Future<SolvedPuzzle> result;
+
+		PendingPuzzle(int puzzleId, Future<SolvedPuzzle> result) {
+			this.puzzleId = puzzleId;
+			this.result = result;
+		}
+	}
 }
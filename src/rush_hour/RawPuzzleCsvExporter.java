@@ -0,0 +1,140 @@
+package rush_hour;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.BiConsumer;
+
+/**
+ * This class exports puzzles as CSV tables for debugging, on a background
+ * writer thread so the reading and solving of puzzles doesn't wait for the
+ * files. Puzzles are handed to the thread through a bounded queue, and it
+ * writes them grouped in files of puzzlesPerFile puzzles by their numbers -
+ * "1-1000.csv" holds the tables of puzzles 1 to 1000 one after another, each
+ * after a line with it's number. With a single puzzle per file, every puzzle
+ * is written to it's own "number.csv" as a lone table. Puzzles are expected by
+ * increasing numbers, as they're read from the input.
+ */
+public class RawPuzzleCsvExporter implements BiConsumer<String, Integer>, Closeable {
+	private static final int QUEUE_CAPACITY = 1 << 10;
+	private static final String TABLE_HEADER_AND_FOOTER = ",0,1,2,3,4,5\n";
+	// Puzzle number of the entry which tells the writer thread to stop
+	private static final int END_OF_PUZZLES = -1;
+
+	private final String outputDirectory;
+	private final int puzzlesPerFile;
+	private final BlockingQueue<PuzzleEntry> queue;
+	private final Thread writerThread;
+	private volatile IOException writeFailure;
+
+	public RawPuzzleCsvExporter(String outputDirectory, int puzzlesPerFile) {
+		if (puzzlesPerFile < 1)
+			throw new IllegalArgumentException("At least a single puzzle per file is needed");
+		this.outputDirectory = outputDirectory;
+		this.puzzlesPerFile = puzzlesPerFile;
+		queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		writerThread = new Thread(this::writePuzzles, "raw-puzzles-csv-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	/**
+	 * Queues the puzzle to be written, waiting only while the queue is full
+	 */
+	@Override
+	public void accept(String rawPuzzle, Integer puzzleNumber) {
+		try {
+			queue.put(new PuzzleEntry(rawPuzzle, puzzleNumber));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Waits for every queued puzzle to be written
+	 *
+	 * @throws IOException if writing any of the files failed
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			queue.put(new PuzzleEntry(null, END_OF_PUZZLES));
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for puzzles to be exported");
+		}
+		if (writeFailure != null)
+			throw writeFailure;
+	}
+
+	private void writePuzzles() {
+		new File(outputDirectory).mkdirs();
+		StringBuilder table = new StringBuilder();
+		Writer writer = null;
+		int fileIndex = -1;
+		try {
+			for (PuzzleEntry entry = queue.take(); entry.puzzleNumber != END_OF_PUZZLES; entry = queue.take()) {
+				// After a failure puzzles are still taken, so the readers don't wait forever
+				if (writeFailure != null)
+					continue;
+				try {
+					int entryFileIndex = (entry.puzzleNumber - 1) / puzzlesPerFile;
+					if (entryFileIndex != fileIndex) {
+						if (writer != null)
+							writer.close();
+						fileIndex = entryFileIndex;
+						writer = Files.newBufferedWriter(Paths.get(outputDirectory, getFileName(fileIndex)));
+					}
+					table.setLength(0);
+					appendTable(table, entry);
+					writer.append(table);
+				} catch (IOException e) {
+					writeFailure = e;
+				}
+			}
+			if (writer != null)
+				writer.close();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			writeFailure = e;
+		}
+	}
+
+	private String getFileName(int fileIndex) {
+		if (puzzlesPerFile == 1)
+			return (fileIndex + 1) + ".csv";
+		return (fileIndex * puzzlesPerFile + 1) + "-" + ((fileIndex + 1) * puzzlesPerFile) + ".csv";
+	}
+
+	private void appendTable(StringBuilder table, PuzzleEntry entry) {
+		if (puzzlesPerFile > 1)
+			table.append("Puzzle ").append(entry.puzzleNumber).append('\n');
+		table.append(TABLE_HEADER_AND_FOOTER);
+		for (int rawIndex = 0; rawIndex * Constants.BOARD_SIZE < entry.rawPuzzle.length(); rawIndex++) {
+			table.append(rawIndex).append("|,");
+			int rawEnd = Math.min(entry.rawPuzzle.length(), (rawIndex + 1) * Constants.BOARD_SIZE);
+			for (int cell = rawIndex * Constants.BOARD_SIZE; cell < rawEnd; cell++)
+				table.append(entry.rawPuzzle.charAt(cell)).append(',');
+			table.append(rawIndex == Constants.EXIT_RAW ? "EXIT," : "|").append('\n');
+		}
+		table.append(TABLE_HEADER_AND_FOOTER);
+	}
+
+	private static class PuzzleEntry {
+		private final String rawPuzzle;
+		private final int puzzleNumber;
+
+		PuzzleEntry(String rawPuzzle, int puzzleNumber) {
+			this.rawPuzzle = rawPuzzle;
+			this.puzzleNumber = puzzleNumber;
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package rush_hour;
+
+/**
+ * This class encodes a board state of a specific VehicleLayout into a single
+ * long and back. Each vehicle can stand at (BOARD_SIZE - size + 1) offsets, so
+ * the state is written as a mixed-radix number where the digit of each vehicle
+ * is it's offset and it's radix is the number of offsets it can take.
+ *
+ * Two states of the same layout get the same code only if they are the same
+ * state, and codes are dense - every code is lower than getNumberOfCodes().
+ * The widest layout, 18 vehicles of size 2, needs 5^18 codes which still fits
+ * in a long.
+ */
+public class StateCodec {
+	private final VehicleLayout layout;
+	private final long[] weights;
+	private final int[] radixes;
+	private final long numberOfCodes;
+
+	public StateCodec(VehicleLayout layout) {
+		this.layout = layout;
+		int numberOfVehicles = layout.getNumberOfVehicles();
+		weights = new long[numberOfVehicles];
+		radixes = new int[numberOfVehicles];
+		long weight = 1;
+		for (int vehicleIndex = 0; vehicleIndex < numberOfVehicles; vehicleIndex++) {
+			radixes[vehicleIndex] = Constants.BOARD_SIZE - layout.getSize(vehicleIndex) + 1;
+			weights[vehicleIndex] = weight;
+			weight = Math.multiplyExact(weight, radixes[vehicleIndex]);
+		}
+		numberOfCodes = weight;
+	}
+
+	public VehicleLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * @return number of different codes of this layout, every code is in the range
+	 *         [0, numberOfCodes)
+	 */
+	public long getNumberOfCodes() {
+		return numberOfCodes;
+	}
+
+	/**
+	 * @return value the code grows by when the vehicle moves one cell forward
+	 */
+	public long getWeight(int vehicleIndex) {
+		return weights[vehicleIndex];
+	}
+
+	public long encode(BoardState boardState) {
+		long code = 0;
+		for (int vehicleIndex = 0; vehicleIndex < weights.length; vehicleIndex++)
+			code += boardState.getOffset(vehicleIndex) * weights[vehicleIndex];
+		return code;
+	}
+
+	/**
+	 * @return code of the state after moving a single vehicle, given the code of
+	 *         the state before the move
+	 */
+	public long encodeMove(long code, int vehicleIndex, int oldOffset, int newOffset) {
+		return code + (newOffset - oldOffset) * weights[vehicleIndex];
+	}
+
+	public int decodeOffset(long code, int vehicleIndex) {
+		return (int) ((code / weights[vehicleIndex]) % radixes[vehicleIndex]);
+	}
+
+	public BoardState decode(long code) {
+		byte[] offsets = new byte[weights.length];
+		for (int vehicleIndex = 0; vehicleIndex < weights.length; vehicleIndex++)
+			offsets[vehicleIndex] = (byte) decodeOffset(code, vehicleIndex);
+		return new BoardState(layout, offsets);
+	}
+
+	/**
+	 * Moves the vehicles of an existing state of this layout to the offsets of the
+	 * given code, without allocating a new state
+	 */
+	public void decodeInto(long code, BoardState boardState) {
+		for (int vehicleIndex = 0; vehicleIndex < weights.length; vehicleIndex++) {
+			int offset = (int) (code % radixes[vehicleIndex]);
+			code /= radixes[vehicleIndex];
+			boardState.setOffset(vehicleIndex, offset);
+		}
+		// Vehicles may swap cells between the two states, so the mask is rebuilt
+		// only after all of them are placed
+		boardState.rebuildOccupancy();
+	}
+}
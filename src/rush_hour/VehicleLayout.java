@@ -0,0 +1,157 @@
+package rush_hour;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class holds the static part of a puzzle - the vehicles which take part
+ * in it. A vehicle never leaves it's row (horizontal) or column (vertical), so
+ * for every vehicle we keep it's identifier, orientation, size and the line it
+ * is fixed on. The only thing which changes between states is the offset of
+ * each vehicle along it's line, which is kept by BoardState.
+ *
+ * The target vehicle is always at index 0, the other vehicles are sorted by
+ * their identifier, so the same puzzle always gets the same layout.
+ */
+public class VehicleLayout {
+	public static final int TARGET_VEHICLE_INDEX = 0;
+
+	private final char[] identifiers;
+	private final boolean[] orientations;
+	private final byte[] sizes;
+	private final byte[] fixedLines;
+	private final long[][] vehicleMasks;
+	private final StateCodec stateCodec;
+
+	public VehicleLayout(Collection<Vehicle> vehicles) {
+		List<Vehicle> sortedVehicles = new ArrayList<>(vehicles);
+		sortedVehicles.sort(Comparator.comparing((Vehicle v) -> v.getIdentifier() != Constants.TARGET_VEHICLE_IDENTIFIER)
+				.thenComparing(Vehicle::getIdentifier));
+		if (sortedVehicles.isEmpty()
+				|| sortedVehicles.get(TARGET_VEHICLE_INDEX).getIdentifier() != Constants.TARGET_VEHICLE_IDENTIFIER)
+			throw new IllegalArgumentException("Puzzle has no target vehicle");
+
+		int numberOfVehicles = sortedVehicles.size();
+		identifiers = new char[numberOfVehicles];
+		orientations = new boolean[numberOfVehicles];
+		sizes = new byte[numberOfVehicles];
+		fixedLines = new byte[numberOfVehicles];
+		vehicleMasks = new long[numberOfVehicles][];
+		for (int index = 0; index < numberOfVehicles; index++) {
+			Vehicle vehicle = sortedVehicles.get(index);
+			identifiers[index] = vehicle.getIdentifier();
+			orientations[index] = vehicle.getOrientation();
+			sizes[index] = (byte) vehicle.getSize();
+			fixedLines[index] = (byte) (vehicle.getOrientation() == Constants.HORIZONTAL ? vehicle.getStartPos().getX()
+					: vehicle.getStartPos().getY());
+			vehicleMasks[index] = new long[Constants.BOARD_SIZE - sizes[index] + 1];
+			for (int offset = 0; offset < vehicleMasks[index].length; offset++)
+				vehicleMasks[index][offset] = computeVehicleMask(index, offset);
+		}
+		stateCodec = new StateCodec(this);
+	}
+
+	public int getNumberOfVehicles() {
+		return identifiers.length;
+	}
+
+	public char getIdentifier(int vehicleIndex) {
+		return identifiers[vehicleIndex];
+	}
+
+	public boolean getOrientation(int vehicleIndex) {
+		return orientations[vehicleIndex];
+	}
+
+	public int getSize(int vehicleIndex) {
+		return sizes[vehicleIndex];
+	}
+
+	public int getFixedLine(int vehicleIndex) {
+		return fixedLines[vehicleIndex];
+	}
+
+	public StateCodec getStateCodec() {
+		return stateCodec;
+	}
+
+	/**
+	 * @param identifier - identifier of the vehicle on board
+	 * @return index of the vehicle in this layout, -1 if there is no such vehicle
+	 */
+	public int getIndexOf(char identifier) {
+		for (int index = 0; index < identifiers.length; index++)
+			if (identifiers[index] == identifier)
+				return index;
+		return -1;
+	}
+
+	/**
+	 * @return offset of the given vehicle along it's line - column for horizontal
+	 *         vehicles, row for vertical ones
+	 */
+	public static int getOffsetOf(Vehicle vehicle) {
+		return (int) (vehicle.getOrientation() == Constants.HORIZONTAL ? vehicle.getStartPos().getY()
+				: vehicle.getStartPos().getX());
+	}
+
+	/**
+	 * @param vehicleIndex - index of vehicle
+	 * @param position     - position along the vehicle's line
+	 * @return index of the board cell (row * BOARD_SIZE + column)
+	 */
+	public int getCellIndex(int vehicleIndex, int position) {
+		return orientations[vehicleIndex] == Constants.HORIZONTAL
+				? BoardState.getCellIndex(fixedLines[vehicleIndex], position)
+				: BoardState.getCellIndex(position, fixedLines[vehicleIndex]);
+	}
+
+	/**
+	 * @return bit mask of all the cells the vehicle covers when standing at the
+	 *         given offset
+	 */
+	public long getVehicleMask(int vehicleIndex, int offset) {
+		if (offset < 0 || offset >= vehicleMasks[vehicleIndex].length)
+			return computeVehicleMask(vehicleIndex, offset);
+		return vehicleMasks[vehicleIndex][offset];
+	}
+
+	private long computeVehicleMask(int vehicleIndex, int offset) {
+		long mask = 0L;
+		for (int position = offset; position < offset + sizes[vehicleIndex]; position++)
+			mask |= 1L << getCellIndex(vehicleIndex, position);
+		return mask;
+	}
+
+	public Vehicle toVehicle(int vehicleIndex, int offset) {
+		int lastPosition = offset + sizes[vehicleIndex] - 1;
+		boolean isHorizontal = orientations[vehicleIndex] == Constants.HORIZONTAL;
+		Vehicle vehicle = new Vehicle(identifiers[vehicleIndex],
+				isHorizontal ? new Point(fixedLines[vehicleIndex], offset) : new Point(offset, fixedLines[vehicleIndex]));
+		vehicle.setEndPos(isHorizontal ? new Point(fixedLines[vehicleIndex], lastPosition)
+				: new Point(lastPosition, fixedLines[vehicleIndex]));
+		vehicle.setOrientation(orientations[vehicleIndex]);
+		vehicle.setSize(sizes[vehicleIndex]);
+		return vehicle;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof VehicleLayout))
+			return false;
+		VehicleLayout other = (VehicleLayout) o;
+		return Arrays.equals(identifiers, other.identifiers) && Arrays.equals(orientations, other.orientations)
+				&& Arrays.equals(sizes, other.sizes) && Arrays.equals(fixedLines, other.fixedLines);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(identifiers) + Arrays.hashCode(fixedLines);
+	}
+}
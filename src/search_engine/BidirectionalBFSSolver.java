@@ -0,0 +1,248 @@
+package search_engine;
+
+import java.util.Arrays;
+
+import rush_hour.BoardState;
+import rush_hour.Constants;
+import rush_hour.MoveGenerator;
+import rush_hour.Movement;
+import rush_hour.StateCodec;
+import rush_hour.VehicleLayout;
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.AStarSolutionStatisticsData;
+import search_engine.astar.SolvedPuzzle;
+
+/**
+ * This class solves puzzles with two breadth first searches that meet in the
+ * middle - one from the start state and one from every goal state of the layout
+ * at once, which works since every move can be taken back. Vehicles which
+ * share a line can never pass each other, so only goal states which keep
+ * their order as in the start state are searched from. Each round expands a
+ * whole layer of the side with the smaller frontier, and the first round in
+ * which the sides meet gives the shortest solution.
+ *
+ * Each side keeps it's visited states in a LongIntHashMap, mapping the encoded
+ * state to it's depth and the move which links it to it's parent on that side.
+ */
+public class BidirectionalBFSSolver implements SearchAlgorithmSolver {
+	public static final String NAME = "BidirectionalBFS";
+	private static final int ROOT = 0xFFFF;
+
+	private final double timeLimit;
+
+	private StateCodec codec;
+	private BoardState currentState;
+	private int[] movesBuffer;
+	private Side forward;
+	private Side backward;
+	private long meetingCode;
+	private int solutionLength;
+	private SearchDeadline deadline;
+	private AStarSolutionStatisticsData solutionStatisticsData;
+
+	public BidirectionalBFSSolver(double timeLimitForPuzzle) {
+		timeLimit = timeLimitForPuzzle;
+	}
+
+	@Override
+	public SolvedPuzzle getBestSolution(AStarSearchNode start) {
+		solutionStatisticsData = new AStarSolutionStatisticsData(start.getPuzzleID(), NAME);
+		deadline = new SearchDeadline(timeLimit);
+		currentState = new BoardState(start.getBoardState());
+		VehicleLayout layout = currentState.getLayout();
+		codec = layout.getStateCodec();
+		movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(layout)];
+
+		forward = new Side();
+		forward.add(codec.encode(currentState), 0, ROOT);
+		backward = new Side();
+		byte[] goalOffsets = new byte[layout.getNumberOfVehicles()];
+		goalOffsets[VehicleLayout.TARGET_VEHICLE_INDEX] = (byte) (Constants.BOARD_SIZE
+				- layout.getSize(VehicleLayout.TARGET_VEHICLE_INDEX));
+		addGoalStates(layout, start.getBoardState(), goalOffsets, VehicleLayout.TARGET_VEHICLE_INDEX + 1,
+				layout.getVehicleMask(VehicleLayout.TARGET_VEHICLE_INDEX, goalOffsets[VehicleLayout.TARGET_VEHICLE_INDEX]));
+
+		solutionLength = -1;
+		checkMeeting(forward.queue[0], 0, backward);
+		boolean timedOut = false;
+		while (solutionLength == -1 && forward.hasLayer() && backward.hasLayer()) {
+			boolean isLayerExpanded = forward.getLayerSize() <= backward.getLayerSize()
+					? expandLayer(forward, backward, false)
+					: expandLayer(backward, forward, true);
+			// A meeting found in a layer which wasn't expanded to it's end may not be
+			// the shortest one
+			if (!isLayerExpanded) {
+				timedOut = true;
+				break;
+			}
+			solutionStatisticsData.setBestFIfNeeded(forward.depth + backward.depth);
+		}
+
+		solutionStatisticsData.setBranchingFactor(solutionStatisticsData.getNumberOfNodes());
+		solutionStatisticsData.setPenetrance(solutionStatisticsData.getNumberOfNodes());
+		solutionStatisticsData.calculateFinalData();
+		if (timedOut) {
+			System.out.println("FAILED solving puzzle because of time limitation: " + start.getPuzzleID());
+		} else if (solutionLength == -1) {
+			System.out.println("No Solution for puzzle: " + start.getPuzzleID());
+		} else {
+			System.out.println("Solved puzzle!");
+			solutionStatisticsData.setPuzzleSolution(getPuzzleSolution(layout));
+		}
+		return new SolvedPuzzle(solutionStatisticsData);
+	}
+
+	/**
+	 * Places the vehicles from the given index on at every offset which doesn't
+	 * overlap the vehicles placed before them or change their order on a shared
+	 * line, adding each goal state to the backward side
+	 */
+	private void addGoalStates(VehicleLayout layout, BoardState startState, byte[] offsets, int vehicleIndex,
+			long occupancy) {
+		if (vehicleIndex == offsets.length) {
+			backward.add(codec.encode(new BoardState(layout, offsets.clone())), 0, ROOT);
+			return;
+		}
+		for (int offset = 0; offset <= Constants.BOARD_SIZE - layout.getSize(vehicleIndex); offset++) {
+			long vehicleMask = layout.getVehicleMask(vehicleIndex, offset);
+			if ((occupancy & vehicleMask) == 0 && isLineOrderKept(layout, startState, offsets, vehicleIndex, offset)) {
+				offsets[vehicleIndex] = (byte) offset;
+				addGoalStates(layout, startState, offsets, vehicleIndex + 1, occupancy | vehicleMask);
+			}
+		}
+	}
+
+	private static boolean isLineOrderKept(VehicleLayout layout, BoardState startState, byte[] offsets,
+			int vehicleIndex, int offset) {
+		for (int placedIndex = 0; placedIndex < vehicleIndex; placedIndex++)
+			if (layout.getOrientation(placedIndex) == layout.getOrientation(vehicleIndex)
+					&& layout.getFixedLine(placedIndex) == layout.getFixedLine(vehicleIndex)
+					&& (offsets[placedIndex] < offset) != (startState.getOffset(placedIndex) < startState
+							.getOffset(vehicleIndex)))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Expands every state of the side's last layer. A successor reached from the
+	 * goals is linked by the reverse move, which leads from it towards the goal.
+	 *
+	 * @return false if the deadline expired before the whole layer was expanded
+	 */
+	private boolean expandLayer(Side side, Side otherSide, boolean isBackward) {
+		int layerEnd = side.size;
+		int successorDepth = side.depth + 1;
+		for (int head = side.layerStart; head < layerEnd; head++) {
+			if (deadline.isExpired())
+				return false;
+			long currentCode = side.queue[head];
+			codec.decodeInto(currentCode, currentState);
+			solutionStatisticsData.increaseNumberOfNodes();
+			int numberOfMoves = MoveGenerator.getGenerator().generateMoves(currentState, movesBuffer);
+			for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++) {
+				int vehicleIndex = MoveGenerator.getVehicleIndex(movesBuffer[moveIndex]);
+				int oldOffset = currentState.getOffset(vehicleIndex);
+				int newOffset = MoveGenerator.getNewOffset(movesBuffer[moveIndex]);
+				long successorCode = codec.encodeMove(currentCode, vehicleIndex, oldOffset, newOffset);
+				if (side.visited.containsKey(successorCode))
+					continue;
+				side.add(successorCode, successorDepth, isBackward ? getLink(vehicleIndex, newOffset, oldOffset)
+						: getLink(vehicleIndex, oldOffset, newOffset));
+				checkMeeting(successorCode, successorDepth, otherSide);
+			}
+		}
+		side.layerStart = layerEnd;
+		side.depth = successorDepth;
+		solutionStatisticsData.setMaxOpenListSizeIfNeeded(side.getLayerSize());
+		return true;
+	}
+
+	private void checkMeeting(long code, int depth, Side otherSide) {
+		int otherValue = otherSide.visited.get(code);
+		if (otherValue == LongIntHashMap.NO_VALUE)
+			return;
+		int length = depth + getDepth(otherValue);
+		if (solutionLength == -1 || length < solutionLength) {
+			solutionLength = length;
+			meetingCode = code;
+		}
+	}
+
+	/**
+	 * @return moves from the start to the meeting state, followed by the moves
+	 *         from the meeting state to the goal
+	 */
+	private String getPuzzleSolution(VehicleLayout layout) {
+		StringBuilder startHalf = new StringBuilder();
+		long code = meetingCode;
+		for (int link = forward.visited.get(code); getMove(link) != ROOT; link = forward.visited.get(code)) {
+			int vehicleIndex = getVehicleIndex(link);
+			startHalf.insert(0, new Movement(layout.getIdentifier(vehicleIndex), layout.getOrientation(vehicleIndex),
+					getFromOffset(link), getToOffset(link)));
+			code = codec.encodeMove(code, vehicleIndex, getToOffset(link), getFromOffset(link));
+		}
+		StringBuilder goalHalf = new StringBuilder();
+		code = meetingCode;
+		for (int link = backward.visited.get(code); getMove(link) != ROOT; link = backward.visited.get(code)) {
+			int vehicleIndex = getVehicleIndex(link);
+			goalHalf.append(new Movement(layout.getIdentifier(vehicleIndex), layout.getOrientation(vehicleIndex),
+					getFromOffset(link), getToOffset(link)));
+			code = codec.encodeMove(code, vehicleIndex, getFromOffset(link), getToOffset(link));
+		}
+		solutionStatisticsData.setNumberOfPassedMoves(solutionLength);
+		return startHalf.append(goalHalf).append(" END").toString();
+	}
+
+	// A link is the vehicle and the offsets it moves from and to, packed as
+	// vehicle << 8 | from << 4 | to - it's kept with the depth above it
+	private static int getLink(int vehicleIndex, int fromOffset, int toOffset) {
+		return vehicleIndex << 8 | fromOffset << 4 | toOffset;
+	}
+
+	private static int getDepth(int value) {
+		return value >>> 16;
+	}
+
+	private static int getMove(int value) {
+		return value & 0xFFFF;
+	}
+
+	private static int getVehicleIndex(int value) {
+		return (value >>> 8) & 0xFF;
+	}
+
+	private static int getFromOffset(int value) {
+		return (value >>> 4) & 0xF;
+	}
+
+	private static int getToOffset(int value) {
+		return value & 0xF;
+	}
+
+	/**
+	 * Visited states of one direction, and a queue of them where the states of
+	 * the last layer start at layerStart
+	 */
+	private static class Side {
+		private final LongIntHashMap visited = new LongIntHashMap();
+		private long[] queue = new long[1 << 10];
+		private int size;
+		private int layerStart;
+		private int depth;
+
+		void add(long code, int depth, int move) {
+			visited.put(code, depth << 16 | move);
+			if (size == queue.length)
+				queue = Arrays.copyOf(queue, size << 1);
+			queue[size++] = code;
+		}
+
+		boolean hasLayer() {
+			return layerStart < size;
+		}
+
+		int getLayerSize() {
+			return size - layerStart;
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package search_engine;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Open list for integral f and h values. Nodes are kept in stacks, a stack for
+ * each (f, h) pair, so enqueue is a push and dequeueMin is a pop from the
+ * lowest non empty f bucket, where the stack of the lowest h is taken first.
+ * Since f only grows during A* the pointer to the lowest f bucket rarely moves
+ * back.
+ *
+ * The bucket and stack position of every node are kept, so decreasing a key
+ * moves the last node of the stack into the gap and pushes the node to it's
+ * new stack.
+ */
+public class BucketOpenList implements OpenList {
+	private static final int INITIAL_STACK_CAPACITY = 16;
+
+	// [f][h] -> stack of nodes
+	private int[][][] stacks;
+	private int[][] stackSizes;
+	private int[] bucketSizes;
+	private int minF;
+	private int size;
+	// node -> f bucket, h bucket and position in the stack
+	private int[] nodesF;
+	private int[] nodesH;
+	private int[] nodesPosition;
+
+	public BucketOpenList() {
+		stacks = new int[64][][];
+		stackSizes = new int[64][];
+		bucketSizes = new int[64];
+		minF = 0;
+		size = 0;
+		nodesF = new int[1 << 10];
+		nodesH = new int[1 << 10];
+		nodesPosition = new int[1 << 10];
+	}
+
+	private static int toBucket(double value) {
+		int bucket = (int) value;
+		if (bucket != value || bucket < 0)
+			throw new IllegalArgumentException("Value " + value + " is not a non negative integer");
+		return bucket;
+	}
+
+	@Override
+	public void enqueue(int node, double f, double h) {
+		int fBucket = toBucket(f);
+		int hBucket = toBucket(h);
+		if (fBucket >= bucketSizes.length) {
+			int newLength = Math.max(fBucket + 1, bucketSizes.length << 1);
+			stacks = Arrays.copyOf(stacks, newLength);
+			stackSizes = Arrays.copyOf(stackSizes, newLength);
+			bucketSizes = Arrays.copyOf(bucketSizes, newLength);
+		}
+		if (stacks[fBucket] == null || hBucket >= stacks[fBucket].length) {
+			int newLength = Math.max(hBucket + 1, stacks[fBucket] == null ? 8 : stacks[fBucket].length << 1);
+			stacks[fBucket] = stacks[fBucket] == null ? new int[newLength][] : Arrays.copyOf(stacks[fBucket], newLength);
+			stackSizes[fBucket] = stackSizes[fBucket] == null ? new int[newLength]
+					: Arrays.copyOf(stackSizes[fBucket], newLength);
+		}
+		int[] stack = stacks[fBucket][hBucket];
+		int stackSize = stackSizes[fBucket][hBucket];
+		if (stack == null)
+			stack = stacks[fBucket][hBucket] = new int[INITIAL_STACK_CAPACITY];
+		else if (stackSize == stack.length)
+			stack = stacks[fBucket][hBucket] = Arrays.copyOf(stack, stackSize << 1);
+		stack[stackSize] = node;
+		stackSizes[fBucket][hBucket]++;
+		if (node >= nodesPosition.length) {
+			int newLength = Math.max(node + 1, nodesPosition.length << 1);
+			nodesF = Arrays.copyOf(nodesF, newLength);
+			nodesH = Arrays.copyOf(nodesH, newLength);
+			nodesPosition = Arrays.copyOf(nodesPosition, newLength);
+		}
+		nodesF[node] = fBucket;
+		nodesH[node] = hBucket;
+		nodesPosition[node] = stackSize;
+		bucketSizes[fBucket]++;
+		size++;
+		if (fBucket < minF || size == 1)
+			minF = fBucket;
+	}
+
+	@Override
+	public void decreaseKey(int node, double f, double h) {
+		int fBucket = nodesF[node];
+		int hBucket = nodesH[node];
+		int[] stack = stacks[fBucket][hBucket];
+		int lastPosition = --stackSizes[fBucket][hBucket];
+		int movedNode = stack[lastPosition];
+		stack[nodesPosition[node]] = movedNode;
+		nodesPosition[movedNode] = nodesPosition[node];
+		bucketSizes[fBucket]--;
+		size--;
+		enqueue(node, f, h);
+	}
+
+	@Override
+	public int dequeueMin() {
+		if (isEmpty())
+			throw new NoSuchElementException("Open list is empty.");
+		while (bucketSizes[minF] == 0)
+			minF++;
+		int[] hSizes = stackSizes[minF];
+		int hBucket = 0;
+		while (hSizes[hBucket] == 0)
+			hBucket++;
+		bucketSizes[minF]--;
+		size--;
+		return stacks[minF][hBucket][--hSizes[hBucket]];
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,181 @@
+package search_engine;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import rush_hour.StateCodec;
+
+/**
+ * Lock free open addressing hash map from primitive long keys to primitive int
+ * values, for searches whose threads share a single states table. Keys and
+ * values are kept in atomic arrays and a key is claimed by compare and set of
+ * it's cell, so threads never block each other and neither keys nor values are
+ * boxed.
+ *
+ * The map doesn't resize - it's allocated up front for the number of keys it's
+ * expected to hold, usually a bound on the states of a search such as it's
+ * nodes limit, with room for probing. A map can't be expected to hold more than
+ * MAX_EXPECTED_SIZE keys, asking for more throws rather than getting a smaller
+ * map. Probing degrades as the map fills, so adding a key once it holds
+ * MAX_LOAD_FACTOR of it's capacity throws.
+ *
+ * A value is published right after it's key, so a thread which finds the key
+ * before the value waits for the value. Long.MIN_VALUE can't be used as a key
+ * and NO_VALUE can't be used as a value. Removal is not supported.
+ */
+public class ConcurrentLongIntHashMap {
+	public static final int NO_VALUE = -1;
+	private static final long EMPTY_KEY = Long.MIN_VALUE;
+	private static final double MAX_LOAD_FACTOR = 0.5;
+	private static final int MAX_CAPACITY = 1 << 30;
+	public static final int MAX_EXPECTED_SIZE = (int) (MAX_CAPACITY * MAX_LOAD_FACTOR);
+
+	private final AtomicLongArray keys;
+	private final AtomicIntegerArray values;
+	private final int mask;
+	private final int maxSize;
+	private final LongAdder size;
+
+	public ConcurrentLongIntHashMap(int expectedSize) {
+		if (expectedSize > MAX_EXPECTED_SIZE)
+			throw new IllegalArgumentException(
+					"Expected size " + expectedSize + " is above the maximum of " + MAX_EXPECTED_SIZE);
+		int capacity = Integer.highestOneBit(Math.max(2, (int) (expectedSize / MAX_LOAD_FACTOR)) - 1) << 1;
+		keys = new AtomicLongArray(capacity);
+		for (int cell = 0; cell < capacity; cell++)
+			keys.set(cell, EMPTY_KEY);
+		values = new AtomicIntegerArray(capacity);
+		for (int cell = 0; cell < capacity; cell++)
+			values.set(cell, NO_VALUE);
+		mask = capacity - 1;
+		maxSize = (int) (capacity * MAX_LOAD_FACTOR);
+		size = new LongAdder();
+	}
+
+	/**
+	 * @param nodesLimit - number of nodes the search may add, it must be given for
+	 *                   layouts with more than MAX_EXPECTED_SIZE codes
+	 * @return map for the states of a search of the layout, sized by the smaller
+	 *         of it's number of codes and the nodes limit
+	 */
+	public static ConcurrentLongIntHashMap forStateSpace(StateCodec codec, int nodesLimit) {
+		long expectedSize = Math.min(codec.getNumberOfCodes(), nodesLimit);
+		if (expectedSize > MAX_EXPECTED_SIZE)
+			throw new IllegalArgumentException("Layout has " + codec.getNumberOfCodes()
+					+ " codes, a nodes limit up to " + MAX_EXPECTED_SIZE + " is needed");
+		return new ConcurrentLongIntHashMap((int) expectedSize);
+	}
+
+	private static int hash(long key) {
+		long mixed = key * 0x9E3779B97F4A7C15L;
+		return (int) (mixed ^ (mixed >>> 32));
+	}
+
+	/**
+	 * @return cell of the key, or the empty cell where it's probing ended
+	 */
+	private int findCell(long key) {
+		int cell = hash(key) & mask;
+		for (int probes = 0; probes <= mask; probes++) {
+			long cellKey = keys.get(cell);
+			if (cellKey == key || cellKey == EMPTY_KEY)
+				return cell;
+			cell = (cell + 1) & mask;
+		}
+		return -1;
+	}
+
+	private int awaitValue(int cell) {
+		int value;
+		while ((value = values.get(cell)) == NO_VALUE)
+			Thread.onSpinWait();
+		return value;
+	}
+
+	/**
+	 * @return value mapped to the key, NO_VALUE if the key is not in the map
+	 */
+	public int get(long key) {
+		int cell = findCell(key);
+		if (cell == -1 || keys.get(cell) != key)
+			return NO_VALUE;
+		return awaitValue(cell);
+	}
+
+	public boolean containsKey(long key) {
+		int cell = findCell(key);
+		return cell != -1 && keys.get(cell) == key;
+	}
+
+	/**
+	 * Maps the key to the value unless it's already mapped - out of threads adding
+	 * the same key at the same time exactly one succeeds
+	 *
+	 * @return value the key was already mapped to, NO_VALUE if it was added now
+	 */
+	public int putIfAbsent(long key, int value) {
+		if (key == EMPTY_KEY)
+			throw new IllegalArgumentException("Key " + key + " is reserved for empty cells");
+		if (value == NO_VALUE)
+			throw new IllegalArgumentException("Value " + value + " is reserved for missing values");
+		int cell = hash(key) & mask;
+		for (int probes = 0; probes <= mask; probes++) {
+			long cellKey = keys.get(cell);
+			if (cellKey == EMPTY_KEY) {
+				// Threads adding keys at the same time may pass it by a few keys
+				if (size.sum() >= maxSize)
+					throw new IllegalStateException("Map is full, it holds " + size() + " keys");
+				if (keys.compareAndSet(cell, EMPTY_KEY, key)) {
+					values.set(cell, value);
+					size.increment();
+					return NO_VALUE;
+				}
+				// Another thread claimed the cell, it may have claimed it for this key
+				cellKey = keys.get(cell);
+			}
+			if (cellKey == key)
+				return awaitValue(cell);
+			cell = (cell + 1) & mask;
+		}
+		throw new IllegalStateException("Map is full, it holds " + size() + " keys");
+	}
+
+	/**
+	 * Maps the key to the value if it's not mapped yet or mapped to a higher value,
+	 * as when a state is reached by a cheaper path
+	 *
+	 * @return true if the value was set
+	 */
+	public boolean putIfLower(long key, int value) {
+		int previousValue = putIfAbsent(key, value);
+		if (previousValue == NO_VALUE)
+			return true;
+		int cell = findCell(key);
+		while (previousValue > value) {
+			if (values.compareAndSet(cell, previousValue, value))
+				return true;
+			previousValue = values.get(cell);
+		}
+		return false;
+	}
+
+	public int size() {
+		return size.intValue();
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * @return number of keys the map holds before adding another one throws
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+}
@@ -84,6 +84,7 @@ public final class FibonacciHeap<T> {
 
 		private T mElem; // Element being stored here
 		private double mPriority; // Its priority
+		private double mTieBreaker; // Orders entries of equal priority, lower first
 
 		/**
 		 * Returns the element represented by this heap entry.
@@ -116,13 +117,15 @@ public final class FibonacciHeap<T> {
 		 * Constructs a new Entry that holds the given element with the indicated
 		 * priority.
 		 *
-		 * @param elem     The element stored in this node.
-		 * @param priority The priority of this element.
+		 * @param elem       The element stored in this node.
+		 * @param priority   The priority of this element.
+		 * @param tieBreaker The order of this element among equal priorities.
 		 */
-		private Entry(T elem, double priority) {
+		private Entry(T elem, double priority, double tieBreaker) {
 			mNext = mPrev = this;
 			mElem = elem;
 			mPriority = priority;
+			mTieBreaker = tieBreaker;
 		}
 	}
 
@@ -142,12 +145,26 @@ public final class FibonacciHeap<T> {
 	 * @return An Entry representing that element in the tree.
 	 */
 	public Entry<T> enqueue(T value, double priority) {
+		return enqueue(value, priority, 0);
+	}
+
+	/**
+	 * Inserts the specified element with the specified priority, where elements of
+	 * equal priority are ordered by their tie breakers.
+	 *
+	 * @param value      The value to insert.
+	 * @param priority   Its priority, which must be valid.
+	 * @param tieBreaker Its order among equal priorities, which must be valid.
+	 * @return An Entry representing that element in the tree.
+	 */
+	public Entry<T> enqueue(T value, double priority, double tieBreaker) {
 		checkPriority(priority);
+		checkPriority(tieBreaker);
 
 		/*
 		 * Create the entry object, which is a circularly-linked list of length one.
 		 */
-		Entry<T> result = new Entry<T>(value, priority);
+		Entry<T> result = new Entry<T>(value, priority, tieBreaker);
 
 		/* Merge this singleton list with the tree list. */
 		mMin = mergeLists(mMin, result);
@@ -338,8 +355,8 @@ public final class FibonacciHeap<T> {
 				 * Determine which of the two trees has the smaller root, storing the two tree
 				 * accordingly.
 				 */
-				Entry<T> min = (other.mPriority < curr.mPriority) ? other : curr;
-				Entry<T> max = (other.mPriority < curr.mPriority) ? curr : other;
+				Entry<T> min = isLess(other, curr) ? other : curr;
+				Entry<T> max = isLess(other, curr) ? curr : other;
 
 				/*
 				 * Break max out of the root list, then merge it into min's child list.
@@ -370,7 +387,7 @@ public final class FibonacciHeap<T> {
 			 * different trees of equal priority, we need to make sure that the min pointer
 			 * points to the root-level one.
 			 */
-			if (curr.mPriority <= mMin.mPriority)
+			if (!isLess(mMin, curr))
 				mMin = curr;
 		}
 		return minElem;
@@ -393,12 +410,27 @@ public final class FibonacciHeap<T> {
 	 *                                  double.
 	 */
 	public void decreaseKey(Entry<T> entry, double newPriority) {
+		decreaseKey(entry, newPriority, entry.mTieBreaker);
+	}
+
+	/**
+	 * Decreases the key of the specified element to the new priority and tie
+	 * breaker, which together must not exceed the old ones.
+	 *
+	 * @param entry         The element whose priority should be decreased.
+	 * @param newPriority   The new priority to associate with this entry.
+	 * @param newTieBreaker The new tie breaker to associate with this entry.
+	 * @throws IllegalArgumentException If the new key exceeds the old key, or if
+	 *                                  an argument is NaN.
+	 */
+	public void decreaseKey(Entry<T> entry, double newPriority, double newTieBreaker) {
 		checkPriority(newPriority);
-		if (newPriority > entry.mPriority)
+		checkPriority(newTieBreaker);
+		if (newPriority > entry.mPriority || (newPriority == entry.mPriority && newTieBreaker > entry.mTieBreaker))
 			throw new IllegalArgumentException("New priority exceeds old.");
 
 		/* Forward this to a helper function. */
-		decreaseKeyUnchecked(entry, newPriority);
+		decreaseKeyUnchecked(entry, newPriority, newTieBreaker);
 	}
 
 	/**
@@ -414,12 +446,23 @@ public final class FibonacciHeap<T> {
 		 * Use decreaseKey to drop the entry's key to -infinity. This will guarantee
 		 * that the node is cut and set to the global minimum.
 		 */
-		decreaseKeyUnchecked(entry, Double.NEGATIVE_INFINITY);
+		decreaseKeyUnchecked(entry, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
 
 		/* Call dequeueMin to remove it. */
 		dequeueMin();
 	}
 
+	/**
+	 * Utility function which orders entries by their priorities, and entries of
+	 * equal priorities by their tie breakers.
+	 *
+	 * @return Whether one comes before two.
+	 */
+	private static <T> boolean isLess(Entry<T> one, Entry<T> two) {
+		return one.mPriority < two.mPriority
+				|| (one.mPriority == two.mPriority && one.mTieBreaker < two.mTieBreaker);
+	}
+
 	/**
 	 * Utility function which, given a user-specified priority, checks whether it's
 	 * a valid double and throws an IllegalArgumentException otherwise.
@@ -485,7 +528,7 @@ public final class FibonacciHeap<T> {
 			two.mNext.mPrev = two;
 
 			/* Return a pointer to whichever's smaller. */
-			return one.mPriority < two.mPriority ? one : two;
+			return isLess(one, two) ? one : two;
 		}
 	}
 
@@ -493,19 +536,21 @@ public final class FibonacciHeap<T> {
 	 * Decreases the key of a node in the tree without doing any checking to ensure
 	 * that the new priority is valid.
 	 *
-	 * @param entry    The node whose key should be decreased.
-	 * @param priority The node's new priority.
+	 * @param entry      The node whose key should be decreased.
+	 * @param priority   The node's new priority.
+	 * @param tieBreaker The node's new tie breaker.
 	 */
-	private void decreaseKeyUnchecked(Entry<T> entry, double priority) {
+	private void decreaseKeyUnchecked(Entry<T> entry, double priority, double tieBreaker) {
 		/* First, change the node's priority. */
 		entry.mPriority = priority;
+		entry.mTieBreaker = tieBreaker;
 
 		/*
 		 * If the node no longer has a higher priority than its parent, cut it. Note
 		 * that this also means that if we try to run a delete operation that decreases
 		 * the key to -infinity, it's guaranteed to cut the node from its parent.
 		 */
-		if (entry.mParent != null && entry.mPriority <= entry.mParent.mPriority)
+		if (entry.mParent != null && !isLess(entry.mParent, entry))
 			cutNode(entry);
 
 		/*
@@ -513,7 +558,7 @@ public final class FibonacciHeap<T> {
 		 * decreasing the key in a way that ties the current minimum priority, this will
 		 * change the min accordingly.
 		 */
-		if (entry.mPriority <= mMin.mPriority)
+		if (!isLess(mMin, entry))
 			mMin = entry;
 	}
 
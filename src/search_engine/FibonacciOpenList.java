@@ -0,0 +1,48 @@
+package search_engine;
+
+import java.util.Arrays;
+
+/**
+ * Open list backed by FibonacciHeap, works for any (non negative) f values.
+ * The heap entry of every node is kept so it's priority can be decreased in
+ * place, and h is it's tie breaker, so equal f values aren't folded together.
+ */
+public class FibonacciOpenList implements OpenList {
+	private final FibonacciHeap<Integer> heap;
+	private FibonacciHeap.Entry<Integer>[] entries;
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public FibonacciOpenList() {
+		heap = new FibonacciHeap<>();
+		entries = new FibonacciHeap.Entry[1 << 10];
+	}
+
+	@Override
+	public void enqueue(int node, double f, double h) {
+		if (node >= entries.length)
+			entries = Arrays.copyOf(entries, Math.max(node + 1, entries.length << 1));
+		entries[node] = heap.enqueue(node, f, h);
+	}
+
+	@Override
+	public void decreaseKey(int node, double f, double h) {
+		heap.decreaseKey(entries[node], f, h);
+	}
+
+	@Override
+	public int dequeueMin() {
+		int node = heap.dequeueMin().getValue();
+		entries[node] = null;
+		return node;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return heap.isEmpty();
+	}
+
+	@Override
+	public int size() {
+		return heap.size();
+	}
+}
@@ -0,0 +1,108 @@
+package search_engine;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from primitive long keys to primitive int values.
+ * Keys are kept in a plain long array and collisions are resolved with linear
+ * probing, so lookups don't box keys and entries don't allocate.
+ *
+ * Long.MIN_VALUE marks an empty cell, thus it can't be used as a key. Removal
+ * is not supported - search algorithms only add states to their tables.
+ */
+public class LongIntHashMap {
+	public static final int NO_VALUE = -1;
+	private static final long EMPTY_KEY = Long.MIN_VALUE;
+	private static final double MAX_LOAD_FACTOR = 0.6;
+
+	private long[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+	private int resizeThreshold;
+
+	public LongIntHashMap() {
+		this(1 << 10);
+	}
+
+	public LongIntHashMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(2, (int) (expectedSize / MAX_LOAD_FACTOR)) - 1) << 1;
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY_KEY);
+		values = new int[capacity];
+		mask = capacity - 1;
+		resizeThreshold = (int) (capacity * MAX_LOAD_FACTOR);
+	}
+
+	private static int hash(long key) {
+		long mixed = key * 0x9E3779B97F4A7C15L;
+		return (int) (mixed ^ (mixed >>> 32));
+	}
+
+	private int findCell(long key) {
+		int cell = hash(key) & mask;
+		while (keys[cell] != EMPTY_KEY && keys[cell] != key)
+			cell = (cell + 1) & mask;
+		return cell;
+	}
+
+	/**
+	 * @return value mapped to the key, NO_VALUE if the key is not in the map
+	 */
+	public int get(long key) {
+		int cell = findCell(key);
+		return keys[cell] == EMPTY_KEY ? NO_VALUE : values[cell];
+	}
+
+	public boolean containsKey(long key) {
+		return keys[findCell(key)] != EMPTY_KEY;
+	}
+
+	/**
+	 * Maps the key to the value, replacing the previous value if there was one
+	 */
+	public void put(long key, int value) {
+		if (key == EMPTY_KEY)
+			throw new IllegalArgumentException("Key " + key + " is reserved for empty cells");
+		int cell = findCell(key);
+		if (keys[cell] == EMPTY_KEY) {
+			keys[cell] = key;
+			if (++size > resizeThreshold) {
+				values[cell] = value;
+				rehash(keys.length << 1);
+				return;
+			}
+		}
+		values[cell] = value;
+	}
+
+	private void rehash(int newCapacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(newCapacity);
+		for (int cell = 0; cell < oldKeys.length; cell++) {
+			if (oldKeys[cell] != EMPTY_KEY) {
+				int newCell = findCell(oldKeys[cell]);
+				keys[newCell] = oldKeys[cell];
+				values[newCell] = oldValues[cell];
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		Arrays.fill(keys, EMPTY_KEY);
+		size = 0;
+	}
+}
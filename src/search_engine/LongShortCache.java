@@ -0,0 +1,155 @@
+package search_engine;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache from primitive long keys to primitive short values. Entries are
+ * grouped in sets of WAYS cells, a key can only be kept in the set it hashes
+ * to, and when that set is full one of it's entries is evicted - so the cache
+ * never grows beyond the capacity it was created with.
+ *
+ * The evicted entry is picked by the eviction policy:
+ * CLOCK - every entry has a referenced bit which is set on each hit. A hand
+ * per set goes around it's cells clearing the bits, and evicts the first entry
+ * whose bit is already clear.
+ * LRU - every entry keeps the time of it's last use, the oldest one is evicted.
+ *
+ * Long.MIN_VALUE marks an empty cell, thus it can't be used as a key.
+ */
+public class LongShortCache {
+	public enum EvictionPolicy {
+		CLOCK, LRU
+	}
+
+	public static final int NO_VALUE = Integer.MIN_VALUE;
+	public static final int WAYS = 8;
+	// Key, value and use mark of a single entry
+	public static final int BYTES_PER_ENTRY = Long.BYTES + Short.BYTES + Integer.BYTES;
+	private static final long EMPTY_KEY = Long.MIN_VALUE;
+
+	private final EvictionPolicy evictionPolicy;
+	private final long[] keys;
+	private final short[] values;
+	// Referenced bit of CLOCK or time of last use of LRU
+	private final int[] useMarks;
+	private final byte[] clockHands;
+	private final int setsMask;
+	private int useTime;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * @param capacity - maximal number of entries, rounded down to a power of two
+	 *                 number of sets, but at least a single set
+	 */
+	public LongShortCache(int capacity, EvictionPolicy evictionPolicy) {
+		this.evictionPolicy = evictionPolicy;
+		int numberOfSets = Integer.highestOneBit(Math.max(1, capacity / WAYS));
+		keys = new long[numberOfSets * WAYS];
+		Arrays.fill(keys, EMPTY_KEY);
+		values = new short[keys.length];
+		useMarks = new int[keys.length];
+		clockHands = new byte[numberOfSets];
+		setsMask = numberOfSets - 1;
+	}
+
+	/**
+	 * @return number of entries that fit in the given memory
+	 */
+	public static int getCapacityForMemory(long memoryBudgetBytes) {
+		return (int) Math.min(Integer.MAX_VALUE, memoryBudgetBytes / BYTES_PER_ENTRY);
+	}
+
+	private int getFirstCell(long key) {
+		long mixed = key * 0x9E3779B97F4A7C15L;
+		return ((int) (mixed ^ (mixed >>> 32)) & setsMask) * WAYS;
+	}
+
+	/**
+	 * @return value cached for the key, NO_VALUE if it's not in the cache
+	 */
+	public int get(long key) {
+		int firstCell = getFirstCell(key);
+		for (int cell = firstCell; cell < firstCell + WAYS; cell++) {
+			if (keys[cell] == key) {
+				hits++;
+				markUsed(cell);
+				return values[cell];
+			}
+			if (keys[cell] == EMPTY_KEY)
+				break;
+		}
+		misses++;
+		return NO_VALUE;
+	}
+
+	/**
+	 * Caches the value of the key, evicting another entry of it's set if the set
+	 * is full
+	 */
+	public void put(long key, short value) {
+		if (key == EMPTY_KEY)
+			throw new IllegalArgumentException("Key " + key + " is reserved for empty cells");
+		int firstCell = getFirstCell(key);
+		int cell = firstCell;
+		while (cell < firstCell + WAYS && keys[cell] != EMPTY_KEY && keys[cell] != key)
+			cell++;
+		if (cell == firstCell + WAYS) {
+			cell = getVictim(firstCell);
+			evictions++;
+		}
+		keys[cell] = key;
+		values[cell] = value;
+		markUsed(cell);
+	}
+
+	private void markUsed(int cell) {
+		if (evictionPolicy == EvictionPolicy.CLOCK) {
+			useMarks[cell] = 1;
+		} else {
+			// Marks are compared by their difference, so the time may overflow
+			useMarks[cell] = ++useTime;
+		}
+	}
+
+	private int getVictim(int firstCell) {
+		if (evictionPolicy == EvictionPolicy.LRU) {
+			int victim = firstCell;
+			for (int cell = firstCell + 1; cell < firstCell + WAYS; cell++)
+				if (useMarks[cell] - useMarks[victim] < 0)
+					victim = cell;
+			return victim;
+		}
+		int set = firstCell / WAYS;
+		while (true) {
+			int cell = firstCell + clockHands[set];
+			clockHands[set] = (byte) ((clockHands[set] + 1) % WAYS);
+			if (useMarks[cell] == 0)
+				return cell;
+			useMarks[cell] = 0;
+		}
+	}
+
+	public void clear() {
+		Arrays.fill(keys, EMPTY_KEY);
+		Arrays.fill(useMarks, 0);
+		Arrays.fill(clockHands, (byte) 0);
+	}
+
+	public int getCapacity() {
+		return keys.length;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getEvictions() {
+		return evictions;
+	}
+}
@@ -0,0 +1,28 @@
+package search_engine;
+
+/**
+ * This interface defines the open list of a best-first search. Nodes are
+ * identified by an int (a slot of the search's nodes store) and ordered by
+ * their evaluation function f, ties are broken in favor of lower h.
+ */
+public interface OpenList {
+
+	void enqueue(int node, double f, double h);
+
+	/**
+	 * Updates the priority of a node which is already in the open list, the new f
+	 * must not be higher than the current one
+	 */
+	void decreaseKey(int node, double f, double h);
+
+	/**
+	 * Removes the node with the lowest f from the open list
+	 * 
+	 * @return the removed node
+	 */
+	int dequeueMin();
+
+	boolean isEmpty();
+
+	int size();
+}
@@ -0,0 +1,420 @@
+package search_engine;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import rush_hour.BoardState;
+import rush_hour.Constants;
+import rush_hour.MoveGenerator;
+import rush_hour.Movement;
+import rush_hour.StateCodec;
+import rush_hour.VehicleLayout;
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.AStarSolutionStatisticsData;
+import search_engine.astar.SolvedPuzzle;
+
+/**
+ * This class solves puzzles with a level synchronous breadth first search. Each
+ * layer is a sorted array of encoded states, and it's successors are generated
+ * by fork join tasks over chunks of it. The successors are sorted in parallel
+ * and merged against the current and the previous layers to drop duplicates -
+ * every move can be taken back, so a successor which was seen before is in one
+ * of these two layers. Thus there is no states table, and no more than these
+ * two layers are kept.
+ *
+ * The first layer with a goal state gives the shortest solution. It's path is
+ * found by divide and conquer - a second search from the start to the goal's
+ * depth keeps, for every state past the middle depth, it's ancestor in the
+ * middle layer (it's relay). The relay of the goal is a state halfway along a
+ * shortest path, and the path of each half is found the same way, down to
+ * single moves.
+ *
+ * Only the thread which called getBestSolution reads the deadline, every
+ * POLL_INTERVAL_MS while it waits for a layer, so it notices it's own
+ * interruption. The tasks only check the expired flag it publishes.
+ */
+public class ParallelBFSSolver implements SearchAlgorithmSolver {
+	public static final String NAME = "ParallelBFS";
+	// States of a layer expanded by a single task
+	private static final int CHUNK_SIZE = 1 << 10;
+	private static final long[] NO_STATES = new long[0];
+	private static final long POLL_INTERVAL_MS = 10;
+	private static final long NO_STATE = -1;
+
+	private final double timeLimit;
+	private final int parallelism;
+
+	private StateCodec codec;
+	private VehicleLayout layout;
+	private SearchDeadline deadline;
+	private volatile boolean expired;
+	private AStarSolutionStatisticsData solutionStatisticsData;
+	private int numberOfRetainedLayers;
+	private int maxNumberOfRetainedLayers;
+
+	public ParallelBFSSolver(double timeLimitForPuzzle, int parallelism) {
+		timeLimit = timeLimitForPuzzle;
+		this.parallelism = parallelism;
+	}
+
+	@Override
+	public SolvedPuzzle getBestSolution(AStarSearchNode start) {
+		solutionStatisticsData = new AStarSolutionStatisticsData(start.getPuzzleID(), NAME);
+		// The deadline is read only between waits for the tasks, so every call reads
+		// the clock
+		deadline = new SearchDeadline(timeLimit, 1);
+		expired = false;
+		layout = start.getBoardState().getLayout();
+		codec = layout.getStateCodec();
+		maxNumberOfRetainedLayers = 0;
+
+		long startCode = codec.encode(start.getBoardState());
+		LayerWindow layers = new LayerWindow(startCode);
+		long goalCode = findGoal(layers.current);
+		int depth = 0;
+		String solution = null;
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			while (goalCode == NO_STATE && layers.current.length > 0) {
+				long[] nextLayer = expandLayer(pool, layers);
+				// Successors of a layer the tasks stopped expanding are partial
+				if (nextLayer == null)
+					break;
+				solutionStatisticsData
+						.setNumberOfNodes(solutionStatisticsData.getNumberOfNodes() + layers.current.length);
+				solutionStatisticsData.setMaxOpenListSizeIfNeeded(nextLayer.length);
+				solutionStatisticsData.setBestFIfNeeded(depth + 1);
+				layers.advance(nextLayer);
+				depth++;
+				goalCode = findGoal(layers.current);
+			}
+			layers.release();
+			if (goalCode != NO_STATE && !expired)
+				solution = getPuzzleSolution(pool, startCode, goalCode, depth);
+		} finally {
+			pool.shutdown();
+		}
+
+		solutionStatisticsData.setBranchingFactor(solutionStatisticsData.getNumberOfNodes());
+		solutionStatisticsData.setPenetrance(solutionStatisticsData.getNumberOfNodes());
+		solutionStatisticsData.calculateFinalData();
+		if (expired) {
+			System.out.println("FAILED solving puzzle because of time limitation: " + start.getPuzzleID());
+		} else if (goalCode == NO_STATE) {
+			System.out.println("No Solution for puzzle: " + start.getPuzzleID());
+		} else {
+			System.out.println("Solved puzzle!");
+			solutionStatisticsData.setPuzzleSolution(solution);
+		}
+		return new SolvedPuzzle(solutionStatisticsData);
+	}
+
+	/**
+	 * @return the largest number of layers which were kept at once by the last
+	 *         search, including the searches which found it's path
+	 */
+	public int getMaxNumberOfRetainedLayers() {
+		return maxNumberOfRetainedLayers;
+	}
+
+	/**
+	 * @return the sorted states of the next layer, null if the deadline expired
+	 *         before all of the current layer was expanded
+	 */
+	private long[] expandLayer(ForkJoinPool pool, LayerWindow layers) {
+		if (deadline.isExpired())
+			expired = true;
+		long[] successors = await(pool.submit(new ExpandTask(layers.current, 0, layers.current.length)));
+		if (expired)
+			return null;
+		Arrays.parallelSort(successors);
+		return removeSeenStates(successors, layers.current, layers.previous);
+	}
+
+	/**
+	 * Waits for the tasks of a layer, telling them to stop once the deadline
+	 * expires
+	 */
+	private <T> T await(ForkJoinTask<T> layerTask) {
+		boolean isInterrupted = false;
+		try {
+			while (true) {
+				try {
+					return layerTask.get(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+				} catch (TimeoutException e) {
+					if (deadline.isExpired())
+						expired = true;
+				} catch (InterruptedException e) {
+					// The tasks stop soon, waiting for them goes on with the interrupt cleared
+					isInterrupted = true;
+					expired = true;
+				} catch (ExecutionException e) {
+					throw new IllegalStateException("Expanding a layer failed", e.getCause());
+				}
+			}
+		} finally {
+			// Kept for the deadline, which treats an interrupted thread as expired
+			if (isInterrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return first goal state of the layer, NO_STATE if it has none
+	 */
+	private long findGoal(long[] layer) {
+		int goalOffset = Constants.BOARD_SIZE - layout.getSize(VehicleLayout.TARGET_VEHICLE_INDEX);
+		for (long code : layer)
+			if (codec.decodeOffset(code, VehicleLayout.TARGET_VEHICLE_INDEX) == goalOffset)
+				return code;
+		return NO_STATE;
+	}
+
+	/**
+	 * @return the sorted successors without repetitions and without the states of
+	 *         the current and previous layers
+	 */
+	private static long[] removeSeenStates(long[] successors, long[] currentLayer, long[] previousLayer) {
+		int size = 0;
+		int currentIndex = 0;
+		int previousIndex = 0;
+		for (int i = 0; i < successors.length; i++) {
+			long code = successors[i];
+			if (size > 0 && successors[size - 1] == code)
+				continue;
+			while (currentIndex < currentLayer.length && currentLayer[currentIndex] < code)
+				currentIndex++;
+			while (previousIndex < previousLayer.length && previousLayer[previousIndex] < code)
+				previousIndex++;
+			if ((currentIndex < currentLayer.length && currentLayer[currentIndex] == code)
+					|| (previousIndex < previousLayer.length && previousLayer[previousIndex] == code))
+				continue;
+			successors[size++] = code;
+		}
+		return Arrays.copyOf(successors, size);
+	}
+
+	/**
+	 * @return moves from the start to the goal state, null if the deadline
+	 *         expired before they were found
+	 */
+	private String getPuzzleSolution(ForkJoinPool pool, long startCode, long goalCode, int depth) {
+		StringBuilder solution = new StringBuilder();
+		if (!appendPath(pool, startCode, goalCode, depth, solution))
+			return null;
+		solutionStatisticsData.setNumberOfPassedMoves(depth);
+		return solution.append(" END").toString();
+	}
+
+	/**
+	 * Appends the moves of a shortest path between two states, by finding a state
+	 * halfway along it and the path of each half
+	 *
+	 * @param distance - length of the shortest path between the states
+	 * @return false if the deadline expired
+	 */
+	private boolean appendPath(ForkJoinPool pool, long fromCode, long toCode, int distance, StringBuilder solution) {
+		if (distance == 0)
+			return true;
+		if (distance == 1) {
+			solution.append(getMovement(fromCode, toCode));
+			return true;
+		}
+		long middleCode = findMiddleState(pool, fromCode, toCode, distance);
+		return middleCode != NO_STATE && appendPath(pool, fromCode, middleCode, distance / 2, solution)
+				&& appendPath(pool, middleCode, toCode, distance - distance / 2, solution);
+	}
+
+	/**
+	 * Searches from a state to the depth of another one, keeping the relay of
+	 * every state past the middle depth
+	 *
+	 * @param distance - length of the shortest path between the states, at least 2
+	 * @return the relay of the other state, which is distance / 2 moves away from
+	 *         the first one, NO_STATE if the deadline expired
+	 */
+	private long findMiddleState(ForkJoinPool pool, long fromCode, long toCode, int distance) {
+		int middleDepth = distance / 2;
+		LayerWindow layers = new LayerWindow(fromCode);
+		// Relays of the states of the current layer, by their index in it
+		long[] relays = null;
+		try {
+			for (int depth = 1; depth <= distance; depth++) {
+				long[] nextLayer = expandLayer(pool, layers);
+				if (nextLayer == null)
+					return NO_STATE;
+				if (depth == middleDepth) {
+					// States of the middle layer are their own relays
+					relays = nextLayer;
+				} else if (depth > middleDepth) {
+					long[] nextRelays = new long[nextLayer.length];
+					await(pool.submit(
+							new RelayTask(nextLayer, nextRelays, layers.current, relays, 0, nextLayer.length)));
+					if (expired)
+						return NO_STATE;
+					relays = nextRelays;
+				}
+				layers.advance(nextLayer);
+			}
+			return relays[Arrays.binarySearch(layers.current, toCode)];
+		} finally {
+			layers.release();
+		}
+	}
+
+	/**
+	 * @return the movement of the single vehicle which differs between two
+	 *         neighbor states
+	 */
+	private Movement getMovement(long fromCode, long toCode) {
+		BoardState boardState = codec.decode(fromCode);
+		int[] movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(layout)];
+		int numberOfMoves = MoveGenerator.getGenerator().generateMoves(boardState, movesBuffer);
+		for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++) {
+			int vehicleIndex = MoveGenerator.getVehicleIndex(movesBuffer[moveIndex]);
+			int offset = boardState.getOffset(vehicleIndex);
+			int newOffset = MoveGenerator.getNewOffset(movesBuffer[moveIndex]);
+			if (codec.encodeMove(fromCode, vehicleIndex, offset, newOffset) == toCode)
+				return new Movement(layout.getIdentifier(vehicleIndex), layout.getOrientation(vehicleIndex), offset,
+						newOffset);
+		}
+		throw new IllegalStateException("States " + fromCode + " and " + toCode + " are not neighbors");
+	}
+
+	/**
+	 * The previous and current layers of a search, which are all of it's layers
+	 * that are kept
+	 */
+	private class LayerWindow {
+		private long[] previous = NO_STATES;
+		private long[] current;
+
+		LayerWindow(long startCode) {
+			current = new long[] { startCode };
+			retainLayers(1);
+		}
+
+		void advance(long[] nextLayer) {
+			if (previous == NO_STATES)
+				retainLayers(1);
+			previous = current;
+			current = nextLayer;
+		}
+
+		void release() {
+			retainLayers(previous == NO_STATES ? -1 : -2);
+			previous = NO_STATES;
+			current = NO_STATES;
+		}
+	}
+
+	private void retainLayers(int numberOfLayers) {
+		numberOfRetainedLayers += numberOfLayers;
+		maxNumberOfRetainedLayers = Math.max(maxNumberOfRetainedLayers, numberOfRetainedLayers);
+	}
+
+	/**
+	 * Generates the successors of a range of a layer, splitting it in halves down
+	 * to chunks which are expanded by a single task
+	 */
+	private class ExpandTask extends RecursiveTask<long[]> {
+		private static final long serialVersionUID = 1L;
+		private final long[] layer;
+		private final int from;
+		private final int to;
+
+		ExpandTask(long[] layer, int from, int to) {
+			this.layer = layer;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected long[] compute() {
+			if (to - from > CHUNK_SIZE) {
+				int middle = (from + to) >>> 1;
+				ExpandTask secondHalf = new ExpandTask(layer, middle, to);
+				secondHalf.fork();
+				long[] firstSuccessors = new ExpandTask(layer, from, middle).compute();
+				long[] secondSuccessors = secondHalf.join();
+				long[] successors = Arrays.copyOf(firstSuccessors, firstSuccessors.length + secondSuccessors.length);
+				System.arraycopy(secondSuccessors, 0, successors, firstSuccessors.length, secondSuccessors.length);
+				return successors;
+			}
+			// Tasks of an expired search stop, the search stops before the next layer
+			if (expired)
+				return NO_STATES;
+			BoardState boardState = codec.decode(layer[from]);
+			int[] movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(layout)];
+			long[] successors = new long[(to - from) * movesBuffer.length];
+			int size = 0;
+			for (int i = from; i < to; i++) {
+				codec.decodeInto(layer[i], boardState);
+				int numberOfMoves = MoveGenerator.getGenerator().generateMoves(boardState, movesBuffer);
+				for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++) {
+					int vehicleIndex = MoveGenerator.getVehicleIndex(movesBuffer[moveIndex]);
+					successors[size++] = codec.encodeMove(layer[i], vehicleIndex, boardState.getOffset(vehicleIndex),
+							MoveGenerator.getNewOffset(movesBuffer[moveIndex]));
+				}
+			}
+			return Arrays.copyOf(successors, size);
+		}
+	}
+
+	/**
+	 * Sets the relay of every state of a range of the next layer to the relay of
+	 * one of it's predecessors in the current layer. Every move can be taken back,
+	 * so the predecessors are among the state's successors.
+	 */
+	private class RelayTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final long[] nextLayer;
+		private final long[] nextRelays;
+		private final long[] layer;
+		private final long[] relays;
+		private final int from;
+		private final int to;
+
+		RelayTask(long[] nextLayer, long[] nextRelays, long[] layer, long[] relays, int from, int to) {
+			this.nextLayer = nextLayer;
+			this.nextRelays = nextRelays;
+			this.layer = layer;
+			this.relays = relays;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > CHUNK_SIZE) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new RelayTask(nextLayer, nextRelays, layer, relays, from, middle),
+						new RelayTask(nextLayer, nextRelays, layer, relays, middle, to));
+				return;
+			}
+			if (expired)
+				return;
+			BoardState boardState = codec.decode(nextLayer[from]);
+			int[] movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(layout)];
+			for (int i = from; i < to; i++) {
+				codec.decodeInto(nextLayer[i], boardState);
+				int numberOfMoves = MoveGenerator.getGenerator().generateMoves(boardState, movesBuffer);
+				for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++) {
+					int vehicleIndex = MoveGenerator.getVehicleIndex(movesBuffer[moveIndex]);
+					int predecessorIndex = Arrays.binarySearch(layer, codec.encodeMove(nextLayer[i], vehicleIndex,
+							boardState.getOffset(vehicleIndex), MoveGenerator.getNewOffset(movesBuffer[moveIndex])));
+					if (predecessorIndex >= 0) {
+						nextRelays[i] = relays[predecessorIndex];
+						break;
+					}
+				}
+			}
+		}
+	}
+}
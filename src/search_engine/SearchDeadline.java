@@ -0,0 +1,54 @@
+package search_engine;
+
+/**
+ * This class is a per-puzzle time budget which search loops poll in order to
+ * stop on time. Reading the clock on every expanded node is expensive, so
+ * isExpired() reads System.nanoTime only once every checkInterval calls, and
+ * once the deadline passed it stays expired.
+ *
+ * A search can also be cancelled from another thread, either by cancel() or by
+ * interrupting the searching thread - both are noticed on the next clock read.
+ */
+public class SearchDeadline {
+	public static final int DEFAULT_CHECK_INTERVAL = 1 << 10;
+
+	private final long deadlineNanos;
+	private final int checkInterval;
+	private int callsUntilClockRead;
+	private boolean expired;
+	private volatile boolean cancelled;
+
+	public SearchDeadline(double timeLimitMillis) {
+		this(timeLimitMillis, DEFAULT_CHECK_INTERVAL);
+	}
+
+	/**
+	 * @param checkInterval - number of isExpired() calls between clock reads
+	 */
+	public SearchDeadline(double timeLimitMillis, int checkInterval) {
+		if (checkInterval <= 0)
+			throw new IllegalArgumentException("Check interval must be positive, got " + checkInterval);
+		// Limits too long to fit in nanoseconds are as good as no limit
+		long timeLimitNanos = (long) Math.min(Math.max(timeLimitMillis, 0) * 1e6, Long.MAX_VALUE >> 1);
+		deadlineNanos = System.nanoTime() + timeLimitNanos;
+		this.checkInterval = checkInterval;
+		callsUntilClockRead = checkInterval;
+	}
+
+	/**
+	 * Cheap enough to be called on every expanded node
+	 */
+	public boolean isExpired() {
+		if (expired)
+			return true;
+		if (--callsUntilClockRead > 0)
+			return false;
+		callsUntilClockRead = checkInterval;
+		expired = cancelled || Thread.currentThread().isInterrupted() || System.nanoTime() - deadlineNanos >= 0;
+		return expired;
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+}
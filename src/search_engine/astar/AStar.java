@@ -1,25 +1,43 @@
 package search_engine.astar;
 
-import java.util.HashMap;
-
-import search_engine.FibonacciHeap;
+import rush_hour.BoardState;
+import rush_hour.MoveGenerator;
+import rush_hour.Movement;
+import rush_hour.StateCodec;
+import rush_hour.VehicleLayout;
+import search_engine.BucketOpenList;
+import search_engine.FibonacciOpenList;
+import search_engine.LongIntHashMap;
+import search_engine.OpenList;
+import search_engine.SearchDeadline;
 
 public class AStar {
 
-	protected FibonacciHeap<AStarSearchNode> openList;
-	protected HashMap<Long, AStarSearchNode> ndOpenList;
-	protected HashMap<Long, AStarSearchNode> closedList;
-	protected AStarSearchNode prev;
+	protected OpenList openList;
+	// Maps encoded state to it's slot in the nodes store, both open and closed
+	protected LongIntHashMap statesTable;
+	protected SearchNodeStore nodes;
 	protected AStarSolutionStatisticsData solutionStatisticsData;
-
-	private AStarSearchNode[] path;
+	// Memory budget of the search, in number of stored nodes
+	protected int nodesLimit;
 
 	// constructor for AStar and its parameters
 	public AStar() {
-		openList = new FibonacciHeap<>();
-		ndOpenList = new HashMap<>();
-		closedList = new HashMap<>();
-		prev = null;
+		this(Integer.MAX_VALUE);
+	}
+
+	public AStar(int nodesLimit) {
+		statesTable = new LongIntHashMap();
+		nodes = new SearchNodeStore();
+		this.nodesLimit = nodesLimit;
+	}
+
+	/**
+	 * @return number of nodes which fit in the given memory, taking into account
+	 *         the nodes store, the states table and the growth of both
+	 */
+	public static int getNodesLimitForMemory(long memoryBudgetBytes) {
+		return (int) Math.min(Integer.MAX_VALUE, memoryBudgetBytes / SearchNodeStore.ESTIMATED_BYTES_PER_NODE);
 	}
 
 	/*
@@ -27,87 +45,157 @@ public class AStar {
 	 * solution works is doing the A* each time working the node with the min f
 	 * value ( f = h + g ) where g is the num of moves so far and h is the heuristic
 	 * which is the evaluated num of moves left to reach goal.
-	 * 
-	 * each new node we find all its next moves, we save them in the fibHeap .. and
+	 *
+	 * each new node we find all its next moves, we save them in the open list .. and
 	 * put the node we worked with in the closed list .. and we continue with this
 	 * way untill we find the goal. or the openlist is embty.
+	 *
+	 * nodes are kept as slots of the nodes store, keyed by their encoded state.
+	 * the board is decoded into a single reusable state only when a node is
+	 * expanded.
 	 */
 	public SolvedPuzzle getBestSolution(AStarSearchNode startNode, HeuristicsCalculator calculator,
 			double timeLimitForPuzzle) {
-		solutionStatisticsData = new AStarSolutionStatisticsData(startNode.getPuzzleID(), calculator.getName());
-		openList.enqueue(startNode, startNode.getEvaluationFunc());
-		ndOpenList.put(startNode.getUUID(), startNode);
+		return getBestSolution(startNode, calculator, new SearchDeadline(timeLimitForPuzzle));
+	}
 
-		AStarSearchNode bestGoal = null;
-		int nodesCounter = 0;
+	/**
+	 * Searches until a solution is found or the deadline expires, in which case
+	 * the statistics hold the nodes expanded and best f reached so far
+	 */
+	public SolvedPuzzle getBestSolution(AStarSearchNode startNode, HeuristicsCalculator calculator,
+			SearchDeadline deadline) {
+		solutionStatisticsData = new AStarSolutionStatisticsData(startNode.getPuzzleID(), calculator.getName());
+		// Whole f values can be kept in buckets, otherwise fall back to a heap
+		openList = calculator.isIntegral() ? new BucketOpenList() : new FibonacciOpenList();
+		BoardState currentState = new BoardState(startNode.getBoardState());
+		StateCodec codec = currentState.getLayout().getStateCodec();
+		MoveGenerator moveGenerator = MoveGenerator.getGenerator();
+		int[] movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(currentState.getLayout())];
+		IncrementalHeuristicsCalculator incrementalCalculator = calculator instanceof IncrementalHeuristicsCalculator
+				? (IncrementalHeuristicsCalculator) calculator
+				: null;
+		CachedHeuristic cachedCalculator = calculator instanceof CachedHeuristic ? (CachedHeuristic) calculator
+				: null;
+		long cacheHitsAtStart = cachedCalculator != null ? cachedCalculator.getHits() : 0;
+		long cacheMissesAtStart = cachedCalculator != null ? cachedCalculator.getMisses() : 0;
+		MaxOfHeuristics maxCalculator = calculator instanceof MaxOfHeuristics ? (MaxOfHeuristics) calculator : null;
+		if (maxCalculator != null)
+			maxCalculator.startSearch();
+
+		int startSlot = nodes.addNode(startNode.getUUID(), 0, startNode.getHeuristicsValue(),
+				SearchNodeStore.NO_PARENT, 0);
+		statesTable.put(startNode.getUUID(), startSlot);
+		openList.enqueue(startSlot, nodes.getF(startSlot), nodes.getH(startSlot));
+
+		int bestGoal = SearchNodeStore.NO_PARENT;
+		int prev = SearchNodeStore.NO_PARENT;
+		int closedNodes = 0;
+		boolean nodesLimitReached = false;
+		boolean timedOut = false;
 		while (!openList.isEmpty()) {
-			AStarSearchNode currentNode = openList.min().getValue();
-			solutionStatisticsData.setNumberOfPassedMoves(currentNode.getNumberOfPassedMoves());
-			if (ndOpenList.containsKey(currentNode.getUUID()) && shouldNotExpandNode(currentNode)) {
-				openList.dequeueMin();
-				continue;
+			if (nodes.size() > nodesLimit) {
+				nodesLimitReached = true;
+				break;
+			}
+			if (deadline.isExpired()) {
+				timedOut = true;
+				break;
 			}
+			int currentNode = openList.dequeueMin();
+			solutionStatisticsData.setNumberOfPassedMoves(nodes.getG(currentNode));
+			solutionStatisticsData.setBestFIfNeeded(nodes.getF(currentNode));
 
 			solutionStatisticsData.increaseNumberOfNodes();
-			solutionStatisticsData.increaseHeuristicCounter(currentNode.getHeuristicsValue());
+			solutionStatisticsData.increaseHeuristicCounter(nodes.getH(currentNode));
 
-			if (currentNode.isGoalNode()) {
-				solutionStatisticsData.setBranchingFactor(closedList.size());
-				solutionStatisticsData.setPenetrance(closedList.size());
+			long currentStateCode = nodes.getState(currentNode);
+			codec.decodeInto(currentStateCode, currentState);
+			if (currentState.isGoal()) {
+				solutionStatisticsData.setBranchingFactor(closedNodes);
+				solutionStatisticsData.setPenetrance(closedNodes);
 				bestGoal = currentNode;
 				break;
 			}
 
-			if ((prev != null) && (prev.getDepth() >= currentNode.getDepth())) {
+			if ((prev != SearchNodeStore.NO_PARENT) && (nodes.getG(prev) >= nodes.getG(currentNode))) {
 				solutionStatisticsData.increaseAvgCounter();
-				solutionStatisticsData.increaseAvgSum(prev.getDepth());
-				solutionStatisticsData.setMinDepthIfNeeded(prev.getDepth());
-				solutionStatisticsData.setMaxDepthIfNeeded(prev.getDepth());
+				solutionStatisticsData.increaseAvgSum(nodes.getG(prev));
+				solutionStatisticsData.setMinDepthIfNeeded(nodes.getG(prev));
+				solutionStatisticsData.setMaxDepthIfNeeded(nodes.getG(prev));
 			}
 
 			prev = currentNode;
 
-			openList.dequeueMin();
-			ndOpenList.remove(currentNode.getUUID());
-			closedList.put(currentNode.getUUID(), currentNode);
+			nodes.close(currentNode);
+			closedNodes++;
 
 			// loop for working on hash tables, open and closed lists to work with nodes
-			for (AStarSearchNode successorNode : currentNode.getSuccessors()) {
-				if (closedList.containsKey(successorNode.getUUID())) {
-					continue;
-				}
-
-				if (!ndOpenList.containsKey(successorNode.getUUID())) {
-					openList.enqueue(successorNode, successorNode.getEvaluationFunc());
-					ndOpenList.put(successorNode.getUUID(), successorNode);
-				} else {
-					if (successorNode.getEvaluationFunc() < ndOpenList.get(successorNode.getUUID())
-							.getEvaluationFunc()) {
-						nodesCounter++;
-						openList.enqueue(successorNode, successorNode.getEvaluationFunc());
-						ndOpenList.replace(successorNode.getUUID(), successorNode);
-					}
+			int successorG = nodes.getG(currentNode) + 1;
+			int numberOfMoves = moveGenerator.generateMoves(currentState, movesBuffer);
+			for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++) {
+				int move = movesBuffer[moveIndex];
+				int vehicleIndex = MoveGenerator.getVehicleIndex(move);
+				int oldOffset = currentState.getOffset(vehicleIndex);
+				int newOffset = MoveGenerator.getNewOffset(move);
+				long successorStateCode = codec.encodeMove(currentStateCode, vehicleIndex, oldOffset, newOffset);
+				int successorNode = statesTable.get(successorStateCode);
+
+				if (successorNode == LongIntHashMap.NO_VALUE) {
+					currentState.moveVehicle(vehicleIndex, newOffset);
+					double successorH = incrementalCalculator != null
+							? incrementalCalculator.calculateValue(currentState, vehicleIndex, oldOffset,
+									nodes.getH(currentNode))
+							: calculator.calculateValue(currentState);
+					currentState.moveVehicle(vehicleIndex, oldOffset);
+					successorNode = nodes.addNode(successorStateCode, successorG, successorH, currentNode, move);
+					statesTable.put(successorStateCode, successorNode);
+					openList.enqueue(successorNode, nodes.getF(successorNode), nodes.getH(successorNode));
+				} else if (!nodes.isClosed(successorNode) && successorG < nodes.getG(successorNode)) {
+					// Cheaper path to an open node - update it in place instead of enqueuing a
+					// copy which would later be popped as stale
+					nodes.updatePath(successorNode, successorG, currentNode, move);
+					openList.decreaseKey(successorNode, nodes.getF(successorNode), nodes.getH(successorNode));
+					solutionStatisticsData.increaseStalePopsAvoided();
 				}
 			}
+			solutionStatisticsData.setMaxOpenListSizeIfNeeded(openList.size());
 		}
-		solutionStatisticsData.setNumberOfNodes(solutionStatisticsData.getNumberOfNodes() - nodesCounter);
+		if (cachedCalculator != null)
+			solutionStatisticsData.setHeuristicCacheCounters(cachedCalculator.getHits() - cacheHitsAtStart,
+					cachedCalculator.getMisses() - cacheMissesAtStart);
+		if (maxCalculator != null)
+			solutionStatisticsData.setHeuristicComponents(maxCalculator.getSearchStatistics());
 		solutionStatisticsData.calculateFinalData();
 
-		if (bestGoal == null) {
-			System.out.println("No Solution for puzzle: " + startNode.getPuzzleID());
-		}
-
-		else if (solutionStatisticsData.getTotalRunningTimeForSolution() > timeLimitForPuzzle) {
+		if (nodesLimitReached) {
+			System.out.println("FAILED solving puzzle because of memory limitation: " + startNode.getPuzzleID());
+		} else if (timedOut) {
 			System.out.println("FAILED solving puzzle because of time limitation: " + startNode.getPuzzleID());
+		} else if (bestGoal == SearchNodeStore.NO_PARENT) {
+			System.out.println("No Solution for puzzle: " + startNode.getPuzzleID());
 		} else {
 			System.out.println("Solved puzzle!");
-			solutionStatisticsData.setPuzzleSolution(bestGoal.getPuzzleSolution());
+			solutionStatisticsData.setPuzzleSolution(getPuzzleSolution(bestGoal, codec));
 		}
 
 		return new SolvedPuzzle(solutionStatisticsData);
 	}
 
-	private boolean shouldNotExpandNode(AStarSearchNode currentNode) {
-		return ndOpenList.get(currentNode.getUUID()).getEvaluationFunc() < currentNode.getEvaluationFunc();
+	/**
+	 * Builds the solution string by walking the parents of the goal node back to
+	 * the start node
+	 */
+	private String getPuzzleSolution(int goalNode, StateCodec codec) {
+		VehicleLayout layout = codec.getLayout();
+		StringBuilder puzzleSolution = new StringBuilder(" END");
+		for (int node = goalNode; nodes.getParent(node) != SearchNodeStore.NO_PARENT; node = nodes.getParent(node)) {
+			int vehicleIndex = MoveGenerator.getVehicleIndex(nodes.getLastMove(node));
+			Movement movement = new Movement(layout.getIdentifier(vehicleIndex), layout.getOrientation(vehicleIndex),
+					codec.decodeOffset(nodes.getState(nodes.getParent(node)), vehicleIndex),
+					MoveGenerator.getNewOffset(nodes.getLastMove(node)));
+			puzzleSolution.insert(0, movement);
+		}
+		return puzzleSolution.toString();
 	}
 }
@@ -6,15 +6,15 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+import rush_hour.BoardState;
 import rush_hour.Constants;
+import rush_hour.MoveGenerator;
 import rush_hour.Movement;
 import rush_hour.RawPuzzleObject;
 import rush_hour.Vehicle;
+import rush_hour.VehicleLayout;
 
 /**
  * This class implements the search node in our game, Search node construct from
@@ -27,8 +27,7 @@ public class AStarSearchNode {
 	protected double heuristicValue;
 	protected int numberOfMoves;
 	protected double evaluationFunc;
-	protected Collection<Point> emptySpots;
-	protected HashMap<Character, Vehicle> vehicles;
+	protected BoardState boardState;
 	final protected int puzzleID;
 	protected final int successorIndex;
 	protected final long boardIdentifier;
@@ -36,28 +35,36 @@ public class AStarSearchNode {
 	private HeuristicsCalculator hCalc;
 
 	public AStarSearchNode(RawPuzzleObject obj, HeuristicsCalculator calculator) {
-		this(obj.getEmptySpots(), obj.getVehiclesMapping(), obj.getPuzzleId(), 0, 0, 0, calculator);
+		this(BoardState.fromVehicles(obj.getVehicles()), obj.getPuzzleId(), 0, 0, 0, calculator);
 	}
 
+	/**
+	 * Builds a search node out of vehicles mapping, empty spots are derived from
+	 * the vehicles positions so they are not stored
+	 */
 	public AStarSearchNode(Collection<Point> emptySpots, HashMap<Character, Vehicle> vehicles, int puzzleID,
 			int successorIndex, int numberOfMoves, int depthInGraph, HeuristicsCalculator calculator) {
-		this.emptySpots = emptySpots;
-		this.vehicles = vehicles;
+		this(BoardState.fromVehicles(vehicles.values()), puzzleID, successorIndex, numberOfMoves, depthInGraph,
+				calculator);
+	}
+
+	public AStarSearchNode(BoardState boardState, int puzzleID, int successorIndex, int numberOfMoves,
+			int depthInGraph, HeuristicsCalculator calculator) {
+		this.boardState = boardState;
 		this.puzzleID = puzzleID;
 		this.parent = null;
 		this.successorIndex = successorIndex;
 		this.numberOfMoves = numberOfMoves;
 		hCalc = calculator;
-		heuristicValue = hCalc.calculateValue(vehicles.values());
+		heuristicValue = hCalc.calculateValue(boardState);
 		this.evaluationFunc = this.heuristicValue + this.numberOfMoves;
 		this.depthInGraph = depthInGraph;
 		this.boardIdentifier = this.generateStateIdentifier();
 	}
 
-	private AStarSearchNode(Collection<Point> emptySpots, HashMap<Character, Vehicle> vehicles, int puzzleID,
-			AStarSearchNode parentNode, int successorIndex, Movement movementLeadToThisState,
-			HeuristicsCalculator calculator) {
-		this(emptySpots, vehicles, puzzleID, successorIndex, parentNode.numberOfMoves + 1, parentNode.depthInGraph + 1,
+	private AStarSearchNode(BoardState boardState, int puzzleID, AStarSearchNode parentNode, int successorIndex,
+			Movement movementLeadToThisState, HeuristicsCalculator calculator) {
+		this(boardState, puzzleID, successorIndex, parentNode.numberOfMoves + 1, parentNode.depthInGraph + 1,
 				calculator);
 		this.parent = parentNode;
 		movement = movementLeadToThisState;
@@ -65,103 +72,94 @@ public class AStarSearchNode {
 	}
 
 	public boolean isGoalNode() {
-		for (int targetVehicleEndPos = (int) vehicles.get(Constants.TARGET_VEHICLE_IDENTIFIER).getEndPos().getY()
-				+ 1; targetVehicleEndPos < Constants.BOARD_SIZE; targetVehicleEndPos++) {
-			Character identifierAtPosition = getCarIdentifier(new Point(Constants.EXIT_RAW, targetVehicleEndPos));
-			if (identifierAtPosition != Constants.UKNOWN_IDENTIFIER
-					&& identifierAtPosition != Constants.TARGET_VEHICLE_IDENTIFIER)
-				return false;
-		}
-		return vehicles.get(Constants.TARGET_VEHICLE_IDENTIFIER).getEndPos().getY() >= 5;
+		return boardState.isGoal();
+	}
+
+	/**
+	 * Writes all the legal moves of this node into a buffer owned by the caller,
+	 * moves are decoded with MoveGenerator
+	 * 
+	 * @return number of moves written to the buffer
+	 */
+	public int generateMoves(int[] movesBuffer) {
+		return MoveGenerator.getGenerator().generateMoves(boardState, movesBuffer);
 	}
 
 	public Set<AStarSearchNode> getSuccessors() {
 		Set<AStarSearchNode> successors = new HashSet<>();
-		int successorIndex = 0;
-		for (Point emptySpot : emptySpots)
-			for (Character carIdentifier : getNeighbors(emptySpot))
-				if (canNeighborMoveHere(emptySpot, carIdentifier))
-					successors.add(getNextState(carIdentifier, emptySpot, ++successorIndex));
+		int[] movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(boardState.getLayout())];
+		int numberOfMoves = generateMoves(movesBuffer);
+		for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++)
+			successors.add(getNextState(movesBuffer[moveIndex], moveIndex + 1));
 		return successors;
 	}
 
-	public AStarSearchNode getNextState(Character carToMoveID, Point destenationToMove, int successorIndex) {
-		Set<Point> newEmptySpots = emptySpots.stream().collect(Collectors.toSet());
-		Map<Character, Vehicle> newVehicleMap = vehicles.entrySet().stream()
-				.collect(Collectors.toMap(Map.Entry::getKey, valueMapper -> new Vehicle(valueMapper.getValue())));
-
-		Vehicle updatedVehicle = newVehicleMap.get(carToMoveID);
-		Point oldStartPoint = new Point(updatedVehicle.getStartPos());
-		Collection<Point> newEmptyPoints = updatedVehicle.moveVehicle(destenationToMove);
-		// Here you do know which vehicle should go to where!
-		Movement movement = new Movement(oldStartPoint, new Point(updatedVehicle.getStartPos()), carToMoveID,
-				updatedVehicle.getOrientation());
-		newEmptySpots.addAll(newEmptyPoints);
-		newEmptySpots.removeAll(updatedVehicle.getLocations());
-		char[][] nextStateBoard = new char[Constants.BOARD_SIZE][Constants.BOARD_SIZE];
-
-		for (Point empty : newEmptySpots) {
-			nextStateBoard[(int) empty.getX()][(int) empty.getY()] = '.';
-		}
-		for (Vehicle newVehicle : newVehicleMap.values()) {
-			for (Point pos : newVehicle.getLocations())
-				nextStateBoard[(int) pos.getX()][(int) pos.getY()] = newVehicle.getIdentifier();
-		}
-		return new AStarSearchNode(newEmptySpots, (HashMap<Character, Vehicle>) newVehicleMap, puzzleID, this,
-				successorIndex, movement, this.hCalc);
+	public AStarSearchNode getNextState(int move, int successorIndex) {
+		return getNextState(MoveGenerator.getVehicleIndex(move), MoveGenerator.getNewOffset(move), successorIndex);
+	}
+
+	public AStarSearchNode getNextState(int vehicleIndex, int newOffset, int successorIndex) {
+		VehicleLayout layout = boardState.getLayout();
+		BoardState nextState = new BoardState(boardState);
+		nextState.moveVehicle(vehicleIndex, newOffset);
+		Movement movement = new Movement(layout.getIdentifier(vehicleIndex), layout.getOrientation(vehicleIndex),
+				boardState.getOffset(vehicleIndex), newOffset);
+		return new AStarSearchNode(nextState, puzzleID, this, successorIndex, movement, this.hCalc);
 	}
 
-	private Set<Character> getNeighbors(Point currentEmptySpot) {
-		Set<Character> toReturn = new HashSet<>();
-		toReturn.add(getWestestNeighbor(currentEmptySpot));
-		toReturn.add(getEastestNeighbor(currentEmptySpot));
-		toReturn.add(getNorthestNeighbor(currentEmptySpot));
-		toReturn.add(getSouthestNeighbor(currentEmptySpot));
-		return toReturn.stream().filter(c -> c != Constants.UKNOWN_IDENTIFIER).collect(Collectors.toSet());
+	public AStarSearchNode getNextState(Character carToMoveID, Point destenationToMove, int successorIndex) {
+		VehicleLayout layout = boardState.getLayout();
+		int vehicleIndex = layout.getIndexOf(carToMoveID);
+		int destination = (int) (layout.getOrientation(vehicleIndex) == Constants.HORIZONTAL
+				? destenationToMove.getY()
+				: destenationToMove.getX());
+		int newOffset = destination < boardState.getOffset(vehicleIndex) ? destination
+				: destination - layout.getSize(vehicleIndex) + 1;
+		return getNextState(vehicleIndex, newOffset, successorIndex);
 	}
 
 	public Character getCarIdentifier(Point currentEmptySpot) {
-		return vehicles.keySet().stream().filter(v -> vehicles.get(v).isPointIntersectsWithMe(currentEmptySpot))
-				.findAny().orElse(Constants.UKNOWN_IDENTIFIER);
+		int vehicleIndex = boardState.getVehicleIndexAt((int) currentEmptySpot.getX(), (int) currentEmptySpot.getY());
+		return vehicleIndex == -1 ? Constants.UKNOWN_IDENTIFIER : boardState.getLayout().getIdentifier(vehicleIndex);
+	}
+
+	private Character getClosestNeighbor(Point currentEmptySpot, int rowStep, int colStep) {
+		int row = (int) currentEmptySpot.getX();
+		int col = (int) currentEmptySpot.getY();
+		while (0 <= row && row < Constants.BOARD_SIZE && 0 <= col && col < Constants.BOARD_SIZE) {
+			int vehicleIndex = boardState.getVehicleIndexAt(row, col);
+			if (vehicleIndex != -1)
+				return boardState.getLayout().getIdentifier(vehicleIndex);
+			row += rowStep;
+			col += colStep;
+		}
+		return Constants.UKNOWN_IDENTIFIER;
 	}
 
 	public Character getNorthestNeighbor(Point currentEmptySpot) {
-		Character carIdentifier = getCarIdentifier(currentEmptySpot);
-		if (currentEmptySpot.getX() <= 0 || carIdentifier != Constants.UKNOWN_IDENTIFIER)
-			return carIdentifier;
-		return getNorthestNeighbor(new Point((int) currentEmptySpot.getX() - 1, (int) currentEmptySpot.getY()));
+		return getClosestNeighbor(currentEmptySpot, -1, 0);
 	}
 
 	public Character getSouthestNeighbor(Point currentEmptySpot) {
-		Character carIdentifier = getCarIdentifier(currentEmptySpot);
-		if (currentEmptySpot.getX() > Constants.BOARD_SIZE || carIdentifier != Constants.UKNOWN_IDENTIFIER)
-			return carIdentifier;
-		return getSouthestNeighbor(new Point((int) currentEmptySpot.getX() + 1, (int) currentEmptySpot.getY()));
+		return getClosestNeighbor(currentEmptySpot, 1, 0);
 	}
 
 	public Character getEastestNeighbor(Point currentEmptySpot) {
-		Character carIdentifier = getCarIdentifier(currentEmptySpot);
-		if (currentEmptySpot.getY() >= Constants.BOARD_SIZE || carIdentifier != Constants.UKNOWN_IDENTIFIER)
-			return carIdentifier;
-		return getEastestNeighbor(new Point((int) currentEmptySpot.getX(), (int) currentEmptySpot.getY() + 1));
+		return getClosestNeighbor(currentEmptySpot, 0, 1);
 	}
 
 	public Character getWestestNeighbor(Point currentEmptySpot) {
-		Character carIdentifier = getCarIdentifier(currentEmptySpot);
-		if (currentEmptySpot.getY() <= 0 || carIdentifier != Constants.UKNOWN_IDENTIFIER)
-			return carIdentifier;
-		return getWestestNeighbor(new Point((int) currentEmptySpot.getX(), (int) currentEmptySpot.getY() - 1));
+		return getClosestNeighbor(currentEmptySpot, 0, -1);
 	}
 
 	public boolean canNeighborMoveHere(Point emptySpot, Character carIdentifier) {
-		Vehicle neighborVehicle = vehicles.get(carIdentifier);
-		if (neighborVehicle.getOrientation() == Constants.HORIZONTAL)
-			return (emptySpot.getX() == neighborVehicle.getStartPos().getX()
-					&& (emptySpot.getX() == neighborVehicle.getEndPos().getX()))
+		VehicleLayout layout = boardState.getLayout();
+		int vehicleIndex = layout.getIndexOf(carIdentifier);
+		if (layout.getOrientation(vehicleIndex) == Constants.HORIZONTAL)
+			return emptySpot.getX() == layout.getFixedLine(vehicleIndex)
 					&& (0 <= (int) emptySpot.getY() && (int) emptySpot.getY() < Constants.BOARD_SIZE);
 		else
-			return (emptySpot.getY() == neighborVehicle.getStartPos().getY()
-					&& (emptySpot.getY() == neighborVehicle.getEndPos().getY()))
+			return emptySpot.getY() == layout.getFixedLine(vehicleIndex)
 					&& (0 <= (int) emptySpot.getX() && (int) emptySpot.getX() < Constants.BOARD_SIZE);
 	}
 
@@ -191,8 +189,7 @@ public class AStarSearchNode {
 				&& this.heuristicValue == ((AStarSearchNode) o).heuristicValue
 				&& this.numberOfMoves == ((AStarSearchNode) o).numberOfMoves
 				&& this.evaluationFunc == ((AStarSearchNode) o).evaluationFunc
-				&& this.emptySpots.equals(((AStarSearchNode) o).emptySpots)
-				&& this.vehicles.equals(((AStarSearchNode) o).vehicles)
+				&& this.boardState.equals(((AStarSearchNode) o).boardState)
 				&& this.puzzleID == ((AStarSearchNode) o).puzzleID
 				&& this.successorIndex == ((AStarSearchNode) o).successorIndex
 				&& ((this.parent != null && ((AStarSearchNode) o).parent != null)
@@ -205,27 +202,20 @@ public class AStarSearchNode {
 	}
 
 	private long generateStateIdentifier() {
-		long id = 1;
-		id = id * 10;
-		id += vehicles.get(Constants.TARGET_VEHICLE_IDENTIFIER).getStartPos().getY();
-		List<Vehicle> withoutTargetVehicle = vehicles.values().stream()
-				.filter(v -> v.getIdentifier() != Constants.TARGET_VEHICLE_IDENTIFIER).collect(Collectors.toList());
-		for (Vehicle v : withoutTargetVehicle) {
-			id = id * 10;
-			if (v.getOrientation() == Constants.HORIZONTAL)
-				id += v.getStartPos().getY();
-			else
-				id += v.getStartPos().getX();
-		}
-		return id;
+		return boardState.getLayout().getStateCodec().encode(boardState);
 	}
 
 	public Collection<Point> getEmptySpots() {
-		return emptySpots;
+		return boardState.getEmptySpots();
 	}
 
 	public Vehicle getVehicleByID(Character id) {
-		return vehicles.get(id);
+		int vehicleIndex = boardState.getLayout().getIndexOf(id);
+		return vehicleIndex == -1 ? null : boardState.getVehicle(vehicleIndex);
+	}
+
+	public BoardState getBoardState() {
+		return boardState;
 	}
 
 	public int getNumberOfPassedMoves() {
@@ -243,13 +233,13 @@ public class AStarSearchNode {
 
 	public String getPuzzleSolution() {
 		// First of all, need to get all board from the beggining to the end
-		String puzzleSolution = "";
+		StringBuilder puzzleSolution = new StringBuilder();
 		ArrayList<AStarSearchNode> wholeSolution = new ArrayList<AStarSearchNode>();
 		setWholeSolution(wholeSolution);
 		for (AStarSearchNode node : wholeSolution)
-			puzzleSolution += (node.movement != null) ? node.movement : "";
-		puzzleSolution += " END";
-		return puzzleSolution;
+			if (node.movement != null)
+				puzzleSolution.append(node.movement);
+		return puzzleSolution.append(" END").toString();
 	}
 
 	public String getMovement() {
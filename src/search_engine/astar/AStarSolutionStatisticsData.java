@@ -18,6 +18,18 @@ public class AStarSolutionStatisticsData extends GeneralSolutionStatisticsData {
 	protected String puzzleSolution;
 	protected String heuristicName;
 	protected String hasSolved;
+	protected int stalePopsAvoided;
+	protected int maxOpenListSize;
+	// Highest f expanded, a lower bound on the solution length when the search is
+	// stopped before finding one
+	protected double bestF;
+	// Values found in and missing from the heuristic cache during the search, 0
+	// when the heuristic is not cached
+	protected long heuristicCacheHits;
+	protected long heuristicCacheMisses;
+	// How each component of a max of heuristics did during the search, empty
+	// for a single heuristic
+	protected String heuristicComponents;
 
 	public AStarSolutionStatisticsData(int solutionID, String hName) {
 		super(solutionID);
@@ -33,7 +45,12 @@ public class AStarSolutionStatisticsData extends GeneralSolutionStatisticsData {
 		puzzleSolution = "";
 		heuristicName = hName;
 		hasSolved = "N";
-
+		stalePopsAvoided = 0;
+		maxOpenListSize = 0;
+		bestF = 0;
+		heuristicCacheHits = 0;
+		heuristicCacheMisses = 0;
+		heuristicComponents = "";
 	}
 
 	public void setNumberOfPassedMoves(int passedMoves) {
@@ -94,15 +111,70 @@ public class AStarSolutionStatisticsData extends GeneralSolutionStatisticsData {
 			maxDepth = possibleMaxDepth;
 	}
 
+	/**
+	 * Counts open nodes whose priority was decreased in place, each of them would
+	 * have been a duplicate open list entry popped as stale
+	 */
+	public void increaseStalePopsAvoided() {
+		stalePopsAvoided++;
+	}
+
+	public int getStalePopsAvoided() {
+		return stalePopsAvoided;
+	}
+
+	public void setMaxOpenListSizeIfNeeded(int openListSize) {
+		if (maxOpenListSize < openListSize)
+			maxOpenListSize = openListSize;
+	}
+
+	public void setBestFIfNeeded(double possibleBestF) {
+		if (bestF < possibleBestF)
+			bestF = possibleBestF;
+	}
+
+	public double getBestF() {
+		return bestF;
+	}
+
+	public void setHeuristicCacheCounters(long hits, long misses) {
+		heuristicCacheHits = hits;
+		heuristicCacheMisses = misses;
+	}
+
+	public long getHeuristicCacheHits() {
+		return heuristicCacheHits;
+	}
+
+	public long getHeuristicCacheMisses() {
+		return heuristicCacheMisses;
+	}
+
+	public void setHeuristicComponents(String componentsStatistics) {
+		heuristicComponents = componentsStatistics;
+	}
+
+	public String getHeuristicComponents() {
+		return heuristicComponents;
+	}
+
 	public void setPuzzleSolution(String solution) {
 		puzzleSolution = solution;
 		hasSolved = "Y";
 	}
 
+	public String getPuzzleSolution() {
+		return puzzleSolution;
+	}
+
+	public boolean isSolved() {
+		return hasSolved.equals("Y");
+	}
+
 	@Override
 	public String getCsvHeader() {
 		// TODO Auto-generated method stub
-		return "Problem,HeuristicName,N,d/N,Success(Y/N),Time(ms),EBF,avg H value, min Depth, max Depth,Puzzle-Solution\n";
+		return "Problem,HeuristicName,N,d/N,Success(Y/N),Time(ms),EBF,avg H value, min Depth, max Depth,Stale Pops Avoided,Max Open List,Best F,H Cache Hits,H Cache Misses,H Components,Puzzle-Solution\n";
 	}
 
 	@Override
@@ -110,11 +182,18 @@ public class AStarSolutionStatisticsData extends GeneralSolutionStatisticsData {
 		// TODO Auto-generated method stub
 		return solutionIdentifier + "," + heuristicName + "," + numberOfNodes + "," + penetrance + "," + hasSolved + ","
 				+ (endTime - startTime) + "," + branchingFactor + "," + avgHeuristic + "," + minDepth + "," + maxDepth
-				+ "," + puzzleSolution + "\n";
+				+ "," + stalePopsAvoided + "," + maxOpenListSize + "," + bestF + "," + heuristicCacheHits + "," + heuristicCacheMisses + ","
+				+ heuristicComponents + "," + puzzleSolution + "\n";
 	}
 
 	private void computeBranchingFactor(int epandedNodesCounter) {
 		double n = epandedNodesCounter;
+		// No depth was recorded when the search never went back up the tree, there is
+		// no branching factor which would reach n nodes at depth 0
+		if (this.maxDepth == 0) {
+			branchingFactor = 0;
+			return;
+		}
 
 		double b_lo = 1.;
 		double f_lo = 1. + this.maxDepth;
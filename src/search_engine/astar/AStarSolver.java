@@ -6,16 +6,24 @@ public class AStarSolver implements SearchAlgorithmSolver {
 
 	private HeuristicsCalculator calculator;
 	private double timeLimit;
+	private int nodesLimit;
 
 	public AStarSolver(HeuristicsCalculator calc, double timeLimitForPuzzle) {
-		// TODO Auto-generated constructor stub
+		this(calc, timeLimitForPuzzle, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param nodesLimit - maximal number of nodes a single search may store
+	 */
+	public AStarSolver(HeuristicsCalculator calc, double timeLimitForPuzzle, int nodesLimit) {
 		calculator = calc;
 		timeLimit = timeLimitForPuzzle;
+		this.nodesLimit = nodesLimit;
 	}
 
 	@Override
 	public SolvedPuzzle getBestSolution(AStarSearchNode start) {
-		AStar searcher = new AStar();
+		AStar searcher = new AStar(nodesLimit);
 		return searcher.getBestSolution(start, calculator, timeLimit);
 	}
 }
@@ -0,0 +1,329 @@
+package search_engine.astar;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import rush_hour.BoardState;
+import rush_hour.Constants;
+import rush_hour.StateCodec;
+import rush_hour.VehicleLayout;
+
+/**
+ * Admissible heuristic which counts the vehicles that have to move at least
+ * once - the target, every vehicle blocking it's way to the exit, the vehicles
+ * standing in the way each blocker takes out of the exit row, the vehicles in
+ * their way and so on, up to MAX_CHAIN_DEPTH levels. Every vehicle may leave
+ * either way, so the value is the smallest number of distinct vehicles over
+ * all choices of ways, and since every move moves a single vehicle it never
+ * exceeds the real number of moves.
+ *
+ * The value depends only on the cells the evaluation looked at, so a successor
+ * whose moved vehicle didn't change any of those cells gets it's parent's value
+ * without being evaluated. The cells each state's value depends on are kept in
+ * a small per-thread cache keyed by the state code, and a parent which is no
+ * longer there is evaluated once again for all of it's successors.
+ */
+public class BlockerChainHeuristic implements IncrementalHeuristicsCalculator {
+	public static final int MAX_CHAIN_DEPTH = 3;
+
+	private final ThreadLocal<ChainEvaluator> evaluators = ThreadLocal.withInitial(() -> new ChainEvaluator(this));
+	private final LongAdder evaluations = new LongAdder();
+	private final LongAdder parentValuesReused = new LongAdder();
+
+	@Override
+	public String getName() {
+		return "BlockerChain";
+	}
+
+	@Override
+	public boolean isIntegral() {
+		return true;
+	}
+
+	@Override
+	public double calculateValue(BoardState boardState) {
+		return evaluators.get().evaluate(boardState);
+	}
+
+	@Override
+	public double calculateValue(BoardState boardState, int movedVehicle, int oldOffset, double parentValue) {
+		return evaluators.get().evaluateAfterMove(boardState, movedVehicle, oldOffset, parentValue);
+	}
+
+	/**
+	 * @return number of states which were evaluated in full, parents evaluated
+	 *         again included
+	 */
+	public long getNumberOfEvaluations() {
+		return evaluations.sum();
+	}
+
+	/**
+	 * @return number of successors which got their parent's value without being
+	 *         evaluated
+	 */
+	public long getNumberOfParentValuesReused() {
+		return parentValuesReused.sum();
+	}
+
+	/**
+	 * Scratch space of a single thread, which also remembers the cells the last
+	 * evaluations looked at
+	 */
+	private static class ChainEvaluator {
+		private static final int BACKWARD = 1;
+		private static final int FORWARD = 2;
+		private static final int NO_VEHICLE = -1;
+		private static final int INSPECTED_CELLS_CACHE_SIZE = 1 << 14;
+		private static final long NO_CODE = -1;
+
+		private final BlockerChainHeuristic heuristic;
+		private BoardState boardState;
+		private VehicleLayout layout;
+		private final int[] cellOwners = new int[Constants.BOARD_SIZE * Constants.BOARD_SIZE];
+		private long inspectedCells;
+		private long evaluatedCode;
+		private int bestMustMoveCount;
+
+		// Vehicles which must leave a position on their line, and the directions
+		// they may leave it to
+		private int[] pendingVehicles = new int[16];
+		private int[] pendingPositions = new int[16];
+		private int[] pendingDirections = new int[16];
+		private int[] pendingDepths = new int[16];
+		private int pendingSize;
+
+		// Cells the evaluation of each state looked at, by it's code - direct mapped,
+		// a state whose cell was taken by another one is forgotten
+		private VehicleLayout cachedLayout;
+		private StateCodec codec;
+		private final long[] cachedCodes = new long[INSPECTED_CELLS_CACHE_SIZE];
+		private final long[] cachedInspectedCells = new long[INSPECTED_CELLS_CACHE_SIZE];
+
+		ChainEvaluator(BlockerChainHeuristic heuristic) {
+			this.heuristic = heuristic;
+		}
+
+		/**
+		 * A successor differs from it's parent only by the cells of the moved vehicle
+		 * - if none of those cells was looked at by the parent's evaluation, the
+		 * parent's value is the value of the successor
+		 */
+		double evaluateAfterMove(BoardState boardState, int movedVehicle, int oldOffset, double parentValue) {
+			useLayout(boardState.getLayout());
+			int newOffset = boardState.getOffset(movedVehicle);
+			long stateCode = codec.encode(boardState);
+			long parentCode = codec.encodeMove(stateCode, movedVehicle, newOffset, oldOffset);
+			int parentCell = getCacheCell(parentCode);
+			if (cachedCodes[parentCell] != parentCode) {
+				// The parent's cells were forgotten, it's evaluated again for all of it's
+				// successors
+				boardState.moveVehicle(movedVehicle, oldOffset);
+				evaluate(boardState, parentCode);
+				boardState.moveVehicle(movedVehicle, newOffset);
+			}
+			long parentInspectedCells = cachedInspectedCells[parentCell];
+			long changedCells = boardState.getLayout().getVehicleMask(movedVehicle, oldOffset)
+					^ boardState.getLayout().getVehicleMask(movedVehicle, newOffset);
+			if ((changedCells & parentInspectedCells) != 0)
+				return evaluate(boardState, stateCode);
+			// The successor's evaluation would look at the same cells as the parent's
+			heuristic.parentValuesReused.increment();
+			rememberInspectedCells(stateCode, parentInspectedCells);
+			return parentValue;
+		}
+
+		private void useLayout(VehicleLayout layout) {
+			if (cachedLayout == layout)
+				return;
+			cachedLayout = layout;
+			codec = layout.getStateCodec();
+			Arrays.fill(cachedCodes, NO_CODE);
+		}
+
+		private static int getCacheCell(long code) {
+			long mixed = code * 0x9E3779B97F4A7C15L;
+			return (int) (mixed >>> 32) & (INSPECTED_CELLS_CACHE_SIZE - 1);
+		}
+
+		private void rememberInspectedCells(long code, long inspectedCells) {
+			int cell = getCacheCell(code);
+			cachedCodes[cell] = code;
+			cachedInspectedCells[cell] = inspectedCells;
+		}
+
+		private int rememberEvaluation(int value) {
+			rememberInspectedCells(evaluatedCode, inspectedCells);
+			return value;
+		}
+
+		int evaluate(BoardState boardState) {
+			useLayout(boardState.getLayout());
+			return evaluate(boardState, codec.encode(boardState));
+		}
+
+		private int evaluate(BoardState boardState, long code) {
+			heuristic.evaluations.increment();
+			evaluatedCode = code;
+			this.boardState = boardState;
+			layout = boardState.getLayout();
+			Arrays.fill(cellOwners, NO_VEHICLE);
+			for (int vehicleIndex = 0; vehicleIndex < layout.getNumberOfVehicles(); vehicleIndex++)
+				for (int position = 0; position < layout.getSize(vehicleIndex); position++)
+					cellOwners[layout.getCellIndex(vehicleIndex,
+							boardState.getOffset(vehicleIndex) + position)] = vehicleIndex;
+
+			int target = VehicleLayout.TARGET_VEHICLE_INDEX;
+			inspectedCells = layout.getVehicleMask(target, boardState.getOffset(target));
+			if (boardState.isGoal())
+				return rememberEvaluation(0);
+
+			int mustMove = 1 << target;
+			pendingSize = 0;
+			for (int position = boardState.getOffset(target) + layout.getSize(target); position < Constants.BOARD_SIZE; position++) {
+				int blocker = inspect(layout.getCellIndex(target, position));
+				if (blocker == NO_VEHICLE || (mustMove & (1 << blocker)) != 0)
+					continue;
+				mustMove |= 1 << blocker;
+				if (isOnSameLine(blocker, target))
+					addPending(blocker, Constants.BOARD_SIZE - 1, FORWARD, 0);
+				else
+					addPending(blocker, getPositionOfCell(blocker, layout.getCellIndex(target, position)),
+							BACKWARD | FORWARD, 0);
+			}
+
+			bestMustMoveCount = Integer.MAX_VALUE;
+			search(mustMove, 0);
+			// No way out for the blockers, the counted vehicles still have to move
+			if (bestMustMoveCount == Integer.MAX_VALUE)
+				return rememberEvaluation(Integer.bitCount(mustMove));
+			return rememberEvaluation(bestMustMoveCount);
+		}
+
+		/**
+		 * Lets the pending vehicles from the given one on leave their position in
+		 * every allowed direction, adding the vehicles in their way as pending ones
+		 */
+		private void search(int mustMove, int pendingIndex) {
+			if (Integer.bitCount(mustMove) >= bestMustMoveCount)
+				return;
+			if (pendingIndex == pendingSize) {
+				bestMustMoveCount = Integer.bitCount(mustMove);
+				return;
+			}
+			int vehicleIndex = pendingVehicles[pendingIndex];
+			if (pendingDepths[pendingIndex] >= MAX_CHAIN_DEPTH) {
+				search(mustMove, pendingIndex + 1);
+				return;
+			}
+			inspectedCells |= layout.getVehicleMask(vehicleIndex, boardState.getOffset(vehicleIndex));
+
+			// The way which adds less vehicles is tried first, so the other one is
+			// usually cut by the best count found
+			int backwardBlockers = countNewBlockers(pendingIndex, mustMove, BACKWARD);
+			int forwardBlockers = countNewBlockers(pendingIndex, mustMove, FORWARD);
+			int firstDirection = backwardBlockers <= forwardBlockers ? BACKWARD : FORWARD;
+			leaveInDirection(pendingIndex, mustMove, firstDirection);
+			// A way with no new vehicles in it leaves nothing for the other way to improve
+			if (Math.min(backwardBlockers, forwardBlockers) > 0)
+				leaveInDirection(pendingIndex, mustMove, firstDirection ^ (BACKWARD | FORWARD));
+		}
+
+		/**
+		 * @return number of vehicles not counted yet which stand in the way of the
+		 *         pending vehicle in the direction, MAX_VALUE if it can't go that way
+		 */
+		private int countNewBlockers(int pendingIndex, int mustMove, int direction) {
+			int vehicleIndex = pendingVehicles[pendingIndex];
+			int pathStart = getPathStart(pendingIndex, direction);
+			int pathEnd = getPathEnd(pendingIndex, direction);
+			if ((pendingDirections[pendingIndex] & direction) == 0 || pathStart < 0 || pathEnd >= Constants.BOARD_SIZE)
+				return Integer.MAX_VALUE;
+			int newBlockers = 0;
+			for (int pathPosition = pathStart; pathPosition <= pathEnd; pathPosition++) {
+				int blocker = inspect(layout.getCellIndex(vehicleIndex, pathPosition));
+				if (blocker != NO_VEHICLE && (mustMove & (1 << blocker)) == 0) {
+					mustMove |= 1 << blocker;
+					newBlockers++;
+				}
+			}
+			return newBlockers;
+		}
+
+		private int getPathStart(int pendingIndex, int direction) {
+			int vehicleIndex = pendingVehicles[pendingIndex];
+			return direction == BACKWARD ? pendingPositions[pendingIndex] - layout.getSize(vehicleIndex)
+					: boardState.getOffset(vehicleIndex) + layout.getSize(vehicleIndex);
+		}
+
+		private int getPathEnd(int pendingIndex, int direction) {
+			int vehicleIndex = pendingVehicles[pendingIndex];
+			return direction == BACKWARD ? boardState.getOffset(vehicleIndex) - 1
+					: pendingPositions[pendingIndex] + layout.getSize(vehicleIndex);
+		}
+
+		private void leaveInDirection(int pendingIndex, int mustMove, int direction) {
+			int vehicleIndex = pendingVehicles[pendingIndex];
+			int pathStart = getPathStart(pendingIndex, direction);
+			int pathEnd = getPathEnd(pendingIndex, direction);
+			if ((pendingDirections[pendingIndex] & direction) == 0 || pathStart < 0 || pathEnd >= Constants.BOARD_SIZE)
+				return;
+
+			int savedPendingSize = pendingSize;
+			int pathMustMove = mustMove;
+			for (int pathPosition = pathStart; pathPosition <= pathEnd; pathPosition++) {
+				int cellIndex = layout.getCellIndex(vehicleIndex, pathPosition);
+				int blocker = inspect(cellIndex);
+				if (blocker == NO_VEHICLE || (pathMustMove & (1 << blocker)) != 0)
+					continue;
+				pathMustMove |= 1 << blocker;
+				// A vehicle ahead on the same line has to clear the whole path the same way
+				if (isOnSameLine(blocker, vehicleIndex))
+					addPending(blocker, direction == BACKWARD ? pathStart : pathEnd, direction,
+							pendingDepths[pendingIndex] + 1);
+				else
+					addPending(blocker, getPositionOfCell(blocker, cellIndex), BACKWARD | FORWARD,
+							pendingDepths[pendingIndex] + 1);
+			}
+			search(pathMustMove, pendingIndex + 1);
+			pendingSize = savedPendingSize;
+		}
+
+		private int inspect(int cellIndex) {
+			inspectedCells |= 1L << cellIndex;
+			return cellOwners[cellIndex];
+		}
+
+		private boolean isOnSameLine(int vehicleIndex, int otherIndex) {
+			return layout.getOrientation(vehicleIndex) == layout.getOrientation(otherIndex)
+					&& layout.getFixedLine(vehicleIndex) == layout.getFixedLine(otherIndex);
+		}
+
+		private int getPositionOfCell(int vehicleIndex, int cellIndex) {
+			return layout.getOrientation(vehicleIndex) == Constants.HORIZONTAL ? cellIndex % Constants.BOARD_SIZE
+					: cellIndex / Constants.BOARD_SIZE;
+		}
+
+		private void addPending(int vehicleIndex, int position, int directions, int depth) {
+			if (pendingSize == pendingVehicles.length) {
+				pendingVehicles = Arrays.copyOf(pendingVehicles, pendingSize << 1);
+				pendingPositions = Arrays.copyOf(pendingPositions, pendingSize << 1);
+				pendingDirections = Arrays.copyOf(pendingDirections, pendingSize << 1);
+				pendingDepths = Arrays.copyOf(pendingDepths, pendingSize << 1);
+			}
+			pendingVehicles[pendingSize] = vehicleIndex;
+			pendingPositions[pendingSize] = position;
+			pendingDirections[pendingSize] = directions;
+			pendingDepths[pendingSize] = depth;
+			pendingSize++;
+		}
+	}
+
+	/**
+	 * Every vehicle is counted once
+	 */
+	@Override
+	public double getUpperBound(BoardState boardState) {
+		return boardState.isGoal() ? 0 : boardState.getLayout().getNumberOfVehicles();
+	}
+}
@@ -1,10 +1,10 @@
 package search_engine.astar;
 
-import java.util.Collection;
+import rush_hour.BoardState;
 
-import rush_hour.Vehicle;
-
-public class BlockersAndDistanceHeuristic implements HeuristicsCalculator {
+public class BlockersAndDistanceHeuristic implements IncrementalHeuristicsCalculator {
+	private final BlockersHeuristicCalculator blockersCalculator = new BlockersHeuristicCalculator();
+	private final TargetVehicleDistanceFromExitHeuristic distanceCalculator = new TargetVehicleDistanceFromExitHeuristic();
 
 	@Override
 	public String getName() {
@@ -13,11 +13,27 @@ public class BlockersAndDistanceHeuristic implements HeuristicsCalculator {
 	}
 
 	@Override
-	public double calculateValue(Collection<Vehicle> vehicles) {
-		BlockersHeuristicCalculator calc = new BlockersHeuristicCalculator();
-		TargetVehicleDistanceFromExitHeuristic targetV = new TargetVehicleDistanceFromExitHeuristic();
-		// TODO Auto-generated method stub
-		return calc.calculateValue(vehicles) + targetV.calculateValue(vehicles);
+	public boolean isIntegral() {
+		return true;
+	}
+
+	@Override
+	public double calculateValue(BoardState boardState) {
+		return blockersCalculator.calculateValue(boardState) + distanceCalculator.calculateValue(boardState);
 	}
 
+	/**
+	 * Both parts only add their change to the parent value, so given a parent
+	 * value of 0 each of them returns it's own change
+	 */
+	@Override
+	public double calculateValue(BoardState boardState, int movedVehicle, int oldOffset, double parentValue) {
+		return parentValue + blockersCalculator.calculateValue(boardState, movedVehicle, oldOffset, 0)
+				+ distanceCalculator.calculateValue(boardState, movedVehicle, oldOffset, 0);
+	}
+
+	@Override
+	public double getUpperBound(BoardState boardState) {
+		return blockersCalculator.getUpperBound(boardState) + distanceCalculator.getUpperBound(boardState);
+	}
 }
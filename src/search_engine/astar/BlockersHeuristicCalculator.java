@@ -2,15 +2,15 @@ package search_engine.astar;
 
 import java.awt.Point;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
+import rush_hour.BoardState;
 import rush_hour.Constants;
 import rush_hour.Vehicle;
+import rush_hour.VehicleLayout;
 
-public class BlockersHeuristicCalculator implements HeuristicsCalculator {
+public class BlockersHeuristicCalculator implements IncrementalHeuristicsCalculator {
 
 	@Override
 	public String getName() {
@@ -18,25 +18,54 @@ public class BlockersHeuristicCalculator implements HeuristicsCalculator {
 		return "BlockingCars";
 	}
 
+	@Override
+	public boolean isIntegral() {
+		return true;
+	}
+
 	/**
 	 * Admissible heuristic since the number of blocking cars is lower equal to the
 	 * distance of the target car from the exit, thus it's lower or equal to the
 	 * number of actions we have to perform
 	 * 
-	 * @param emptyCells - empty cells on the board
-	 * @param vehicles   - vehicles on map
+	 * @param boardState - current state of the board
 	 * @return number of blockers
 	 */
 	@Override
-	public double calculateValue(Collection<Vehicle> vehicles) {
-		Set<Vehicle> blockingVehicles = new HashSet<>();
-		for (Point emptySpot : getExitPathOfTargetVehicle(vehicles)) {
-			for (Vehicle v : vehicles) {
-				if (v.getOrientation() == Constants.VERTICAL && v.isPointIntersectsWithMe(emptySpot))
-					blockingVehicles.add(v);
-			}
-		}
-		return blockingVehicles.size();
+	public double calculateValue(BoardState boardState) {
+		VehicleLayout layout = boardState.getLayout();
+		int targetVehicleEndIndex = boardState.getOffset(VehicleLayout.TARGET_VEHICLE_INDEX)
+				+ layout.getSize(VehicleLayout.TARGET_VEHICLE_INDEX) - 1;
+		int blockingVehicles = 0;
+		for (int vehicleIndex = 0; vehicleIndex < layout.getNumberOfVehicles(); vehicleIndex++)
+			if (isBlocking(layout, vehicleIndex, boardState.getOffset(vehicleIndex), targetVehicleEndIndex))
+				blockingVehicles++;
+		return blockingVehicles;
+	}
+
+	/**
+	 * Only the moved vehicle can start or stop blocking. The target itself moves
+	 * through free cells of the exit row only, so no vertical vehicle stands on
+	 * the columns it passes and moving it doesn't change the number of blockers
+	 */
+	@Override
+	public double calculateValue(BoardState boardState, int movedVehicle, int oldOffset, double parentValue) {
+		VehicleLayout layout = boardState.getLayout();
+		if (movedVehicle == VehicleLayout.TARGET_VEHICLE_INDEX
+				|| layout.getOrientation(movedVehicle) != Constants.VERTICAL)
+			return parentValue;
+		int targetVehicleEndIndex = boardState.getOffset(VehicleLayout.TARGET_VEHICLE_INDEX)
+				+ layout.getSize(VehicleLayout.TARGET_VEHICLE_INDEX) - 1;
+		int wasBlocking = isBlocking(layout, movedVehicle, oldOffset, targetVehicleEndIndex) ? 1 : 0;
+		int isBlocking = isBlocking(layout, movedVehicle, boardState.getOffset(movedVehicle), targetVehicleEndIndex) ? 1
+				: 0;
+		return parentValue - wasBlocking + isBlocking;
+	}
+
+	private static boolean isBlocking(VehicleLayout layout, int vehicleIndex, int offset, int targetVehicleEndIndex) {
+		return layout.getOrientation(vehicleIndex) == Constants.VERTICAL
+				&& layout.getFixedLine(vehicleIndex) > targetVehicleEndIndex && offset <= Constants.EXIT_RAW
+				&& Constants.EXIT_RAW < offset + layout.getSize(vehicleIndex);
 	}
 
 	public static List<Point> getExitPathOfTargetVehicle(Collection<Vehicle> vehicles) {
@@ -47,4 +76,12 @@ public class BlockersHeuristicCalculator implements HeuristicsCalculator {
 				.collect(Collectors.toList());
 	}
 
+	/**
+	 * Every blocker stands on another cell between the target and the exit
+	 */
+	@Override
+	public double getUpperBound(BoardState boardState) {
+		return (Constants.BOARD_SIZE - 1) - (boardState.getOffset(VehicleLayout.TARGET_VEHICLE_INDEX)
+				+ boardState.getLayout().getSize(VehicleLayout.TARGET_VEHICLE_INDEX) - 1);
+	}
 }
@@ -0,0 +1,154 @@
+package search_engine.astar;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import rush_hour.BoardState;
+import rush_hour.VehicleLayout;
+import search_engine.LongShortCache;
+import search_engine.LongShortCache.EvictionPolicy;
+
+/**
+ * Decorator which remembers the values of another heuristic, keyed by the
+ * encoded state, in a bounded cache per thread. It pays off for heuristics
+ * which are expensive to evaluate on states that are evaluated again - IDA*
+ * visits the same states in every iteration, and solving a puzzle again meets
+ * all of it's states again - while A* evaluates every state once anyway.
+ *
+ * Codes are only unique within a layout, so the key is the code with a number
+ * the thread gave the layout in it's high bits - values of every puzzle of a
+ * batch can share the cache. A thread only remembers the numbers of the
+ * MAX_TRACKED_LAYOUTS layouts it used last, so it doesn't keep every layout of
+ * a long batch alive - the values of a forgotten layout are never hit again,
+ * and they're evicted as any other values. Values are kept as shorts, thus only integral
+ * heuristics can be cached; values which don't fit are not cached.
+ */
+public class CachedHeuristic implements IncrementalHeuristicsCalculator {
+	public static final long DEFAULT_MEMORY_LIMIT = 16L << 20;
+	// Every code of the widest layout, 5^18, is below 2^42
+	private static final int CODE_BITS = 42;
+	private static final int MAX_LAYOUTS = 1 << (Long.SIZE - 1 - CODE_BITS);
+	private static final int MAX_TRACKED_LAYOUTS = 1 << 6;
+
+	private final HeuristicsCalculator calculator;
+	private final IncrementalHeuristicsCalculator incrementalCalculator;
+	private final ThreadLocal<ThreadCache> caches;
+
+	public CachedHeuristic(HeuristicsCalculator calculator) {
+		this(calculator, DEFAULT_MEMORY_LIMIT, EvictionPolicy.CLOCK);
+	}
+
+	/**
+	 * @param memoryLimitBytes - memory of the cache of every thread which uses it
+	 */
+	public CachedHeuristic(HeuristicsCalculator calculator, long memoryLimitBytes, EvictionPolicy evictionPolicy) {
+		if (!calculator.isIntegral())
+			throw new IllegalArgumentException("Only integral heuristics can be cached, " + calculator.getName()
+					+ " is not integral");
+		this.calculator = calculator;
+		incrementalCalculator = calculator instanceof IncrementalHeuristicsCalculator
+				? (IncrementalHeuristicsCalculator) calculator
+				: null;
+		int capacity = LongShortCache.getCapacityForMemory(memoryLimitBytes);
+		caches = ThreadLocal.withInitial(() -> new ThreadCache(new LongShortCache(capacity, evictionPolicy)));
+	}
+
+	@Override
+	public String getName() {
+		return calculator.getName() + "-Cached";
+	}
+
+	@Override
+	public boolean isIntegral() {
+		return true;
+	}
+
+	@Override
+	public double calculateValue(BoardState boardState) {
+		ThreadCache cache = caches.get();
+		long key = cache.getKey(boardState);
+		int cachedValue = cache.values.get(key);
+		if (cachedValue != LongShortCache.NO_VALUE)
+			return cachedValue;
+		return cacheValue(cache, key, calculator.calculateValue(boardState));
+	}
+
+	@Override
+	public double calculateValue(BoardState boardState, int movedVehicle, int oldOffset, double parentValue) {
+		ThreadCache cache = caches.get();
+		long key = cache.getKey(boardState);
+		int cachedValue = cache.values.get(key);
+		if (cachedValue != LongShortCache.NO_VALUE)
+			return cachedValue;
+		double value = incrementalCalculator != null
+				? incrementalCalculator.calculateValue(boardState, movedVehicle, oldOffset, parentValue)
+				: calculator.calculateValue(boardState);
+		return cacheValue(cache, key, value);
+	}
+
+	/**
+	 * @return number of values the calling thread found in it's cache
+	 */
+	public long getHits() {
+		return caches.get().values.getHits();
+	}
+
+	/**
+	 * @return number of values the calling thread had to evaluate
+	 */
+	public long getMisses() {
+		return caches.get().values.getMisses();
+	}
+
+	private static double cacheValue(ThreadCache cache, long key, double value) {
+		if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+			cache.values.put(key, (short) value);
+		return value;
+	}
+
+	private static class ThreadCache {
+		private final LongShortCache values;
+		// Equal layouts encode states the same way, so they can share a number
+		private final Map<VehicleLayout, Long> layoutKeys = new LinkedHashMap<VehicleLayout, Long>(16, 0.75f,
+				true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<VehicleLayout, Long> eldest) {
+				return size() > MAX_TRACKED_LAYOUTS;
+			}
+		};
+		private int nextLayoutNumber;
+		private VehicleLayout lastLayout;
+		private long lastLayoutKey;
+
+		ThreadCache(LongShortCache values) {
+			this.values = values;
+		}
+
+		long getKey(BoardState boardState) {
+			VehicleLayout layout = boardState.getLayout();
+			if (layout != lastLayout) {
+				Long layoutKey = layoutKeys.get(layout);
+				if (layoutKey == null) {
+					// Out of layout numbers, start over with an empty cache
+					if (nextLayoutNumber == MAX_LAYOUTS) {
+						layoutKeys.clear();
+						values.clear();
+						nextLayoutNumber = 0;
+					}
+					layoutKey = (long) nextLayoutNumber++ << CODE_BITS;
+					layoutKeys.put(layout, layoutKey);
+				}
+				lastLayout = layout;
+				lastLayoutKey = layoutKey;
+			}
+			return lastLayoutKey | layout.getStateCodec().encode(boardState);
+		}
+	}
+
+	@Override
+	public double getUpperBound(BoardState boardState) {
+		return calculator.getUpperBound(boardState);
+	}
+}
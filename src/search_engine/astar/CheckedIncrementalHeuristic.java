@@ -0,0 +1,48 @@
+package search_engine.astar;
+
+import rush_hour.BoardState;
+
+/**
+ * Debug wrapper of an incremental heuristic, which evaluates every successor
+ * both incrementally and from scratch and fails on the first state where the
+ * two values differ. It's as slow as the full evaluation, so it's meant for
+ * tests and for checking a new incremental heuristic, not for solving.
+ */
+public class CheckedIncrementalHeuristic implements IncrementalHeuristicsCalculator {
+	private final IncrementalHeuristicsCalculator calculator;
+
+	public CheckedIncrementalHeuristic(IncrementalHeuristicsCalculator calculator) {
+		this.calculator = calculator;
+	}
+
+	@Override
+	public String getName() {
+		return calculator.getName();
+	}
+
+	@Override
+	public boolean isIntegral() {
+		return calculator.isIntegral();
+	}
+
+	@Override
+	public double calculateValue(BoardState boardState) {
+		return calculator.calculateValue(boardState);
+	}
+
+	@Override
+	public double calculateValue(BoardState boardState, int movedVehicle, int oldOffset, double parentValue) {
+		double incrementalValue = calculator.calculateValue(boardState, movedVehicle, oldOffset, parentValue);
+		double fullValue = calculator.calculateValue(boardState);
+		if (incrementalValue != fullValue)
+			throw new IllegalStateException(calculator.getName() + " evaluated " + incrementalValue
+					+ " incrementally instead of " + fullValue + " after moving vehicle "
+					+ boardState.getLayout().getIdentifier(movedVehicle) + " from offset " + oldOffset);
+		return incrementalValue;
+	}
+
+	@Override
+	public double getUpperBound(BoardState boardState) {
+		return calculator.getUpperBound(boardState);
+	}
+}
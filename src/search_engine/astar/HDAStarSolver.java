@@ -0,0 +1,512 @@
+package search_engine.astar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import rush_hour.BoardState;
+import rush_hour.MoveGenerator;
+import rush_hour.Movement;
+import rush_hour.StateCodec;
+import rush_hour.VehicleLayout;
+import search_engine.BucketOpenList;
+import search_engine.FibonacciOpenList;
+import search_engine.LongIntHashMap;
+import search_engine.OpenList;
+import search_engine.SearchAlgorithmSolver;
+import search_engine.SearchDeadline;
+
+/**
+ * Hash distributed A* - a single puzzle is searched by several workers, each
+ * owning the states whose code hashes to it. A worker keeps the open list, the
+ * states table and the nodes of it's own states only. It expands it's best
+ * node, evaluates the successors and hands each of them to it's owner - in
+ * batches, through the owner's lock free inbox - or adds it directly when it
+ * owns it itself.
+ *
+ * Workers expand nodes out of the global f order, so the first goal found isn't
+ * necessarily the best. It's cost becomes the incumbent, nodes whose f isn't
+ * below the incumbent are dropped, and a node reached again by a cheaper path
+ * is reopened even after it was expanded - so the search still ends with an
+ * optimal solution for any admissible heuristic.
+ *
+ * The search ends when no worker has a node below the incumbent and no batch
+ * is on it's way. This is detected by a single counter of active workers plus
+ * sent messages which weren't handled yet: a worker becomes active only by
+ * handling a message, so once the counter drops to 0 it stays there. An idle
+ * worker parks until a batch is sent to it or the search ends.
+ *
+ * The workers of every search run on the threads of the solver, which end
+ * after they're idle for IDLE_THREAD_TIMEOUT_SECONDS - so a solver searches a
+ * single puzzle at a time. Heuristics which count
+ * per thread, as CachedHeuristic and MaxOfHeuristics, are counted by every
+ * worker and added up.
+ */
+public class HDAStarSolver implements SearchAlgorithmSolver {
+	public static final int MESSAGE_BATCH_SIZE = 64;
+	// Expansions after which batches which aren't full are sent anyway, so other
+	// workers don't wait for work that's already found
+	private static final int FLUSH_INTERVAL = 32;
+	// A reference to a node is the worker which owns it and it's slot there
+	private static final int SLOT_BITS = 24;
+	private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+	public static final int MAX_WORKERS = 1 << (Integer.SIZE - 1 - SLOT_BITS);
+	private static final int NO_NODE = -1;
+	private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
+	private final HeuristicsCalculator calculator;
+	private final double timeLimit;
+	private final int numberOfWorkers;
+	private final int nodesLimit;
+	private final ThreadPoolExecutor threads;
+
+	public HDAStarSolver(HeuristicsCalculator calc, double timeLimitForPuzzle, int numberOfWorkers) {
+		this(calc, timeLimitForPuzzle, numberOfWorkers, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param nodesLimit - maximal number of nodes all workers together may store
+	 */
+	public HDAStarSolver(HeuristicsCalculator calc, double timeLimitForPuzzle, int numberOfWorkers, int nodesLimit) {
+		if (numberOfWorkers < 1 || numberOfWorkers > MAX_WORKERS)
+			throw new IllegalArgumentException(
+					"Number of workers must be between 1 and " + MAX_WORKERS + ", got " + numberOfWorkers);
+		calculator = calc;
+		timeLimit = timeLimitForPuzzle;
+		this.numberOfWorkers = numberOfWorkers;
+		this.nodesLimit = nodesLimit;
+		threads = new ThreadPoolExecutor(numberOfWorkers, numberOfWorkers, IDLE_THREAD_TIMEOUT_SECONDS,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+					// A solver which isn't used anymore doesn't keep the application running
+					Thread thread = new Thread(runnable, "hda-star-worker");
+					thread.setDaemon(true);
+					return thread;
+				});
+		threads.allowCoreThreadTimeOut(true);
+	}
+
+	@Override
+	public SolvedPuzzle getBestSolution(AStarSearchNode start) {
+		return new Search(start).solve();
+	}
+
+	private static int getNodeReference(int worker, int slot) {
+		return worker << SLOT_BITS | slot;
+	}
+
+	/**
+	 * State shared by the workers of a single puzzle
+	 */
+	private class Search {
+		private final AStarSearchNode start;
+		private final StateCodec codec;
+		private final Worker[] workers;
+		// Active workers plus messages which were sent and not handled yet
+		private final AtomicLong activity;
+		private volatile boolean stopped;
+		private volatile boolean timedOut;
+		private volatile boolean nodesLimitReached;
+		private volatile int incumbentCost;
+		private int incumbentNode;
+
+		Search(AStarSearchNode start) {
+			this.start = start;
+			codec = start.getBoardState().getLayout().getStateCodec();
+			int nodesLimitForWorker = Math.min(nodesLimit / numberOfWorkers, SLOT_MASK);
+			workers = new Worker[numberOfWorkers];
+			for (int worker = 0; worker < numberOfWorkers; worker++)
+				workers[worker] = new Worker(this, worker, nodesLimitForWorker);
+			activity = new AtomicLong(numberOfWorkers);
+			incumbentCost = Integer.MAX_VALUE;
+			incumbentNode = NO_NODE;
+		}
+
+		SolvedPuzzle solve() {
+			AStarSolutionStatisticsData solutionStatisticsData = new AStarSolutionStatisticsData(start.getPuzzleID(),
+					calculator.getName());
+			long startCode = codec.encode(start.getBoardState());
+			workers[getOwner(startCode)].addNode(startCode, 0, start.getHeuristicsValue(), NO_NODE, 0);
+
+			List<Future<Void>> results = new ArrayList<>();
+			for (Worker worker : workers)
+				results.add(threads.submit(worker));
+			awaitWorkers(results);
+
+			int closedNodes = 0;
+			long cacheHits = 0;
+			long cacheMisses = 0;
+			MaxOfHeuristics.SearchCounters componentCounters = null;
+			for (Worker worker : workers) {
+				closedNodes += worker.expandedNodes;
+				solutionStatisticsData.increaseHeuristicCounter(worker.heuristicSum);
+				solutionStatisticsData.setMaxDepthIfNeeded(worker.maxDepth);
+				solutionStatisticsData.setMaxOpenListSizeIfNeeded(worker.maxOpenListSize);
+				solutionStatisticsData.setBestFIfNeeded(worker.bestF);
+				cacheHits += worker.cacheHits;
+				cacheMisses += worker.cacheMisses;
+				if (componentCounters == null)
+					componentCounters = worker.componentCounters;
+				else if (worker.componentCounters != null)
+					componentCounters.add(worker.componentCounters);
+			}
+			if (calculator instanceof CachedHeuristic)
+				solutionStatisticsData.setHeuristicCacheCounters(cacheHits, cacheMisses);
+			if (componentCounters != null)
+				solutionStatisticsData
+						.setHeuristicComponents(((MaxOfHeuristics) calculator).getSearchStatistics(componentCounters));
+			solutionStatisticsData.setNumberOfNodes(closedNodes);
+			if (incumbentNode != NO_NODE)
+				solutionStatisticsData.setNumberOfPassedMoves(incumbentCost);
+			solutionStatisticsData.setBranchingFactor(closedNodes);
+			solutionStatisticsData.setPenetrance(closedNodes);
+			solutionStatisticsData.calculateFinalData();
+
+			if (nodesLimitReached) {
+				System.out.println("FAILED solving puzzle because of memory limitation: " + start.getPuzzleID());
+			} else if (timedOut) {
+				System.out.println("FAILED solving puzzle because of time limitation: " + start.getPuzzleID());
+			} else if (incumbentNode == NO_NODE) {
+				System.out.println("No Solution for puzzle: " + start.getPuzzleID());
+			} else {
+				System.out.println("Solved puzzle!");
+				solutionStatisticsData.setPuzzleSolution(getPuzzleSolution());
+			}
+			return new SolvedPuzzle(solutionStatisticsData);
+		}
+
+		/**
+		 * Waits until every worker is done. When the calling thread is interrupted
+		 * the search stops as if it timed out, and when a worker fails the others
+		 * stop, they are waited for either way so none of them is still running
+		 * when the statistics are read.
+		 */
+		private void awaitWorkers(List<Future<Void>> results) {
+			boolean isInterrupted = false;
+			Throwable failure = null;
+			for (Future<Void> result : results) {
+				while (true) {
+					try {
+						result.get();
+						break;
+					} catch (InterruptedException e) {
+						isInterrupted = true;
+						timedOut = true;
+						stop();
+					} catch (ExecutionException e) {
+						if (failure == null)
+							failure = e.getCause();
+						break;
+					}
+				}
+			}
+			if (isInterrupted)
+				Thread.currentThread().interrupt();
+			if (failure != null)
+				throw new IllegalStateException("Worker failed solving puzzle " + start.getPuzzleID(), failure);
+		}
+
+		int getOwner(long code) {
+			long mixed = code * 0xC2B2AE3D27D4EB4FL;
+			return (int) ((mixed >>> 33) % numberOfWorkers);
+		}
+
+		synchronized void offerSolution(int cost, int node) {
+			if (cost < incumbentCost) {
+				incumbentCost = cost;
+				incumbentNode = node;
+			}
+		}
+
+		void stop() {
+			stopped = true;
+			wakeWorkers();
+		}
+
+		void wakeWorkers() {
+			for (Worker worker : workers)
+				worker.wake();
+		}
+
+		/**
+		 * Walks the parents of the incumbent goal back to the start node, moving
+		 * between the workers which own them
+		 */
+		private String getPuzzleSolution() {
+			VehicleLayout layout = codec.getLayout();
+			StringBuilder puzzleSolution = new StringBuilder(" END");
+			int node = incumbentNode;
+			while (true) {
+				SearchNodeStore nodes = workers[node >>> SLOT_BITS].nodes;
+				int slot = node & SLOT_MASK;
+				int parent = nodes.getParent(slot);
+				if (parent == NO_NODE)
+					break;
+				SearchNodeStore parentNodes = workers[parent >>> SLOT_BITS].nodes;
+				int vehicleIndex = MoveGenerator.getVehicleIndex(nodes.getLastMove(slot));
+				puzzleSolution.insert(0,
+						new Movement(layout.getIdentifier(vehicleIndex), layout.getOrientation(vehicleIndex),
+								codec.decodeOffset(parentNodes.getState(parent & SLOT_MASK), vehicleIndex),
+								MoveGenerator.getNewOffset(nodes.getLastMove(slot))));
+				node = parent;
+			}
+			return puzzleSolution.toString();
+		}
+	}
+
+	/**
+	 * Successors sent to a single worker, as parallel arrays
+	 */
+	private static class MessageBatch {
+		private final long[] states = new long[MESSAGE_BATCH_SIZE];
+		private final int[] movesCount = new int[MESSAGE_BATCH_SIZE];
+		private final double[] heuristicValues = new double[MESSAGE_BATCH_SIZE];
+		private final int[] parents = new int[MESSAGE_BATCH_SIZE];
+		private final int[] lastMoves = new int[MESSAGE_BATCH_SIZE];
+		private int size;
+
+		void add(long state, int g, double h, int parent, int lastMove) {
+			states[size] = state;
+			movesCount[size] = g;
+			heuristicValues[size] = h;
+			parents[size] = parent;
+			lastMoves[size] = lastMove;
+			size++;
+		}
+
+		boolean isFull() {
+			return size == MESSAGE_BATCH_SIZE;
+		}
+	}
+
+	private class Worker implements Callable<Void> {
+		private final Search search;
+		private final int index;
+		private final int nodesLimitForWorker;
+		private final OpenList openList;
+		private final LongIntHashMap statesTable = new LongIntHashMap();
+		private final SearchNodeStore nodes = new SearchNodeStore();
+		private final ConcurrentLinkedQueue<MessageBatch> inbox = new ConcurrentLinkedQueue<>();
+		private final MessageBatch[] outgoing;
+		private final SearchDeadline deadline;
+		private final IncrementalHeuristicsCalculator incrementalCalculator;
+		// Thread the worker runs on, which parks while it's idle
+		private volatile Thread thread;
+
+		// Statistics of the worker, read after it's done
+		private int expandedNodes;
+		private double heuristicSum;
+		private int maxDepth;
+		private int maxOpenListSize;
+		private double bestF;
+		private long cacheHits;
+		private long cacheMisses;
+		private MaxOfHeuristics.SearchCounters componentCounters;
+
+		Worker(Search search, int index, int nodesLimitForWorker) {
+			this.search = search;
+			this.index = index;
+			this.nodesLimitForWorker = nodesLimitForWorker;
+			openList = calculator.isIntegral() ? new BucketOpenList() : new FibonacciOpenList();
+			outgoing = new MessageBatch[numberOfWorkers];
+			for (int worker = 0; worker < numberOfWorkers; worker++)
+				outgoing[worker] = new MessageBatch();
+			deadline = new SearchDeadline(timeLimit);
+			incrementalCalculator = calculator instanceof IncrementalHeuristicsCalculator
+					? (IncrementalHeuristicsCalculator) calculator
+					: null;
+		}
+
+		@Override
+		public Void call() {
+			thread = Thread.currentThread();
+			// Caches and components count per thread, so they're counted by every worker
+			CachedHeuristic cachedCalculator = calculator instanceof CachedHeuristic ? (CachedHeuristic) calculator
+					: null;
+			long cacheHitsAtStart = cachedCalculator != null ? cachedCalculator.getHits() : 0;
+			long cacheMissesAtStart = cachedCalculator != null ? cachedCalculator.getMisses() : 0;
+			MaxOfHeuristics maxCalculator = calculator instanceof MaxOfHeuristics ? (MaxOfHeuristics) calculator
+					: null;
+			if (maxCalculator != null)
+				maxCalculator.startSearch();
+			try {
+				work();
+			} catch (RuntimeException | Error e) {
+				// The other workers would wait for this one forever
+				search.stop();
+				throw e;
+			} finally {
+				thread = null;
+			}
+			if (cachedCalculator != null) {
+				cacheHits = cachedCalculator.getHits() - cacheHitsAtStart;
+				cacheMisses = cachedCalculator.getMisses() - cacheMissesAtStart;
+			}
+			if (maxCalculator != null)
+				componentCounters = maxCalculator.getSearchCounters();
+			return null;
+		}
+
+		void wake() {
+			Thread workerThread = thread;
+			if (workerThread != null)
+				LockSupport.unpark(workerThread);
+		}
+
+		private void work() {
+			BoardState currentState = new BoardState(search.start.getBoardState());
+			int[] movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(currentState.getLayout())];
+			boolean active = true;
+			int expansionsSinceFlush = 0;
+			while (!search.stopped) {
+				MessageBatch batch;
+				while ((batch = inbox.poll()) != null) {
+					if (!active) {
+						// The batch is still counted, so the counter can't be 0 here
+						search.activity.incrementAndGet();
+						active = true;
+					}
+					for (int message = 0; message < batch.size; message++)
+						addNode(batch.states[message], batch.movesCount[message], batch.heuristicValues[message],
+								batch.parents[message], batch.lastMoves[message]);
+					search.activity.addAndGet(-batch.size);
+				}
+
+				int node = getNextNode();
+				if (node != NO_NODE) {
+					expand(node, currentState, movesBuffer);
+					if (++expansionsSinceFlush == FLUSH_INTERVAL) {
+						sendAll();
+						expansionsSinceFlush = 0;
+					}
+					if (deadline.isExpired()) {
+						search.timedOut = true;
+						search.stop();
+					}
+					continue;
+				}
+
+				sendAll();
+				expansionsSinceFlush = 0;
+				if (active) {
+					active = false;
+					if (search.activity.decrementAndGet() == 0) {
+						// The other workers are parked until they're told the search is over
+						search.wakeWorkers();
+						return;
+					}
+				} else if (search.activity.get() == 0) {
+					return;
+				} else if (inbox.isEmpty()) {
+					// Woken by a batch sent to this worker, or by the end of the search
+					LockSupport.park(this);
+				}
+			}
+		}
+
+		/**
+		 * @return next node whose f is below the incumbent, NO_NODE if there is none -
+		 *         the nodes which can't be better than the incumbent are dropped
+		 */
+		private int getNextNode() {
+			while (!openList.isEmpty()) {
+				int node = openList.dequeueMin();
+				nodes.close(node);
+				if (nodes.getF(node) < search.incumbentCost)
+					return node;
+			}
+			return NO_NODE;
+		}
+
+		private void expand(int node, BoardState currentState, int[] movesBuffer) {
+			expandedNodes++;
+			heuristicSum += nodes.getH(node);
+			bestF = Math.max(bestF, nodes.getF(node));
+			int g = nodes.getG(node);
+			maxDepth = Math.max(maxDepth, g);
+			long currentCode = nodes.getState(node);
+			search.codec.decodeInto(currentCode, currentState);
+			if (currentState.isGoal()) {
+				search.offerSolution(g, getNodeReference(index, node));
+				return;
+			}
+
+			int parent = getNodeReference(index, node);
+			double parentH = nodes.getH(node);
+			int numberOfMoves = MoveGenerator.getGenerator().generateMoves(currentState, movesBuffer);
+			for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++) {
+				int move = movesBuffer[moveIndex];
+				int vehicleIndex = MoveGenerator.getVehicleIndex(move);
+				int oldOffset = currentState.getOffset(vehicleIndex);
+				int newOffset = MoveGenerator.getNewOffset(move);
+				long successorCode = search.codec.encodeMove(currentCode, vehicleIndex, oldOffset, newOffset);
+				currentState.moveVehicle(vehicleIndex, newOffset);
+				double successorH = incrementalCalculator != null
+						? incrementalCalculator.calculateValue(currentState, vehicleIndex, oldOffset, parentH)
+						: calculator.calculateValue(currentState);
+				currentState.moveVehicle(vehicleIndex, oldOffset);
+				if (g + 1 + successorH >= search.incumbentCost)
+					continue;
+
+				int owner = search.getOwner(successorCode);
+				if (owner == index) {
+					addNode(successorCode, g + 1, successorH, parent, move);
+				} else {
+					outgoing[owner].add(successorCode, g + 1, successorH, parent, move);
+					if (outgoing[owner].isFull())
+						send(owner);
+				}
+			}
+			maxOpenListSize = Math.max(maxOpenListSize, openList.size());
+		}
+
+		/**
+		 * Adds a node this worker owns, or updates it if it's new path is cheaper
+		 */
+		void addNode(long state, int g, double h, int parent, int lastMove) {
+			if (g + h >= search.incumbentCost)
+				return;
+			int slot = statesTable.get(state);
+			if (slot == LongIntHashMap.NO_VALUE) {
+				if (nodes.size() >= nodesLimitForWorker) {
+					search.nodesLimitReached = true;
+					search.stop();
+					return;
+				}
+				slot = nodes.addNode(state, g, h, parent, lastMove);
+				statesTable.put(state, slot);
+				openList.enqueue(slot, nodes.getF(slot), nodes.getH(slot));
+			} else if (g < nodes.getG(slot)) {
+				nodes.updatePath(slot, g, parent, lastMove);
+				if (nodes.isClosed(slot)) {
+					nodes.reopen(slot);
+					openList.enqueue(slot, nodes.getF(slot), nodes.getH(slot));
+				} else {
+					openList.decreaseKey(slot, nodes.getF(slot), nodes.getH(slot));
+				}
+			}
+		}
+
+		private void send(int worker) {
+			MessageBatch batch = outgoing[worker];
+			// Counted before it can be handled, so the counter never misses it
+			search.activity.addAndGet(batch.size);
+			search.workers[worker].inbox.offer(batch);
+			search.workers[worker].wake();
+			outgoing[worker] = new MessageBatch();
+		}
+
+		private void sendAll() {
+			for (int worker = 0; worker < numberOfWorkers; worker++)
+				if (outgoing[worker].size > 0)
+					send(worker);
+		}
+	}
+}
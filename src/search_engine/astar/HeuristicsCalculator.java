@@ -2,10 +2,31 @@ package search_engine.astar;
 
 import java.util.Collection;
 
+import rush_hour.BoardState;
 import rush_hour.Vehicle;
 
 public interface HeuristicsCalculator {
 	String getName();
 
-	double calculateValue(Collection<Vehicle> vehicles);
+	double calculateValue(BoardState boardState);
+
+	/**
+	 * @return true if every value of this heuristic is a whole number, which
+	 *         lets the search use a bucket based open list
+	 */
+	default boolean isIntegral() {
+		return false;
+	}
+
+	/**
+	 * @return value this heuristic can't exceed on the board state, which is
+	 *         cheaper to get than the value itself
+	 */
+	default double getUpperBound(BoardState boardState) {
+		return Double.POSITIVE_INFINITY;
+	}
+
+	default double calculateValue(Collection<Vehicle> vehicles) {
+		return calculateValue(BoardState.fromVehicles(vehicles));
+	}
 }
@@ -0,0 +1,215 @@
+package search_engine.astar;
+
+import java.util.Arrays;
+
+import rush_hour.BoardState;
+import rush_hour.MoveGenerator;
+import rush_hour.Movement;
+import rush_hour.StateCodec;
+import rush_hour.VehicleLayout;
+import search_engine.SearchAlgorithmSolver;
+import search_engine.SearchDeadline;
+
+/**
+ * This class performs IDA* search - depth first searches bounded by a threshold
+ * on f = g + h, where each iteration raises the threshold to the lowest f that
+ * exceeded it in the previous one. The search works on a single board state
+ * which is moved forward and back, so it's memory is the path, a moves buffer
+ * per depth and an optional fixed size transposition table.
+ *
+ * Moving the same vehicle twice in a row is never needed - the two slides can
+ * be done as one - so the vehicle of the last move is not moved again.
+ */
+public class IDAStarSolver implements SearchAlgorithmSolver {
+	private HeuristicsCalculator calculator;
+	private IncrementalHeuristicsCalculator incrementalCalculator;
+	private double timeLimit;
+	private int transpositionTableSize;
+
+	// Transposition table - lowest g each state was reached with in the current
+	// iteration, a state reached again with a higher or equal g is pruned
+	private long[] tableStates;
+	private int[] tableDepths;
+	private int[] tableIterations;
+	private int iteration;
+
+	private BoardState currentState;
+	private StateCodec codec;
+	private int[][] movesBuffers;
+	private int[] pathMoves;
+	private int[] pathOldOffsets;
+	private double nextThreshold;
+	private SearchDeadline deadline;
+	private boolean timedOut;
+	private AStarSolutionStatisticsData solutionStatisticsData;
+
+	public IDAStarSolver(HeuristicsCalculator calc, double timeLimitForPuzzle) {
+		this(calc, timeLimitForPuzzle, 0);
+	}
+
+	/**
+	 * @param transpositionTableSize - number of entries of the transposition
+	 *                               table, 0 to search without one
+	 */
+	public IDAStarSolver(HeuristicsCalculator calc, double timeLimitForPuzzle, int transpositionTableSize) {
+		calculator = calc;
+		incrementalCalculator = calc instanceof IncrementalHeuristicsCalculator
+				? (IncrementalHeuristicsCalculator) calc
+				: null;
+		timeLimit = timeLimitForPuzzle;
+		this.transpositionTableSize = transpositionTableSize;
+		if (transpositionTableSize > 0) {
+			tableStates = new long[transpositionTableSize];
+			tableDepths = new int[transpositionTableSize];
+			tableIterations = new int[transpositionTableSize];
+		}
+	}
+
+	@Override
+	public SolvedPuzzle getBestSolution(AStarSearchNode start) {
+		solutionStatisticsData = new AStarSolutionStatisticsData(start.getPuzzleID(), calculator.getName());
+		currentState = new BoardState(start.getBoardState());
+		codec = currentState.getLayout().getStateCodec();
+		movesBuffers = new int[1][MoveGenerator.getMaxNumberOfMoves(currentState.getLayout())];
+		pathMoves = new int[16];
+		pathOldOffsets = new int[16];
+		deadline = new SearchDeadline(timeLimit);
+		timedOut = false;
+		if (tableIterations != null)
+			Arrays.fill(tableIterations, 0);
+		iteration = 0;
+		CachedHeuristic cachedCalculator = calculator instanceof CachedHeuristic ? (CachedHeuristic) calculator
+				: null;
+		long cacheHitsAtStart = cachedCalculator != null ? cachedCalculator.getHits() : 0;
+		long cacheMissesAtStart = cachedCalculator != null ? cachedCalculator.getMisses() : 0;
+		MaxOfHeuristics maxCalculator = calculator instanceof MaxOfHeuristics ? (MaxOfHeuristics) calculator : null;
+		if (maxCalculator != null)
+			maxCalculator.startSearch();
+
+		long startStateCode = codec.encode(currentState);
+		double startH = calculator.calculateValue(currentState);
+		double threshold = startH;
+		int solutionLength = -1;
+		while (solutionLength == -1 && !timedOut && threshold != Double.POSITIVE_INFINITY) {
+			iteration++;
+			// Every state below the threshold was searched, so it bounds the solution
+			solutionStatisticsData.setBestFIfNeeded(threshold);
+			nextThreshold = Double.POSITIVE_INFINITY;
+			solutionLength = search(startStateCode, startH, 0, threshold, -1);
+			threshold = nextThreshold;
+		}
+
+		solutionStatisticsData.setBranchingFactor(solutionStatisticsData.getNumberOfNodes());
+		solutionStatisticsData.setPenetrance(solutionStatisticsData.getNumberOfNodes());
+		if (cachedCalculator != null)
+			solutionStatisticsData.setHeuristicCacheCounters(cachedCalculator.getHits() - cacheHitsAtStart,
+					cachedCalculator.getMisses() - cacheMissesAtStart);
+		if (maxCalculator != null)
+			solutionStatisticsData.setHeuristicComponents(maxCalculator.getSearchStatistics());
+		solutionStatisticsData.calculateFinalData();
+		if (solutionLength == -1 && !timedOut) {
+			System.out.println("No Solution for puzzle: " + start.getPuzzleID());
+		} else if (timedOut) {
+			System.out.println("FAILED solving puzzle because of time limitation: " + start.getPuzzleID());
+		} else {
+			System.out.println("Solved puzzle!");
+			solutionStatisticsData.setPuzzleSolution(getPuzzleSolution(solutionLength));
+		}
+		return new SolvedPuzzle(solutionStatisticsData);
+	}
+
+	/**
+	 * Depth first search from the current state, bounded by the threshold
+	 *
+	 * @param h - heuristic value of the current state
+	 *
+	 * @return length of the solution found, -1 if there is no solution within the
+	 *         threshold
+	 */
+	private int search(long stateCode, double h, int depth, double threshold, int lastVehicle) {
+		if (depth + h > threshold) {
+			nextThreshold = Math.min(nextThreshold, depth + h);
+			return -1;
+		}
+		solutionStatisticsData.increaseNumberOfNodes();
+		solutionStatisticsData.increaseHeuristicCounter(h);
+		solutionStatisticsData.setNumberOfPassedMoves(depth);
+		solutionStatisticsData.setMaxDepthIfNeeded(depth);
+		if (currentState.isGoal()) {
+			solutionStatisticsData.setMinDepthIfNeeded(depth);
+			return depth;
+		}
+		if (isTranspositionPruned(stateCode, depth) || isTimeLimitExceeded())
+			return -1;
+
+		int[] movesBuffer = getMovesBuffer(depth);
+		int numberOfMoves = MoveGenerator.getGenerator().generateMoves(currentState, movesBuffer);
+		for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++) {
+			int move = movesBuffer[moveIndex];
+			int vehicleIndex = MoveGenerator.getVehicleIndex(move);
+			if (vehicleIndex == lastVehicle)
+				continue;
+			int oldOffset = currentState.getOffset(vehicleIndex);
+			int newOffset = MoveGenerator.getNewOffset(move);
+			setPathMove(depth, move, oldOffset);
+
+			currentState.moveVehicle(vehicleIndex, newOffset);
+			double successorH = incrementalCalculator != null
+					? incrementalCalculator.calculateValue(currentState, vehicleIndex, oldOffset, h)
+					: calculator.calculateValue(currentState);
+			int solutionLength = search(codec.encodeMove(stateCode, vehicleIndex, oldOffset, newOffset), successorH,
+					depth + 1, threshold, vehicleIndex);
+			currentState.moveVehicle(vehicleIndex, oldOffset);
+			if (solutionLength != -1 || timedOut)
+				return solutionLength;
+		}
+		return -1;
+	}
+
+	private boolean isTranspositionPruned(long stateCode, int depth) {
+		if (transpositionTableSize == 0)
+			return false;
+		int entry = (int) Long.remainderUnsigned(stateCode * 0x9E3779B97F4A7C15L, transpositionTableSize);
+		if (tableIterations[entry] == iteration && tableStates[entry] == stateCode && tableDepths[entry] <= depth)
+			return true;
+		tableStates[entry] = stateCode;
+		tableDepths[entry] = depth;
+		tableIterations[entry] = iteration;
+		return false;
+	}
+
+	private boolean isTimeLimitExceeded() {
+		timedOut = deadline.isExpired();
+		return timedOut;
+	}
+
+	private int[] getMovesBuffer(int depth) {
+		if (depth >= movesBuffers.length) {
+			int[][] grownBuffers = Arrays.copyOf(movesBuffers, Math.max(depth + 1, movesBuffers.length << 1));
+			for (int i = movesBuffers.length; i < grownBuffers.length; i++)
+				grownBuffers[i] = new int[movesBuffers[0].length];
+			movesBuffers = grownBuffers;
+		}
+		return movesBuffers[depth];
+	}
+
+	private void setPathMove(int depth, int move, int oldOffset) {
+		if (depth >= pathMoves.length) {
+			pathMoves = Arrays.copyOf(pathMoves, pathMoves.length << 1);
+			pathOldOffsets = Arrays.copyOf(pathOldOffsets, pathOldOffsets.length << 1);
+		}
+		pathMoves[depth] = move;
+		pathOldOffsets[depth] = oldOffset;
+	}
+
+	private String getPuzzleSolution(int solutionLength) {
+		VehicleLayout layout = codec.getLayout();
+		StringBuilder puzzleSolution = new StringBuilder();
+		for (int depth = 0; depth < solutionLength; depth++) {
+			int vehicleIndex = MoveGenerator.getVehicleIndex(pathMoves[depth]);
+			puzzleSolution.append(new Movement(layout.getIdentifier(vehicleIndex), layout.getOrientation(vehicleIndex),
+					pathOldOffsets[depth], MoveGenerator.getNewOffset(pathMoves[depth])));
+		}
+		return puzzleSolution.append(" END").toString();
+	}
+}
@@ -0,0 +1,21 @@
+package search_engine.astar;
+
+import rush_hour.BoardState;
+
+/**
+ * Heuristic which can evaluate a successor out of it's parent's value and the
+ * single vehicle which moved between them, instead of evaluating the whole
+ * board again.
+ */
+public interface IncrementalHeuristicsCalculator extends HeuristicsCalculator {
+
+	/**
+	 * @param boardState   - state after the move, the parent state is the same
+	 *                     state with the moved vehicle back at it's old offset
+	 * @param movedVehicle - index of the vehicle which moved
+	 * @param oldOffset    - offset of the moved vehicle in the parent state
+	 * @param parentValue  - value of this heuristic for the parent state
+	 * @return value of this heuristic for the board state
+	 */
+	double calculateValue(BoardState boardState, int movedVehicle, int oldOffset, double parentValue);
+}
@@ -1,6 +1,8 @@
 package search_engine.astar;
 
+import rush_hour.MoveGenerator;
 import search_engine.SearchAlgorithmSolver;
+import search_engine.SearchDeadline;
 
 /**
  * this class performs BFS search
@@ -9,6 +11,7 @@ import search_engine.SearchAlgorithmSolver;
 public class IterativeDeepeningDFS implements SearchAlgorithmSolver {
 
 	private double timeToSolve;
+	private int[][] movesBuffers;
 
 	public IterativeDeepeningDFS(double timeLimit) {
 		// TODO Auto-generated constructor stub
@@ -19,16 +22,16 @@ public class IterativeDeepeningDFS implements SearchAlgorithmSolver {
 	public SolvedPuzzle getBestSolution(AStarSearchNode start) {
 		int s = 1;
 		AStarSearchNode goal = null;
-		long startTime = System.currentTimeMillis();
+		SearchDeadline deadline = new SearchDeadline(timeToSolve);
+		movesBuffers = new int[1][MoveGenerator.getMaxNumberOfMoves(start.getBoardState().getLayout())];
 		while (s != 0) {
 
-			goal = DLC(start, s, startTime);
+			goal = DLC(start, s, deadline);
 			if (goal != null) {
 				System.out.println(start.getPuzzleSolution());
 				return null;
 			}
-			long currentTime = System.currentTimeMillis() - startTime;
-			if (goal == null && currentTime > timeToSolve) {
+			if (goal == null && deadline.isExpired()) {
 				System.out.println("FAILED");
 				break;
 			}
@@ -39,21 +42,35 @@ public class IterativeDeepeningDFS implements SearchAlgorithmSolver {
 		return null;
 	}
 
-	private AStarSearchNode DLC(AStarSearchNode current, int depth, long startTime) {
-		long currentTime = System.currentTimeMillis() - startTime;
-
-		if (currentTime > timeToSolve)
+	private AStarSearchNode DLC(AStarSearchNode current, int depth, SearchDeadline deadline) {
+		if (deadline.isExpired())
 			return null;
 		if (depth == 1 && current.isGoalNode()) {
 			return current;
 		}
 		if (depth > 1) {
-			for (AStarSearchNode searchNode : current.getSuccessors()) {
-				AStarSearchNode temp = DLC(searchNode, depth - 1, startTime);
+			int[] movesBuffer = getMovesBuffer(depth);
+			int numberOfMoves = current.generateMoves(movesBuffer);
+			for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++) {
+				AStarSearchNode temp = DLC(current.getNextState(movesBuffer[moveIndex], moveIndex + 1), depth - 1,
+						deadline);
 				if (temp != null)
 					return temp;
 			}
 		}
 		return null;
 	}
+
+	// Each depth of the recursion owns a buffer, so expanding a node doesn't
+	// allocate the moves list
+	private int[] getMovesBuffer(int depth) {
+		if (depth >= movesBuffers.length) {
+			int[][] grownBuffers = new int[depth + 1][];
+			System.arraycopy(movesBuffers, 0, grownBuffers, 0, movesBuffers.length);
+			for (int i = movesBuffers.length; i < grownBuffers.length; i++)
+				grownBuffers[i] = new int[movesBuffers[0].length];
+			movesBuffers = grownBuffers;
+		}
+		return movesBuffers[depth];
+	}
 }
@@ -0,0 +1,192 @@
+package search_engine.astar;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import rush_hour.BoardState;
+
+/**
+ * Takes the maximum of several admissible heuristics, which is admissible as
+ * well and at least as informed as each of them. The components are evaluated
+ * lazily from the cheapest to the most expensive one - and a component whose
+ * upper bound can't beat the value found so far is skipped.
+ *
+ * Every thread counts, per component, the states it was evaluated on, the
+ * states where it was the first to reach the maximum and the time it took.
+ * Components are evaluated in the order given until each of them was timed by
+ * a search of the thread, from then on by their average time per evaluation.
+ */
+public class MaxOfHeuristics implements HeuristicsCalculator {
+	private final HeuristicsCalculator[] components;
+	private final ThreadLocal<ComponentsStatistics> statistics;
+
+	public MaxOfHeuristics(HeuristicsCalculator... components) {
+		if (components.length == 0)
+			throw new IllegalArgumentException("At least a single heuristic is needed");
+		this.components = components.clone();
+		statistics = ThreadLocal.withInitial(() -> new ComponentsStatistics(this.components.length));
+	}
+
+	@Override
+	public String getName() {
+		return Arrays.stream(components).map(HeuristicsCalculator::getName)
+				.collect(Collectors.joining("+", "Max(", ")"));
+	}
+
+	@Override
+	public boolean isIntegral() {
+		return Arrays.stream(components).allMatch(HeuristicsCalculator::isIntegral);
+	}
+
+	@Override
+	public double calculateValue(BoardState boardState) {
+		ComponentsStatistics threadStatistics = statistics.get();
+		double value = 0;
+		int decidingComponent = -1;
+		for (int component : threadStatistics.order) {
+			if (components[component].getUpperBound(boardState) <= value) {
+				threadStatistics.skipped[component]++;
+				continue;
+			}
+			long startTime = System.nanoTime();
+			double componentValue = components[component].calculateValue(boardState);
+			threadStatistics.nanos[component] += System.nanoTime() - startTime;
+			threadStatistics.evaluations[component]++;
+			if (componentValue > value) {
+				value = componentValue;
+				decidingComponent = component;
+			}
+		}
+		if (decidingComponent != -1)
+			threadStatistics.decided[decidingComponent]++;
+		return value;
+	}
+
+	@Override
+	public double getUpperBound(BoardState boardState) {
+		double upperBound = 0;
+		for (HeuristicsCalculator component : components)
+			upperBound = Math.max(upperBound, component.getUpperBound(boardState));
+		return upperBound;
+	}
+
+	/**
+	 * Starts counting the evaluations of a new search on the calling thread, and
+	 * orders the components by their average time measured so far
+	 */
+	public void startSearch() {
+		statistics.get().startSearch();
+	}
+
+	/**
+	 * @return for every component in the order of the constructor, the states
+	 *         where it decided the maximum, the states it was evaluated on and
+	 *         skipped and the milliseconds it took, since the calling thread
+	 *         started it's search
+	 */
+	public String getSearchStatistics() {
+		return getSearchStatistics(getSearchCounters());
+	}
+
+	/**
+	 * @return the statistics of the counters, in the format of
+	 *         getSearchStatistics()
+	 */
+	public String getSearchStatistics(SearchCounters counters) {
+		return IntStream.range(0, components.length)
+				.mapToObj(component -> components[component].getName() + " decided=" + counters.decided[component]
+						+ " evaluated=" + counters.evaluations[component] + " skipped=" + counters.skipped[component]
+						+ " ms=" + counters.nanos[component] / 1000000)
+				.collect(Collectors.joining(" | "));
+	}
+
+	/**
+	 * @return copy of the counters of the calling thread's search, for searches
+	 *         whose threads evaluate the same puzzle together and add up their
+	 *         counters
+	 */
+	public SearchCounters getSearchCounters() {
+		ComponentsStatistics threadStatistics = statistics.get();
+		return new SearchCounters(threadStatistics.decided.clone(), threadStatistics.evaluations.clone(),
+				threadStatistics.skipped.clone(), threadStatistics.nanos.clone());
+	}
+
+	public long getDecidedCount(int component) {
+		return statistics.get().decided[component];
+	}
+
+	public long getEvaluationsCount(int component) {
+		return statistics.get().evaluations[component];
+	}
+
+	public long getSkippedCount(int component) {
+		return statistics.get().skipped[component];
+	}
+
+	/**
+	 * Counters of a search per component, in the order of the constructor
+	 */
+	public static class SearchCounters {
+		private final long[] decided;
+		private final long[] evaluations;
+		private final long[] skipped;
+		private final long[] nanos;
+
+		private SearchCounters(long[] decided, long[] evaluations, long[] skipped, long[] nanos) {
+			this.decided = decided;
+			this.evaluations = evaluations;
+			this.skipped = skipped;
+			this.nanos = nanos;
+		}
+
+		public void add(SearchCounters counters) {
+			for (int component = 0; component < decided.length; component++) {
+				decided[component] += counters.decided[component];
+				evaluations[component] += counters.evaluations[component];
+				skipped[component] += counters.skipped[component];
+				nanos[component] += counters.nanos[component];
+			}
+		}
+	}
+
+	private static class ComponentsStatistics {
+		private int[] order;
+		// Counters of the current search
+		private final long[] decided;
+		private final long[] evaluations;
+		private final long[] skipped;
+		private final long[] nanos;
+		// Counters of every search of the thread, which the order is based on
+		private final long[] totalEvaluations;
+		private final long[] totalNanos;
+
+		ComponentsStatistics(int numberOfComponents) {
+			order = IntStream.range(0, numberOfComponents).toArray();
+			decided = new long[numberOfComponents];
+			evaluations = new long[numberOfComponents];
+			skipped = new long[numberOfComponents];
+			nanos = new long[numberOfComponents];
+			totalEvaluations = new long[numberOfComponents];
+			totalNanos = new long[numberOfComponents];
+		}
+
+		void startSearch() {
+			for (int component = 0; component < order.length; component++) {
+				totalEvaluations[component] += evaluations[component];
+				totalNanos[component] += nanos[component];
+			}
+			Arrays.fill(decided, 0);
+			Arrays.fill(evaluations, 0);
+			Arrays.fill(skipped, 0);
+			Arrays.fill(nanos, 0);
+			// Until every component was timed there is no order to compare by
+			if (Arrays.stream(totalEvaluations).allMatch(count -> count > 0))
+				order = IntStream.range(0, order.length).boxed()
+						.sorted(Comparator.comparingDouble(
+								component -> (double) totalNanos[component] / totalEvaluations[component]))
+						.mapToInt(Integer::intValue).toArray();
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package search_engine.astar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import rush_hour.BoardState;
+import rush_hour.Constants;
+import rush_hour.MoveGenerator;
+import rush_hour.StateCodec;
+import rush_hour.Vehicle;
+import rush_hour.VehicleLayout;
+
+/**
+ * This class is a pattern database of a puzzle - the exact solution distance of
+ * every state of an abstraction of the board which keeps only the target
+ * vehicle and a subset of the other vehicles. Removing vehicles only frees
+ * cells, so every move of the board is a move of the abstraction as well, and
+ * the abstract distance is a lower bound on the real one.
+ *
+ * Codes of the abstraction are dense, so distances are kept in a byte array
+ * indexed by the abstract state code and filled by a breadth first search
+ * backwards from all abstract goal states.
+ */
+public class PatternDatabase {
+	public static final int UNREACHABLE = 0xFF;
+
+	// Index of every pattern vehicle in the full layout and it's weight in the
+	// abstract code
+	private final int[] vehicleIndexes;
+	private final long[] weights;
+	private final byte[] distances;
+
+	/**
+	 * @param layout         - layout of the full board
+	 * @param patternIndexes - indexes of the pattern vehicles in the layout, must
+	 *                       include the target vehicle
+	 */
+	public PatternDatabase(VehicleLayout layout, int[] patternIndexes) {
+		Collection<Vehicle> patternVehicles = new ArrayList<>();
+		for (int vehicleIndex : patternIndexes)
+			patternVehicles.add(layout.toVehicle(vehicleIndex, 0));
+		VehicleLayout patternLayout = new VehicleLayout(patternVehicles);
+		StateCodec patternCodec = patternLayout.getStateCodec();
+
+		vehicleIndexes = new int[patternLayout.getNumberOfVehicles()];
+		weights = new long[vehicleIndexes.length];
+		for (int patternIndex = 0; patternIndex < vehicleIndexes.length; patternIndex++) {
+			vehicleIndexes[patternIndex] = layout.getIndexOf(patternLayout.getIdentifier(patternIndex));
+			weights[patternIndex] = patternCodec.getWeight(patternIndex);
+		}
+		distances = new byte[Math.toIntExact(patternCodec.getNumberOfCodes())];
+		search(patternLayout);
+	}
+
+	/**
+	 * @return number of codes of the abstraction of the given vehicles, which is
+	 *         the size of it's table
+	 */
+	public static long getTableSize(VehicleLayout layout, int[] patternIndexes) {
+		long tableSize = 1;
+		for (int vehicleIndex : patternIndexes)
+			tableSize *= Constants.BOARD_SIZE - layout.getSize(vehicleIndex) + 1;
+		return tableSize;
+	}
+
+	private void search(VehicleLayout patternLayout) {
+		StateCodec patternCodec = patternLayout.getStateCodec();
+		Arrays.fill(distances, (byte) UNREACHABLE);
+		int[] statesQueue = new int[distances.length];
+
+		// Abstract goal states - the target at the exit and the other vehicles at any
+		// offsets where they don't overlap
+		int targetGoalOffset = Constants.BOARD_SIZE - patternLayout.getSize(VehicleLayout.TARGET_VEHICLE_INDEX);
+		int queueSize = addGoalStates(patternLayout, VehicleLayout.TARGET_VEHICLE_INDEX + 1,
+				targetGoalOffset * patternCodec.getWeight(VehicleLayout.TARGET_VEHICLE_INDEX),
+				patternLayout.getVehicleMask(VehicleLayout.TARGET_VEHICLE_INDEX, targetGoalOffset), statesQueue, 0);
+
+		BoardState currentState = patternCodec.decode(0);
+		MoveGenerator moveGenerator = MoveGenerator.getGenerator();
+		int[] movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(patternLayout)];
+		for (int head = 0; head < queueSize; head++) {
+			int currentCode = statesQueue[head];
+			byte successorDistance = (byte) (distances[currentCode] + 1);
+			patternCodec.decodeInto(currentCode, currentState);
+			int numberOfMoves = moveGenerator.generateMoves(currentState, movesBuffer);
+			for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++) {
+				int vehicleIndex = MoveGenerator.getVehicleIndex(movesBuffer[moveIndex]);
+				int successorCode = (int) patternCodec.encodeMove(currentCode, vehicleIndex,
+						currentState.getOffset(vehicleIndex), MoveGenerator.getNewOffset(movesBuffer[moveIndex]));
+				if (distances[successorCode] == (byte) UNREACHABLE) {
+					distances[successorCode] = successorDistance;
+					statesQueue[queueSize++] = successorCode;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Places the vehicles from the given index on at every offset which doesn't
+	 * overlap the vehicles placed before them
+	 *
+	 * @return size of the queue after adding the goal states
+	 */
+	private int addGoalStates(VehicleLayout patternLayout, int vehicleIndex, long code, long occupancy,
+			int[] statesQueue, int queueSize) {
+		if (vehicleIndex == patternLayout.getNumberOfVehicles()) {
+			distances[(int) code] = 0;
+			statesQueue[queueSize] = (int) code;
+			return queueSize + 1;
+		}
+		long weight = patternLayout.getStateCodec().getWeight(vehicleIndex);
+		for (int offset = 0; offset <= Constants.BOARD_SIZE - patternLayout.getSize(vehicleIndex); offset++) {
+			long vehicleMask = patternLayout.getVehicleMask(vehicleIndex, offset);
+			if ((occupancy & vehicleMask) == 0)
+				queueSize = addGoalStates(patternLayout, vehicleIndex + 1, code + offset * weight,
+						occupancy | vehicleMask, statesQueue, queueSize);
+		}
+		return queueSize;
+	}
+
+	/**
+	 * @return lower bound on the solution distance of the board state,
+	 *         UNREACHABLE if the abstraction has no solution
+	 */
+	public int getDistance(BoardState boardState) {
+		int code = 0;
+		for (int patternIndex = 0; patternIndex < vehicleIndexes.length; patternIndex++)
+			code += boardState.getOffset(vehicleIndexes[patternIndex]) * weights[patternIndex];
+		return distances[code] & 0xFF;
+	}
+
+	public int getNumberOfVehicles() {
+		return vehicleIndexes.length;
+	}
+}
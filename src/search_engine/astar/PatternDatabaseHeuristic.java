@@ -0,0 +1,244 @@
+package search_engine.astar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import rush_hour.BoardState;
+import rush_hour.Constants;
+import rush_hour.VehicleLayout;
+
+/**
+ * Admissible heuristic which takes the max over several pattern databases of
+ * the puzzle. Patterns are picked from the first state of a layout that gets
+ * evaluated, which is the start state of the search: every pattern holds the
+ * target vehicle, the vehicles blocking it's way to the exit and the vehicles
+ * standing in the column of one of the blockers - the ones that block it from
+ * clearing the exit row.
+ *
+ * Databases are built in parallel and kept per vehicle layout, so the same
+ * instance can serve many puzzles and search threads at once. Only the
+ * maxCachedLayouts layouts used last are kept, so a long batch doesn't keep the
+ * databases of every puzzle it solved - it should be at least the number of
+ * puzzles searched at the same time. A layout's databases are built by the
+ * first thread which needs them, outside the cache's lock, while other threads
+ * which need them wait.
+ */
+public class PatternDatabaseHeuristic implements HeuristicsCalculator {
+	public static final int DEFAULT_MAX_TABLE_SIZE = 1 << 20;
+
+	public static final int DEFAULT_MAX_CACHED_LAYOUTS = 1 << 4;
+
+	private final int maxTableSize;
+	private final Map<VehicleLayout, FutureTask<LayoutPatterns>> patternsCache;
+	// Searches evaluate states of the same layout over and over, so each thread's
+	// last patterns are checked by identity before going to the cache
+	private final ThreadLocal<LayoutPatterns> lastPatterns = new ThreadLocal<>();
+
+	private static class LayoutPatterns {
+		final VehicleLayout layout;
+		final PatternDatabase[] databases;
+
+		LayoutPatterns(VehicleLayout layout, PatternDatabase[] databases) {
+			this.layout = layout;
+			this.databases = databases;
+		}
+	}
+
+	public PatternDatabaseHeuristic() {
+		this(DEFAULT_MAX_TABLE_SIZE);
+	}
+
+	public PatternDatabaseHeuristic(int maxTableSize) {
+		this(maxTableSize, DEFAULT_MAX_CACHED_LAYOUTS);
+	}
+
+	/**
+	 * @param maxTableSize      - maximal number of entries of a single pattern
+	 *                          database, vehicles which don't fit are left out
+	 * @param maxCachedLayouts_ - number of layouts whose databases are kept
+	 */
+	public PatternDatabaseHeuristic(int maxTableSize, int maxCachedLayouts_) {
+		if (maxCachedLayouts_ < 1)
+			throw new IllegalArgumentException("At least a single layout has to be cached");
+		this.maxTableSize = maxTableSize;
+		int maxCachedLayouts = maxCachedLayouts_;
+		// Access ordered, so the eldest entry is the least recently used layout
+		patternsCache = new LinkedHashMap<VehicleLayout, FutureTask<LayoutPatterns>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<VehicleLayout, FutureTask<LayoutPatterns>> eldest) {
+				return size() > maxCachedLayouts;
+			}
+		};
+	}
+
+	@Override
+	public String getName() {
+		return "PatternDatabase";
+	}
+
+	@Override
+	public boolean isIntegral() {
+		return true;
+	}
+
+	@Override
+	public double calculateValue(BoardState boardState) {
+		LayoutPatterns patterns = lastPatterns.get();
+		if (patterns == null || patterns.layout != boardState.getLayout()) {
+			patterns = getLayoutPatterns(boardState);
+			lastPatterns.set(patterns);
+		}
+		int value = 0;
+		for (PatternDatabase database : patterns.databases)
+			value = Math.max(value, database.getDistance(boardState));
+		return value;
+	}
+
+	/**
+	 * @return databases of the layout, built from the given state if the cache
+	 *         doesn't hold them
+	 */
+	private LayoutPatterns getLayoutPatterns(BoardState boardState) {
+		VehicleLayout layout = boardState.getLayout();
+		FutureTask<LayoutPatterns> patternsTask;
+		boolean isBuilder = false;
+		synchronized (patternsCache) {
+			patternsTask = patternsCache.get(layout);
+			if (patternsTask == null) {
+				patternsTask = new FutureTask<>(() -> new LayoutPatterns(layout, buildDatabases(boardState)));
+				patternsCache.put(layout, patternsTask);
+				isBuilder = true;
+			}
+		}
+		if (isBuilder)
+			patternsTask.run();
+
+		// Searches are cancelled by interrupts, but the databases are needed either way
+		boolean isInterrupted = false;
+		try {
+			while (true) {
+				try {
+					return patternsTask.get();
+				} catch (InterruptedException e) {
+					isInterrupted = true;
+				} catch (ExecutionException e) {
+					synchronized (patternsCache) {
+						patternsCache.remove(layout, patternsTask);
+					}
+					throw new IllegalStateException("Building the pattern databases failed", e.getCause());
+				}
+			}
+		} finally {
+			if (isInterrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return number of layouts whose databases are kept
+	 */
+	public int getNumberOfCachedLayouts() {
+		synchronized (patternsCache) {
+			return patternsCache.size();
+		}
+	}
+
+	private PatternDatabase[] buildDatabases(BoardState boardState) {
+		VehicleLayout layout = boardState.getLayout();
+		return getPatterns(boardState).parallelStream().map(pattern -> new PatternDatabase(layout, pattern))
+				.toArray(PatternDatabase[]::new);
+	}
+
+	/**
+	 * @return vehicle indexes of every pattern. Each pattern starts with the target,
+	 *         it's blockers and a single blocker's line, then keeps following the
+	 *         vehicles standing on the line of the vehicles it holds - as many as
+	 *         fit in the table size limit
+	 */
+	List<int[]> getPatterns(BoardState boardState) {
+		VehicleLayout layout = boardState.getLayout();
+		List<Integer> blockers = getBlockers(boardState);
+		Set<List<Integer>> patterns = new LinkedHashSet<>();
+		if (blockers.isEmpty())
+			patterns.add(Arrays.asList(VehicleLayout.TARGET_VEHICLE_INDEX));
+		for (int blocker : blockers) {
+			List<Integer> pattern = new ArrayList<>();
+			addIfFits(layout, pattern, VehicleLayout.TARGET_VEHICLE_INDEX);
+			for (int otherBlocker : blockers)
+				addIfFits(layout, pattern, otherBlocker);
+			List<Integer> chain = new ArrayList<>();
+			chain.add(blocker);
+			for (int chainIndex = 0; chainIndex < chain.size(); chainIndex++) {
+				for (int lineVehicle : getVehiclesOnLineOf(boardState, chain.get(chainIndex))) {
+					if (!chain.contains(lineVehicle) && lineVehicle != VehicleLayout.TARGET_VEHICLE_INDEX) {
+						chain.add(lineVehicle);
+						addIfFits(layout, pattern, lineVehicle);
+					}
+				}
+			}
+			pattern.sort(null);
+			patterns.add(pattern);
+		}
+
+		List<int[]> patternsIndexes = new ArrayList<>();
+		for (List<Integer> pattern : patterns)
+			patternsIndexes.add(pattern.stream().mapToInt(Integer::intValue).toArray());
+		return patternsIndexes;
+	}
+
+	private void addIfFits(VehicleLayout layout, List<Integer> pattern, int vehicleIndex) {
+		if (pattern.contains(vehicleIndex))
+			return;
+		pattern.add(vehicleIndex);
+		int[] patternIndexes = pattern.stream().mapToInt(Integer::intValue).toArray();
+		if (PatternDatabase.getTableSize(layout, patternIndexes) > maxTableSize)
+			pattern.remove(pattern.size() - 1);
+	}
+
+	/**
+	 * @return vertical vehicles which cover the exit row between the target and
+	 *         the exit, closest to the target first
+	 */
+	private static List<Integer> getBlockers(BoardState boardState) {
+		VehicleLayout layout = boardState.getLayout();
+		List<Integer> blockers = new ArrayList<>();
+		int targetVehicleEnd = boardState.getOffset(VehicleLayout.TARGET_VEHICLE_INDEX)
+				+ layout.getSize(VehicleLayout.TARGET_VEHICLE_INDEX);
+		for (int col = targetVehicleEnd; col < Constants.BOARD_SIZE; col++) {
+			int vehicleIndex = boardState.getVehicleIndexAt(Constants.EXIT_RAW, col);
+			if (vehicleIndex != -1)
+				blockers.add(vehicleIndex);
+		}
+		return blockers;
+	}
+
+	/**
+	 * @return vehicles other than the given one which cover a cell of it's line,
+	 *         closest to it first
+	 */
+	private static List<Integer> getVehiclesOnLineOf(BoardState boardState, int vehicleIndex) {
+		VehicleLayout layout = boardState.getLayout();
+		int line = layout.getFixedLine(vehicleIndex);
+		int center = boardState.getOffset(vehicleIndex);
+		List<Integer> lineVehicles = new ArrayList<>();
+		for (int distance = 1; distance < Constants.BOARD_SIZE; distance++) {
+			for (int position : new int[] { center - distance, center + layout.getSize(vehicleIndex) - 1 + distance }) {
+				int otherIndex = layout.getOrientation(vehicleIndex) == Constants.HORIZONTAL
+						? boardState.getVehicleIndexAt(line, position)
+						: boardState.getVehicleIndexAt(position, line);
+				if (otherIndex != -1 && !lineVehicles.contains(otherIndex))
+					lineVehicles.add(otherIndex);
+			}
+		}
+		return lineVehicles;
+	}
+}
@@ -0,0 +1,115 @@
+package search_engine.astar;
+
+import java.util.Arrays;
+
+/**
+ * This class stores the search nodes of AStar as a structure of arrays. A node
+ * is a slot - an index into parallel primitive arrays of encoded state, g, h,
+ * parent slot and the move which lead to it - instead of an object that keeps
+ * the whole board and it's parent chain alive.
+ */
+public class SearchNodeStore {
+	public static final int NO_PARENT = -1;
+	// Arrays of the store and the states table, with room for doubling them
+	public static final int ESTIMATED_BYTES_PER_NODE = 128;
+
+	private long[] states;
+	private int[] movesCount;
+	private double[] heuristicValues;
+	private int[] parents;
+	private int[] lastMoves;
+	private boolean[] closed;
+	private int size;
+
+	public SearchNodeStore() {
+		this(1 << 10);
+	}
+
+	public SearchNodeStore(int initialCapacity) {
+		states = new long[initialCapacity];
+		movesCount = new int[initialCapacity];
+		heuristicValues = new double[initialCapacity];
+		parents = new int[initialCapacity];
+		lastMoves = new int[initialCapacity];
+		closed = new boolean[initialCapacity];
+		size = 0;
+	}
+
+	/**
+	 * @return slot of the new node
+	 */
+	public int addNode(long state, int g, double h, int parentSlot, int lastMove) {
+		if (size == states.length)
+			grow();
+		states[size] = state;
+		movesCount[size] = g;
+		heuristicValues[size] = h;
+		parents[size] = parentSlot;
+		lastMoves[size] = lastMove;
+		closed[size] = false;
+		return size++;
+	}
+
+	private void grow() {
+		int newCapacity = states.length << 1;
+		states = Arrays.copyOf(states, newCapacity);
+		movesCount = Arrays.copyOf(movesCount, newCapacity);
+		heuristicValues = Arrays.copyOf(heuristicValues, newCapacity);
+		parents = Arrays.copyOf(parents, newCapacity);
+		lastMoves = Arrays.copyOf(lastMoves, newCapacity);
+		closed = Arrays.copyOf(closed, newCapacity);
+	}
+
+	/**
+	 * Updates the node to a cheaper path which was found to it
+	 */
+	public void updatePath(int slot, int g, int parentSlot, int lastMove) {
+		movesCount[slot] = g;
+		parents[slot] = parentSlot;
+		lastMoves[slot] = lastMove;
+	}
+
+	public long getState(int slot) {
+		return states[slot];
+	}
+
+	public int getG(int slot) {
+		return movesCount[slot];
+	}
+
+	public double getH(int slot) {
+		return heuristicValues[slot];
+	}
+
+	public double getF(int slot) {
+		return movesCount[slot] + heuristicValues[slot];
+	}
+
+	public int getParent(int slot) {
+		return parents[slot];
+	}
+
+	public int getLastMove(int slot) {
+		return lastMoves[slot];
+	}
+
+	public boolean isClosed(int slot) {
+		return closed[slot];
+	}
+
+	public void close(int slot) {
+		closed[slot] = true;
+	}
+
+	/**
+	 * Marks a closed node open again, when it was reached by a cheaper path after
+	 * it was expanded
+	 */
+	public void reopen(int slot) {
+		closed[slot] = false;
+	}
+
+	public int size() {
+		return size;
+	}
+}
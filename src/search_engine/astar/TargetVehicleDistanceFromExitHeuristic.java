@@ -1,11 +1,10 @@
 package search_engine.astar;
 
-import java.util.Collection;
-
+import rush_hour.BoardState;
 import rush_hour.Constants;
-import rush_hour.Vehicle;
+import rush_hour.VehicleLayout;
 
-public class TargetVehicleDistanceFromExitHeuristic implements HeuristicsCalculator {
+public class TargetVehicleDistanceFromExitHeuristic implements IncrementalHeuristicsCalculator {
 
 	@Override
 	public String getName() {
@@ -13,6 +12,11 @@ public class TargetVehicleDistanceFromExitHeuristic implements HeuristicsCalcula
 		return "TargetVehicleDistance";
 	}
 
+	@Override
+	public boolean isIntegral() {
+		return true;
+	}
+
 	/**
 	 * This heuristic calculates the minimum number of actions we have to perform in
 	 * order to get to goal node. our goal node is a node which the target vehicle
@@ -20,14 +24,24 @@ public class TargetVehicleDistanceFromExitHeuristic implements HeuristicsCalcula
 	 * movements to perform is at least the distance of the target vehicle from the
 	 * exit
 	 * 
-	 * @param redVehicle - target vehicle
+	 * @param boardState - current state of the board
 	 * @return (Horizontal) distance of targetVehicle from exit
 	 */
 	@Override
-	public double calculateValue(Collection<Vehicle> vehicles) {
-		// TODO Auto-generated method stub
-		return (Constants.BOARD_SIZE - 1)
-				- (int) (vehicles.stream().filter(v -> v.getIdentifier() == Constants.TARGET_VEHICLE_IDENTIFIER)
-						.findFirst().get().getEndPos().getY());
+	public double calculateValue(BoardState boardState) {
+		return (Constants.BOARD_SIZE - 1) - (boardState.getOffset(VehicleLayout.TARGET_VEHICLE_INDEX)
+				+ boardState.getLayout().getSize(VehicleLayout.TARGET_VEHICLE_INDEX) - 1);
+	}
+
+	@Override
+	public double calculateValue(BoardState boardState, int movedVehicle, int oldOffset, double parentValue) {
+		if (movedVehicle != VehicleLayout.TARGET_VEHICLE_INDEX)
+			return parentValue;
+		return parentValue - (boardState.getOffset(movedVehicle) - oldOffset);
+	}
+
+	@Override
+	public double getUpperBound(BoardState boardState) {
+		return calculateValue(boardState);
 	}
 }
@@ -0,0 +1,121 @@
+package search_engine.distance_database;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import rush_hour.VehicleLayout;
+
+/**
+ * This class is a read only, memory mapped table of the solution distance of
+ * every solvable state of a single VehicleLayout, keyed by the state code of
+ * the layout's StateCodec. The table is an open addressing hash table written
+ * by DistanceDatabaseGenerator, so a lookup is a hash and a few probes in the
+ * mapped file.
+ *
+ * File layout (big endian):
+ *
+ * <pre>
+ * int MAGIC, int VERSION
+ * int numberOfVehicles, then per vehicle: char identifier, byte orientation, byte size, byte fixedLine
+ * int numberOfStates, int maxDistance, int capacity
+ * long[capacity] state codes (EMPTY_CODE for empty cells)
+ * byte[capacity] distances (unsigned)
+ * </pre>
+ */
+public class DistanceDatabase {
+	public static final int MAGIC = 0x52484442;
+	public static final int VERSION = 1;
+	public static final String FILE_EXTENSION = ".rhdb";
+	public static final int UNSOLVABLE = -1;
+	static final long EMPTY_CODE = -1L;
+
+	private final MappedByteBuffer buffer;
+	private final int numberOfStates;
+	private final int maxDistance;
+	private final int mask;
+	private final int codesPosition;
+	private final int distancesPosition;
+
+	private DistanceDatabase(MappedByteBuffer buffer, VehicleLayout layout) {
+		this.buffer = buffer;
+		if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+			throw new IllegalStateException("Not a distance database of this version");
+		if (!readLayoutMatches(layout))
+			throw new IllegalStateException("Distance database was generated for another layout");
+		numberOfStates = buffer.getInt();
+		maxDistance = buffer.getInt();
+		int capacity = buffer.getInt();
+		mask = capacity - 1;
+		codesPosition = buffer.position();
+		distancesPosition = codesPosition + capacity * Long.BYTES;
+	}
+
+	/**
+	 * Maps a database file which was generated for the given layout
+	 */
+	public static DistanceDatabase open(Path databaseFile, VehicleLayout layout) throws IOException {
+		try (FileChannel channel = FileChannel.open(databaseFile, StandardOpenOption.READ)) {
+			// The mapping stays valid after the channel is closed
+			return new DistanceDatabase(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), layout);
+		}
+	}
+
+	/**
+	 * @return name of the database file of the layout, every vehicle adds it's
+	 *         identifier, orientation, size and line
+	 */
+	public static String getFileName(VehicleLayout layout) {
+		StringBuilder fileName = new StringBuilder();
+		for (int vehicleIndex = 0; vehicleIndex < layout.getNumberOfVehicles(); vehicleIndex++)
+			fileName.append(layout.getIdentifier(vehicleIndex)).append(layout.getOrientation(vehicleIndex) ? 'H' : 'V')
+					.append(layout.getSize(vehicleIndex)).append(layout.getFixedLine(vehicleIndex));
+		return fileName.append(FILE_EXTENSION).toString();
+	}
+
+	private boolean readLayoutMatches(VehicleLayout layout) {
+		int numberOfVehicles = buffer.getInt();
+		boolean matches = numberOfVehicles == layout.getNumberOfVehicles();
+		for (int vehicleIndex = 0; vehicleIndex < numberOfVehicles; vehicleIndex++) {
+			char identifier = buffer.getChar();
+			boolean orientation = buffer.get() != 0;
+			int size = buffer.get();
+			int fixedLine = buffer.get();
+			matches = matches && identifier == layout.getIdentifier(vehicleIndex)
+					&& orientation == layout.getOrientation(vehicleIndex) && size == layout.getSize(vehicleIndex)
+					&& fixedLine == layout.getFixedLine(vehicleIndex);
+		}
+		return matches;
+	}
+
+	static int hash(long code) {
+		long mixed = code * 0x9E3779B97F4A7C15L;
+		return (int) (mixed ^ (mixed >>> 32));
+	}
+
+	/**
+	 * @return number of moves of the shortest solution from the state,
+	 *         UNSOLVABLE if the goal can't be reached from it
+	 */
+	public int getDistance(long stateCode) {
+		int cell = hash(stateCode) & mask;
+		while (true) {
+			long code = buffer.getLong(codesPosition + cell * Long.BYTES);
+			if (code == stateCode)
+				return buffer.get(distancesPosition + cell) & 0xFF;
+			if (code == EMPTY_CODE)
+				return UNSOLVABLE;
+			cell = (cell + 1) & mask;
+		}
+	}
+
+	public int getNumberOfStates() {
+		return numberOfStates;
+	}
+
+	public int getMaxDistance() {
+		return maxDistance;
+	}
+}
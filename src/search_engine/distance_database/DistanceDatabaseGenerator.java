@@ -0,0 +1,197 @@
+package search_engine.distance_database;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import rush_hour.BoardState;
+import rush_hour.Constants;
+import rush_hour.GameUtils;
+import rush_hour.Main;
+import rush_hour.MoveGenerator;
+import rush_hour.RawPuzzleObject;
+import rush_hour.StateCodec;
+import rush_hour.VehicleLayout;
+import search_engine.LongIntHashMap;
+
+/**
+ * This class builds the DistanceDatabase of a layout by retrograde breadth
+ * first search. All goal states of the layout - the target vehicle at the exit
+ * and every placement of the other vehicles that doesn't overlap - get distance
+ * 0, and the search expands backwards from all of them at once. Rush Hour moves
+ * can be undone, so the predecessors of a state are it's successors, and every
+ * state the search reaches gets the length of it's shortest solution.
+ *
+ * Usage: DistanceDatabaseGenerator [puzzles file] [database directory]
+ */
+public class DistanceDatabaseGenerator {
+	private static Logger LOGGER = Logger.getLogger(Main.class.getName());
+	public static final String DEFAULT_DATABASE_DIRECTORY = "distanceDatabase";
+	// Keeps the hash table of the file at most half full
+	private static final int TABLE_SPREAD = 2;
+
+	private final VehicleLayout layout;
+	private final StateCodec codec;
+	private final int maxNumberOfStates;
+	private LongIntHashMap distances;
+	private long[] statesQueue;
+	private int queueSize;
+	private int maxDistance;
+
+	/**
+	 * @param maxNumberOfStates - the generation fails if the layout has more
+	 *                          solvable states
+	 */
+	public DistanceDatabaseGenerator(VehicleLayout layout, int maxNumberOfStates) {
+		this.layout = layout;
+		codec = layout.getStateCodec();
+		this.maxNumberOfStates = maxNumberOfStates;
+	}
+
+	public DistanceDatabaseGenerator(VehicleLayout layout) {
+		this(layout, 1 << 26);
+	}
+
+	public static void main(String[] args) throws IOException {
+		ArrayList<String> rawPuzzles = GameUtils.getRawPuzzlesFromInputFile(args);
+		Path databaseDirectory = Paths.get(args.length > 1 ? args[1] : DEFAULT_DATABASE_DIRECTORY);
+		Set<VehicleLayout> generatedLayouts = new HashSet<>();
+		int puzzleID = 1;
+		for (String rawPuzzle : rawPuzzles) {
+			VehicleLayout layout = BoardState.fromVehicles(new RawPuzzleObject(rawPuzzle, puzzleID++).getVehicles())
+					.getLayout();
+			if (generatedLayouts.add(layout)) {
+				long startTime = System.currentTimeMillis();
+				DistanceDatabaseGenerator generator = new DistanceDatabaseGenerator(layout);
+				Path databaseFile = generator.generate(databaseDirectory);
+				System.out.println(databaseFile.getFileName() + ": " + generator.queueSize + " states, max distance "
+						+ generator.maxDistance + ", " + (System.currentTimeMillis() - startTime) + " ms");
+			}
+		}
+	}
+
+	/**
+	 * Generates the database of the layout into the directory, the file is
+	 * written aside and moved into place only when it's complete
+	 *
+	 * @return path of the database file
+	 */
+	public Path generate(Path databaseDirectory) throws IOException {
+		search();
+		Files.createDirectories(databaseDirectory);
+		Path databaseFile = databaseDirectory.resolve(DistanceDatabase.getFileName(layout));
+		Path temporaryFile = Files.createTempFile(databaseDirectory, DistanceDatabase.getFileName(layout), ".tmp");
+		try (OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+			write(new DataOutputStream(new BufferedOutputStream(outputStream, 1 << 16)));
+		}
+		Files.move(temporaryFile, databaseFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		LOGGER.info("Distance database written to " + databaseFile);
+		return databaseFile;
+	}
+
+	private void search() {
+		distances = new LongIntHashMap(1 << 16);
+		statesQueue = new long[1 << 16];
+		queueSize = 0;
+		maxDistance = 0;
+
+		byte[] offsets = new byte[layout.getNumberOfVehicles()];
+		offsets[VehicleLayout.TARGET_VEHICLE_INDEX] = (byte) (Constants.BOARD_SIZE
+				- layout.getSize(VehicleLayout.TARGET_VEHICLE_INDEX));
+		addGoalStates(offsets, VehicleLayout.TARGET_VEHICLE_INDEX + 1,
+				layout.getVehicleMask(VehicleLayout.TARGET_VEHICLE_INDEX, offsets[VehicleLayout.TARGET_VEHICLE_INDEX]));
+
+		BoardState currentState = codec.decode(statesQueue[0]);
+		MoveGenerator moveGenerator = MoveGenerator.getGenerator();
+		int[] movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(layout)];
+		for (int head = 0; head < queueSize; head++) {
+			long currentCode = statesQueue[head];
+			int successorDistance = distances.get(currentCode) + 1;
+			codec.decodeInto(currentCode, currentState);
+			int numberOfMoves = moveGenerator.generateMoves(currentState, movesBuffer);
+			for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++) {
+				int vehicleIndex = MoveGenerator.getVehicleIndex(movesBuffer[moveIndex]);
+				long successorCode = codec.encodeMove(currentCode, vehicleIndex, currentState.getOffset(vehicleIndex),
+						MoveGenerator.getNewOffset(movesBuffer[moveIndex]));
+				if (!distances.containsKey(successorCode)) {
+					addState(successorCode, successorDistance);
+					maxDistance = successorDistance;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Places the vehicles from the given index on, in every offset that doesn't
+	 * overlap the vehicles placed before them
+	 */
+	private void addGoalStates(byte[] offsets, int vehicleIndex, long occupancy) {
+		if (vehicleIndex == offsets.length) {
+			addState(codec.encode(new BoardState(layout, offsets.clone())), 0);
+			return;
+		}
+		int numberOfOffsets = Constants.BOARD_SIZE - layout.getSize(vehicleIndex) + 1;
+		for (int offset = 0; offset < numberOfOffsets; offset++) {
+			long vehicleMask = layout.getVehicleMask(vehicleIndex, offset);
+			if ((occupancy & vehicleMask) == 0) {
+				offsets[vehicleIndex] = (byte) offset;
+				addGoalStates(offsets, vehicleIndex + 1, occupancy | vehicleMask);
+			}
+		}
+	}
+
+	private void addState(long code, int distance) {
+		if (queueSize == maxNumberOfStates)
+			throw new IllegalStateException("Layout has more than " + maxNumberOfStates + " solvable states");
+		if (distance > 0xFF)
+			throw new IllegalStateException("Distance " + distance + " doesn't fit in the database");
+		if (queueSize == statesQueue.length)
+			statesQueue = Arrays.copyOf(statesQueue, queueSize << 1);
+		statesQueue[queueSize++] = code;
+		distances.put(code, distance);
+	}
+
+	private void write(DataOutputStream output) throws IOException {
+		int capacity = Integer.highestOneBit(Math.max(1, queueSize * TABLE_SPREAD - 1)) << 1;
+		if ((long) capacity * (Long.BYTES + 1) > Integer.MAX_VALUE)
+			throw new IllegalStateException("Layout has too many states to be mapped as a single file");
+		long[] codes = new long[capacity];
+		byte[] tableDistances = new byte[capacity];
+		Arrays.fill(codes, DistanceDatabase.EMPTY_CODE);
+		int mask = capacity - 1;
+		for (int state = 0; state < queueSize; state++) {
+			int cell = DistanceDatabase.hash(statesQueue[state]) & mask;
+			while (codes[cell] != DistanceDatabase.EMPTY_CODE)
+				cell = (cell + 1) & mask;
+			codes[cell] = statesQueue[state];
+			tableDistances[cell] = (byte) distances.get(statesQueue[state]);
+		}
+
+		output.writeInt(DistanceDatabase.MAGIC);
+		output.writeInt(DistanceDatabase.VERSION);
+		output.writeInt(layout.getNumberOfVehicles());
+		for (int vehicleIndex = 0; vehicleIndex < layout.getNumberOfVehicles(); vehicleIndex++) {
+			output.writeChar(layout.getIdentifier(vehicleIndex));
+			output.writeByte(layout.getOrientation(vehicleIndex) ? 1 : 0);
+			output.writeByte(layout.getSize(vehicleIndex));
+			output.writeByte(layout.getFixedLine(vehicleIndex));
+		}
+		output.writeInt(queueSize);
+		output.writeInt(maxDistance);
+		output.writeInt(capacity);
+		for (long code : codes)
+			output.writeLong(code);
+		output.write(tableDistances);
+		output.flush();
+	}
+}
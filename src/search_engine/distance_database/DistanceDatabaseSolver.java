@@ -0,0 +1,142 @@
+package search_engine.distance_database;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import rush_hour.BoardState;
+import rush_hour.MoveGenerator;
+import rush_hour.Movement;
+import rush_hour.StateCodec;
+import rush_hour.VehicleLayout;
+import search_engine.SearchAlgorithmSolver;
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.AStarSolutionStatisticsData;
+import search_engine.astar.SolvedPuzzle;
+
+/**
+ * This class solves puzzles out of their layout's DistanceDatabase - the
+ * distance of the start state is looked up, and every step moves to a
+ * successor which is one move closer to the goal. Databases of layouts which
+ * weren't generated yet are generated on first use, and only the databases of
+ * the layouts used last are kept mapped.
+ */
+public class DistanceDatabaseSolver implements SearchAlgorithmSolver {
+	public static final String NAME = "DistanceDatabase";
+	public static final int DEFAULT_MAX_OPEN_DATABASES = 1 << 2;
+
+	private final Path databaseDirectory;
+	private final Map<VehicleLayout, DistanceDatabase> databases;
+
+	public DistanceDatabaseSolver(String databaseDirectory) {
+		this(databaseDirectory, DEFAULT_MAX_OPEN_DATABASES);
+	}
+
+	/**
+	 * @param maxOpenDatabases_ - number of layouts whose databases are kept mapped
+	 */
+	public DistanceDatabaseSolver(String databaseDirectory, int maxOpenDatabases_) {
+		if (maxOpenDatabases_ < 1)
+			throw new IllegalArgumentException("At least a single database has to be kept open");
+		this.databaseDirectory = Paths.get(databaseDirectory);
+		int maxOpenDatabases = maxOpenDatabases_;
+		// Access ordered, so the eldest entry is the least recently used layout. A
+		// dropped database is unmapped once it's collected
+		databases = new LinkedHashMap<VehicleLayout, DistanceDatabase>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<VehicleLayout, DistanceDatabase> eldest) {
+				return size() > maxOpenDatabases;
+			}
+		};
+	}
+
+	public DistanceDatabaseSolver() {
+		this(DistanceDatabaseGenerator.DEFAULT_DATABASE_DIRECTORY);
+	}
+
+	@Override
+	public SolvedPuzzle getBestSolution(AStarSearchNode start) {
+		AStarSolutionStatisticsData solutionStatisticsData = new AStarSolutionStatisticsData(start.getPuzzleID(), NAME);
+		BoardState currentState = new BoardState(start.getBoardState());
+		VehicleLayout layout = currentState.getLayout();
+		StateCodec codec = layout.getStateCodec();
+		DistanceDatabase database = getDatabase(layout);
+
+		long currentCode = codec.encode(currentState);
+		int distance = database.getDistance(currentCode);
+		if (distance == DistanceDatabase.UNSOLVABLE) {
+			solutionStatisticsData.calculateFinalData();
+			System.out.println("No Solution for puzzle: " + start.getPuzzleID());
+			return new SolvedPuzzle(solutionStatisticsData);
+		}
+
+		StringBuilder puzzleSolution = new StringBuilder();
+		MoveGenerator moveGenerator = MoveGenerator.getGenerator();
+		int[] movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(layout)];
+		solutionStatisticsData.increaseNumberOfNodes();
+		solutionStatisticsData.increaseHeuristicCounter(distance);
+		for (int depth = 0; depth < distance; depth++) {
+			int numberOfMoves = moveGenerator.generateMoves(currentState, movesBuffer);
+			boolean movedCloser = false;
+			for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++) {
+				int vehicleIndex = MoveGenerator.getVehicleIndex(movesBuffer[moveIndex]);
+				int oldOffset = currentState.getOffset(vehicleIndex);
+				int newOffset = MoveGenerator.getNewOffset(movesBuffer[moveIndex]);
+				long successorCode = codec.encodeMove(currentCode, vehicleIndex, oldOffset, newOffset);
+				int successorDistance = database.getDistance(successorCode);
+				solutionStatisticsData.increaseNumberOfNodes();
+				solutionStatisticsData.increaseHeuristicCounter(successorDistance);
+				// Every state but the goal has a successor one move closer
+				if (successorDistance == distance - depth - 1) {
+					currentState.moveVehicle(vehicleIndex, newOffset);
+					currentCode = successorCode;
+					puzzleSolution.append(
+							new Movement(layout.getIdentifier(vehicleIndex), layout.getOrientation(vehicleIndex),
+									oldOffset, newOffset));
+					movedCloser = true;
+					break;
+				}
+			}
+			if (!movedCloser)
+				throw new IllegalStateException("State at distance " + (distance - depth) + " of puzzle "
+						+ start.getPuzzleID() + " has no successor one move closer, it's distance database is corrupt");
+		}
+
+		solutionStatisticsData.setNumberOfPassedMoves(distance);
+		solutionStatisticsData.setMinDepthIfNeeded(distance);
+		solutionStatisticsData.setMaxDepthIfNeeded(distance);
+		solutionStatisticsData.setBestFIfNeeded(distance);
+		solutionStatisticsData.setBranchingFactor(solutionStatisticsData.getNumberOfNodes());
+		solutionStatisticsData.setPenetrance(solutionStatisticsData.getNumberOfNodes());
+		solutionStatisticsData.calculateFinalData();
+		System.out.println("Solved puzzle!");
+		solutionStatisticsData.setPuzzleSolution(puzzleSolution.append(" END").toString());
+		return new SolvedPuzzle(solutionStatisticsData);
+	}
+
+	private DistanceDatabase getDatabase(VehicleLayout layout) {
+		DistanceDatabase database = databases.get(layout);
+		if (database != null)
+			return database;
+		try {
+			Path databaseFile = databaseDirectory.resolve(DistanceDatabase.getFileName(layout));
+			if (!Files.exists(databaseFile))
+				databaseFile = new DistanceDatabaseGenerator(layout).generate(databaseDirectory);
+			database = DistanceDatabase.open(databaseFile, layout);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		databases.put(layout, database);
+		return database;
+	}
+
+	public int getNumberOfOpenDatabases() {
+		return databases.size();
+	}
+}
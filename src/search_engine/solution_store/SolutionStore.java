@@ -0,0 +1,416 @@
+package search_engine.solution_store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import rush_hour.BinaryPuzzleCodec;
+import rush_hour.BoardState;
+
+/**
+ * This class keeps the shortest solutions of solved puzzles on disk, so a
+ * puzzle which was solved by a former run isn't searched again. Puzzles are
+ * keyed by their canonical record of BinaryPuzzleCodec, and the moves are kept
+ * by the canonical order of the vehicles - a puzzle whose vehicles are named
+ * differently gets the same solution, with it's own names.
+ *
+ * Solutions are appended to a log, and a memory mapped open addressing index
+ * maps the hash of a key to the position of it's entry in the log. The index
+ * records the log length it covers, and it's rebuilt from the log when they
+ * differ - after a crash, an entry cut in the middle is dropped. A solution of
+ * a key which has one already is appended only if it's shorter, so the log
+ * keeps entries nothing refers to until it's compacted.
+ *
+ * Log layout (big endian): int LOG_MAGIC, int VERSION, then per entry:
+ * byte[CANONICAL_RECORD_SIZE] key, short numberOfMoves, byte[numberOfMoves]
+ *
+ * Index layout: int INDEX_MAGIC, int VERSION, int capacity, int size, int
+ * numberOfLogEntries, long logLength, then per cell: long keyHash, long log
+ * position + 1 (0 for an empty cell)
+ *
+ * Usage: SolutionStore [store directory] - compacts the store
+ */
+public class SolutionStore implements Closeable {
+	public static final String NAME = "SolutionStore";
+	public static final String DEFAULT_STORE_DIRECTORY = "solutionStore";
+	static final String LOG_FILE_NAME = "solutions.log";
+	static final String INDEX_FILE_NAME = "solutions.idx";
+	private static final int LOG_MAGIC = 0x52485353;
+	private static final int INDEX_MAGIC = 0x52485349;
+	private static final int VERSION = 1;
+	private static final int LOG_HEADER_SIZE = 2 * Integer.BYTES;
+	private static final int ENTRY_HEADER_SIZE = BinaryPuzzleCodec.CANONICAL_RECORD_SIZE + Short.BYTES;
+	private static final int INDEX_HEADER_SIZE = 5 * Integer.BYTES + Long.BYTES;
+	private static final int CAPACITY_POSITION = 2 * Integer.BYTES;
+	private static final int SIZE_POSITION = 3 * Integer.BYTES;
+	private static final int LOG_ENTRIES_POSITION = 4 * Integer.BYTES;
+	private static final int LOG_LENGTH_POSITION = 5 * Integer.BYTES;
+	private static final int CELL_SIZE = 2 * Long.BYTES;
+	private static final int MIN_CAPACITY = 1 << 10;
+	private static final int NOT_FOUND = -1;
+
+	private final Path directory;
+	private FileChannel log;
+	private long logLength;
+	private int numberOfLogEntries;
+	private FileChannel indexChannel;
+	private MappedByteBuffer index;
+	private int mask;
+	private int size;
+	private long hits;
+	private long misses;
+	private final ByteBuffer keyBuffer = ByteBuffer.allocate(BinaryPuzzleCodec.CANONICAL_RECORD_SIZE);
+	private final ByteBuffer entryHeaderBuffer = ByteBuffer.allocate(ENTRY_HEADER_SIZE);
+
+	private SolutionStore(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Opens the store in the directory, creating it if it doesn't exist
+	 */
+	public static SolutionStore open(Path directory) throws IOException {
+		SolutionStore store = new SolutionStore(directory);
+		Files.createDirectories(directory);
+		store.openLog();
+		store.openIndex();
+		return store;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Path directory = Paths.get(args.length > 0 ? args[0] : DEFAULT_STORE_DIRECTORY);
+		try (SolutionStore store = open(directory)) {
+			long logLengthBefore = store.logLength;
+			int droppedEntries = store.compact();
+			System.out.println(store.size() + " solutions, dropped " + droppedEntries + " entries, log "
+					+ logLengthBefore + " -> " + store.logLength + " bytes");
+		}
+	}
+
+	private void openLog() throws IOException {
+		log = FileChannel.open(directory.resolve(LOG_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		if (log.size() == 0) {
+			ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE).putInt(LOG_MAGIC).putInt(VERSION);
+			header.flip();
+			writeFully(header, 0);
+		} else {
+			ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+			if (!readFully(header, 0) || header.getInt(0) != LOG_MAGIC || header.getInt(Integer.BYTES) != VERSION)
+				throw new IOException(directory.resolve(LOG_FILE_NAME) + " is not a solutions log of this version");
+		}
+		logLength = log.size();
+	}
+
+	/**
+	 * The header is read before the index is mapped, so a stale index can still be
+	 * cut - a mapped file can't be cut on every platform
+	 */
+	private void openIndex() throws IOException {
+		indexChannel = FileChannel.open(directory.resolve(INDEX_FILE_NAME), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_SIZE);
+		for (int readBytes = 0; header.hasRemaining() && readBytes != -1;)
+			readBytes = indexChannel.read(header, header.position());
+		int capacity = header.getInt(CAPACITY_POSITION);
+		if (!header.hasRemaining() && header.getInt(0) == INDEX_MAGIC && header.getInt(Integer.BYTES) == VERSION
+				&& header.getLong(LOG_LENGTH_POSITION) == logLength && Integer.bitCount(capacity) == 1
+				&& indexChannel.size() == INDEX_HEADER_SIZE + (long) capacity * CELL_SIZE) {
+			index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+			mask = capacity - 1;
+			size = header.getInt(SIZE_POSITION);
+			numberOfLogEntries = header.getInt(LOG_ENTRIES_POSITION);
+			return;
+		}
+		indexChannel.truncate(0);
+		rebuildIndex(MIN_CAPACITY);
+	}
+
+	/**
+	 * Builds the index of every complete entry of the log, dropping an entry cut
+	 * by a crash at it's end. The index is rebuilt in place, since a mapped file
+	 * can't be cut or replaced on every platform - the capacity only grows while
+	 * the store is open, and the former cells are cleared first.
+	 */
+	private void rebuildIndex(int minCapacity) throws IOException {
+		numberOfLogEntries = countLogEntries();
+		int capacity = MIN_CAPACITY;
+		while (capacity < minCapacity || capacity < 2 * numberOfLogEntries)
+			capacity <<= 1;
+		long formerIndexSize = indexChannel.size();
+		index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER_SIZE + (long) capacity * CELL_SIZE);
+		// The covered log length is set last, so a crash in the middle leaves an
+		// index which is rebuilt again
+		index.putInt(0, INDEX_MAGIC).putInt(Integer.BYTES, VERSION).putInt(CAPACITY_POSITION, capacity)
+				.putLong(LOG_LENGTH_POSITION, -1);
+		for (int cellPosition = INDEX_HEADER_SIZE; cellPosition < formerIndexSize; cellPosition += Long.BYTES)
+			index.putLong(cellPosition, 0);
+		mask = capacity - 1;
+		size = 0;
+		long position = LOG_HEADER_SIZE;
+		while (position < logLength) {
+			readEntryHeader(position);
+			byte[] key = getEntryKey();
+			int numberOfMoves = getEntryNumberOfMoves();
+			index(key, position, numberOfMoves);
+			position += ENTRY_HEADER_SIZE + numberOfMoves;
+		}
+		writeIndexHeader();
+	}
+
+	/**
+	 * @return number of complete entries in the log, the log is cut after them
+	 */
+	private int countLogEntries() throws IOException {
+		int numberOfEntries = 0;
+		long position = LOG_HEADER_SIZE;
+		while (position + ENTRY_HEADER_SIZE <= logLength) {
+			readEntryHeader(position);
+			long entryEnd = position + ENTRY_HEADER_SIZE + getEntryNumberOfMoves();
+			if (getEntryNumberOfMoves() < 0 || entryEnd > logLength)
+				break;
+			position = entryEnd;
+			numberOfEntries++;
+		}
+		if (position != logLength) {
+			log.truncate(position);
+			logLength = position;
+		}
+		return numberOfEntries;
+	}
+
+	private void readEntryHeader(long position) throws IOException {
+		entryHeaderBuffer.clear();
+		if (!readFully(entryHeaderBuffer, position))
+			throw new IOException("Solutions log ended in the middle of an entry");
+	}
+
+	// Key and number of moves of the entry header read last
+	private byte[] getEntryKey() {
+		return Arrays.copyOf(entryHeaderBuffer.array(), BinaryPuzzleCodec.CANONICAL_RECORD_SIZE);
+	}
+
+	private int getEntryNumberOfMoves() {
+		return entryHeaderBuffer.getShort(BinaryPuzzleCodec.CANONICAL_RECORD_SIZE);
+	}
+
+	private void writeIndexHeader() {
+		index.putInt(SIZE_POSITION, size).putInt(LOG_ENTRIES_POSITION, numberOfLogEntries)
+				.putLong(LOG_LENGTH_POSITION, logLength);
+	}
+
+	private static long hash(byte[] key) {
+		long hash = 0xCBF29CE484222325L;
+		for (byte keyByte : key)
+			hash = (hash ^ (keyByte & 0xFF)) * 0x100000001B3L;
+		return hash;
+	}
+
+	private static int getCell(long hash) {
+		long mixed = hash * 0x9E3779B97F4A7C15L;
+		return (int) (mixed ^ (mixed >>> 32));
+	}
+
+	private int getCellPosition(int cell) {
+		return INDEX_HEADER_SIZE + cell * CELL_SIZE;
+	}
+
+	/**
+	 * @return cell of the key, or NOT_FOUND with the empty cell where it would be
+	 *         kept in emptyCell[0]
+	 */
+	private int findCell(byte[] key, long hash, int[] emptyCell) throws IOException {
+		for (int cell = getCell(hash) & mask;; cell = (cell + 1) & mask) {
+			long storedPosition = index.getLong(getCellPosition(cell) + Long.BYTES);
+			if (storedPosition == 0) {
+				emptyCell[0] = cell;
+				return NOT_FOUND;
+			}
+			if (index.getLong(getCellPosition(cell)) == hash) {
+				readEntryHeader(storedPosition - 1);
+				if (Arrays.equals(key, getEntryKey()))
+					return cell;
+			}
+		}
+	}
+
+	/**
+	 * Points the key's cell at the log entry, unless the key has a solution which
+	 * isn't longer
+	 */
+	private void index(byte[] key, long position, int numberOfMoves) throws IOException {
+		long hash = hash(key);
+		int[] emptyCell = new int[1];
+		int cell = findCell(key, hash, emptyCell);
+		if (cell == NOT_FOUND) {
+			cell = emptyCell[0];
+			size++;
+		} else if (getNumberOfMoves(cell) <= numberOfMoves) {
+			return;
+		}
+		index.putLong(getCellPosition(cell), hash).putLong(getCellPosition(cell) + Long.BYTES, position + 1);
+	}
+
+	private int getNumberOfMoves(int cell) throws IOException {
+		readEntryHeader(index.getLong(getCellPosition(cell) + Long.BYTES) - 1);
+		return getEntryNumberOfMoves();
+	}
+
+	private byte[] getKey(BoardState puzzle, int[] canonicalOrder) {
+		keyBuffer.clear();
+		BinaryPuzzleCodec.encodeCanonicalPuzzle(puzzle, canonicalOrder, keyBuffer);
+		return keyBuffer.array().clone();
+	}
+
+	/**
+	 * @return moves of the stored solution of the puzzle as encoded by
+	 *         BinaryPuzzleCodec for it's layout, null if it has none
+	 */
+	public synchronized byte[] getSolution(BoardState puzzle) throws IOException {
+		int[] canonicalOrder = BinaryPuzzleCodec.getCanonicalOrder(puzzle);
+		byte[] key = getKey(puzzle, canonicalOrder);
+		int cell = findCell(key, hash(key), new int[1]);
+		if (cell == NOT_FOUND) {
+			misses++;
+			return null;
+		}
+		hits++;
+		long position = index.getLong(getCellPosition(cell) + Long.BYTES) - 1;
+		readEntryHeader(position);
+		ByteBuffer moves = ByteBuffer.allocate(getEntryNumberOfMoves());
+		if (!readFully(moves, position + ENTRY_HEADER_SIZE))
+			throw new IOException("Solutions log ended in the middle of an entry");
+		byte[] solution = moves.array();
+		for (int moveIndex = 0; moveIndex < solution.length; moveIndex++)
+			solution[moveIndex] = BinaryPuzzleCodec.withVehicleIndex(solution[moveIndex],
+					canonicalOrder[BinaryPuzzleCodec.getVehicleIndex(solution[moveIndex])]);
+		return solution;
+	}
+
+	/**
+	 * Stores a shortest solution of the puzzle, unless it has one which isn't
+	 * longer
+	 *
+	 * @param solution - moves as encoded by BinaryPuzzleCodec for the puzzle's
+	 *                 layout
+	 * @return true if the solution was stored
+	 */
+	public synchronized boolean putSolution(BoardState puzzle, byte[] solution) throws IOException {
+		if (solution.length > Short.MAX_VALUE)
+			throw new IllegalArgumentException("Solution of " + solution.length + " moves is too long");
+		int[] canonicalOrder = BinaryPuzzleCodec.getCanonicalOrder(puzzle);
+		byte[] key = getKey(puzzle, canonicalOrder);
+		int cell = findCell(key, hash(key), new int[1]);
+		if (cell != NOT_FOUND && getNumberOfMoves(cell) <= solution.length)
+			return false;
+
+		int[] canonicalPositions = new int[canonicalOrder.length];
+		for (int position = 0; position < canonicalOrder.length; position++)
+			canonicalPositions[canonicalOrder[position]] = position;
+		ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + solution.length);
+		entry.put(key).putShort((short) solution.length);
+		for (byte move : solution)
+			entry.put(BinaryPuzzleCodec.withVehicleIndex(move,
+					canonicalPositions[BinaryPuzzleCodec.getVehicleIndex(move)]));
+		entry.flip();
+		long position = logLength;
+		writeFully(entry, position);
+		logLength += entry.capacity();
+		numberOfLogEntries++;
+
+		// Keeps the index at most half full
+		if (2 * (size + 1) > mask + 1)
+			rebuildIndex(2 * (mask + 1));
+		else
+			index(key, position, solution.length);
+		writeIndexHeader();
+		return true;
+	}
+
+	/**
+	 * Rewrites the log with only the entries the index refers to. The new log is
+	 * written aside and moved into place only when it's complete.
+	 *
+	 * @return number of entries which were dropped
+	 */
+	public synchronized int compact() throws IOException {
+		int droppedEntries = numberOfLogEntries - size;
+		Path compactedLog = Files.createTempFile(directory, LOG_FILE_NAME, ".tmp");
+		try (FileChannel compacted = FileChannel.open(compactedLog, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE).putInt(LOG_MAGIC).putInt(VERSION);
+			header.flip();
+			compacted.write(header);
+			for (int cell = 0; cell <= mask; cell++) {
+				long storedPosition = index.getLong(getCellPosition(cell) + Long.BYTES);
+				if (storedPosition == 0)
+					continue;
+				readEntryHeader(storedPosition - 1);
+				ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + getEntryNumberOfMoves());
+				if (!readFully(entry, storedPosition - 1))
+					throw new IOException("Solutions log ended in the middle of an entry");
+				entry.flip();
+				while (entry.hasRemaining())
+					compacted.write(entry);
+			}
+			compacted.force(true);
+		}
+		log.close();
+		Files.move(compactedLog, directory.resolve(LOG_FILE_NAME), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		openLog();
+		rebuildIndex(mask + 1);
+		return droppedEntries;
+	}
+
+	private boolean readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int readBytes = log.read(buffer, position);
+			if (readBytes == -1)
+				return false;
+			position += readBytes;
+		}
+		return true;
+	}
+
+	private void writeFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining())
+			position += log.write(buffer, position);
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return part of the lookups which found a solution, 0 before any lookup
+	 */
+	public synchronized double getHitRate() {
+		return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (!log.isOpen())
+			return;
+		log.force(true);
+		index.force();
+		log.close();
+		indexChannel.close();
+	}
+}
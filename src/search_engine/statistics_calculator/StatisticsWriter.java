@@ -1,52 +1,166 @@
 package search_engine.statistics_calculator;
 
-import java.io.File;
-import java.io.FileWriter;
+import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
-
-import rush_hour.Constants;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
 
 /**
- * This class handles writing statistics to an output file
+ * This class handles writing statistics to an output file. Rows are encoded
+ * into a direct buffer, which is written to the file when it's full and every
+ * FORCE_INTERVAL_MS, right before the file is forced to the disk - so a batch
+ * which crashed, was killed or lost power keeps every row but the ones stored
+ * since the last interval. No result is kept in memory beyond the buffer.
  *
+ * A writer which resumes the output file keeps it's rows and tells which
+ * puzzles are stored there already, so they can be skipped. A last row which
+ * was cut in the middle by a crash is dropped.
  */
-public class StatisticsWriter<T extends GeneralSolutionStatisticsData> {
-	protected Collection<T> solutionsDataCollection;
+public class StatisticsWriter<T extends GeneralSolutionStatisticsData> implements Closeable {
+	private static final long FORCE_INTERVAL_MS = 1000;
+	private static final int BUFFER_SIZE = 1 << 16;
+
 	protected String outputFilePath;
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+	private final BitSet storedPuzzles;
+	private boolean hasHeader;
+	private long lastForceTime;
 
-	public StatisticsWriter(String outPutFilePath) {
-		solutionsDataCollection = new ArrayList<>();
-		outputFilePath = outPutFilePath;
+	public StatisticsWriter(String outPutFilePath) throws IOException {
+		this(outPutFilePath, false);
 	}
 
-	public void storeResult(T result) {
-		solutionsDataCollection.add(result);
+	/**
+	 * @param resume - keep the rows of the output file instead of overwriting it
+	 */
+	public StatisticsWriter(String outPutFilePath, boolean resume) throws IOException {
+		outputFilePath = outPutFilePath;
+		Path outputFile = Paths.get(outputFilePath + ".csv");
+		storedPuzzles = new BitSet();
+		long validLength = 0;
+		if (resume && Files.exists(outputFile))
+			validLength = readStoredPuzzles(outputFile);
+		channel = FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		channel.truncate(validLength);
+		channel.position(validLength);
+		hasHeader = validLength > 0;
+		lastForceTime = System.currentTimeMillis();
 	}
 
-	public void writeOutputFile() {
-		// Check if output directory exists
-		File directory = new File(Constants.STATISTICS_CSV_OUTPUT_PATH);
-		if (!directory.exists()) {
-			directory.mkdir();
+	/**
+	 * Reads the puzzle number of every complete row
+	 *
+	 * @return length of the file up to the end of it's last complete row
+	 */
+	private long readStoredPuzzles(Path outputFile) throws IOException {
+		long validLength = 0;
+		try (BufferedReader reader = Files.newBufferedReader(outputFile, StandardCharsets.UTF_8)) {
+			StringBuilder line = new StringBuilder();
+			boolean isHeader = true;
+			for (int character = reader.read(); character != -1; character = reader.read()) {
+				line.append((char) character);
+				if (character != '\n')
+					continue;
+				validLength += line.toString().getBytes(StandardCharsets.UTF_8).length;
+				if (!isHeader) {
+					String puzzleNumber = line.substring(0, Math.max(0, line.indexOf(",")));
+					try {
+						storedPuzzles.set(Integer.parseInt(puzzleNumber));
+					} catch (NumberFormatException e) {
+						// Not a row of a puzzle, such as an empty line
+					}
+				}
+				isHeader = false;
+				line.setLength(0);
+			}
 		}
+		return validLength;
+	}
+
+	public boolean isStored(int puzzleNumber) {
+		return puzzleNumber >= 0 && storedPuzzles.get(puzzleNumber);
+	}
+
+	public void storeResult(T result) {
 		try {
-			FileWriter myWriter = new FileWriter(outputFilePath + ".csv", false);
-			for (T solution : solutionsDataCollection) {
-				/// write to output file
-				myWriter.write(solution.getCsvHeader());
-				break;
+			if (!hasHeader) {
+				write(result.getCsvHeader());
+				hasHeader = true;
+			}
+			write(result.getData());
+			storedPuzzles.set(result.getSolutionIdentifier());
+			if (System.currentTimeMillis() - lastForceTime >= FORCE_INTERVAL_MS) {
+				flush();
+				channel.force(false);
+				lastForceTime = System.currentTimeMillis();
 			}
+		} catch (IOException e) {
+			System.out.println("An error occurred while writing output file");
+			e.printStackTrace();
+		}
+	}
 
-			for (T solution : solutionsDataCollection)
-				myWriter.write(solution.getData());
+	/**
+	 * Encodes the text into the buffer, writing the buffer to the file whenever
+	 * it's full
+	 */
+	private void write(String text) throws IOException {
+		CharBuffer characters = CharBuffer.wrap(text);
+		while (true) {
+			CoderResult result = encoder.encode(characters, buffer, true);
+			if (result.isUnderflow())
+				break;
+			if (result.isOverflow())
+				flush();
+			else
+				result.throwException();
+		}
+		encoder.reset();
+	}
 
-			myWriter.close();
+	/**
+	 * Writes the rows in the buffer to the file
+	 */
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
 
+	/**
+	 * Writes and forces every row to the disk and closes the output file
+	 */
+	public void writeOutputFile() {
+		try {
+			close();
 		} catch (IOException e) {
 			System.out.println("An error occurred while writing output file");
 			e.printStackTrace();
 		}
 	}
+
+	@Override
+	public void close() throws IOException {
+		if (!channel.isOpen())
+			return;
+		try {
+			flush();
+			channel.force(false);
+		} finally {
+			channel.close();
+		}
+	}
 }
@@ -0,0 +1,40 @@
+package tests;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import rush_hour.RawPuzzleObject;
+import search_engine.BidirectionalBFSSolver;
+import search_engine.SearchDeadline;
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.AStarSolutionStatisticsData;
+import search_engine.astar.BlockersHeuristicCalculator;
+
+public class TestBidirectionalBFSSolver {
+
+	@Test
+	public void testSolutionsAreShortestAndReachTheGoal() {
+		BidirectionalBFSSolver solver = new BidirectionalBFSSolver(100000);
+		BlockersHeuristicCalculator calculator = new BlockersHeuristicCalculator();
+		int[][] puzzlesAndSolutionLengths = { { 1, 8 }, { 15, 23 }, { 40, 51 } };
+		for (int[] puzzleAndSolutionLength : puzzlesAndSolutionLengths) {
+			RawPuzzleObject puzzle = TestsUtils.getPuzzle(puzzleAndSolutionLength[0]);
+			TestsUtils.checkSolution(puzzle,
+					solver.getBestSolution(new AStarSearchNode(puzzle, calculator)).getStatisticsData(),
+					puzzleAndSolutionLength[1]);
+		}
+	}
+
+	@Test
+	public void testSearchGivesUpWhenTimeIsUp() {
+		BidirectionalBFSSolver solver = new BidirectionalBFSSolver(0);
+		AStarSolutionStatisticsData statisticsData = solver
+				.getBestSolution(new AStarSearchNode(TestsUtils.getPuzzle(40), new BlockersHeuristicCalculator()))
+				.getStatisticsData();
+		assertFalse(statisticsData.isSolved());
+		// The clock is read once every DEFAULT_CHECK_INTERVAL expanded states
+		assertTrue(statisticsData.getNumberOfNodes() <= SearchDeadline.DEFAULT_CHECK_INTERVAL);
+	}
+}
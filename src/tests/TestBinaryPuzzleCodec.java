@@ -0,0 +1,89 @@
+package tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import rush_hour.BinaryPuzzleCodec;
+import rush_hour.BinaryPuzzleReader;
+import rush_hour.BinaryPuzzleRecord;
+import rush_hour.BinaryPuzzleWriter;
+import rush_hour.BoardState;
+import rush_hour.GameUtils;
+import rush_hour.RawPuzzleObject;
+import search_engine.BidirectionalBFSSolver;
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.BlockersHeuristicCalculator;
+
+public class TestBinaryPuzzleCodec {
+
+	@Test
+	public void testPuzzlesConvertBackToTheSameText() {
+		ByteBuffer buffer = ByteBuffer.allocate(BinaryPuzzleCodec.PUZZLE_RECORD_SIZE);
+		for (String rawPuzzle : GameUtils.getRawPuzzlesFromInputFile(new String[0])) {
+			BoardState boardState = BinaryPuzzleCodec.fromText(rawPuzzle);
+			assertEquals(rawPuzzle, BinaryPuzzleCodec.toText(boardState));
+
+			buffer.clear();
+			BinaryPuzzleCodec.encodePuzzle(boardState, buffer);
+			assertFalse(buffer.hasRemaining());
+			buffer.flip();
+			BoardState decodedState = BinaryPuzzleCodec.decodePuzzle(buffer);
+			assertEquals(rawPuzzle, BinaryPuzzleCodec.toText(decodedState));
+			assertEquals(boardState.getLayout().getStateCodec().encode(boardState),
+					decodedState.getLayout().getStateCodec().encode(decodedState));
+		}
+	}
+
+	@Test
+	public void testSolutionConvertsBackToTheSameText() {
+		ArrayList<String> puzzles = GameUtils.getRawPuzzlesFromInputFile(new String[0]);
+		String[] csvRow = new BidirectionalBFSSolver(100000)
+				.getBestSolution(new AStarSearchNode(new RawPuzzleObject(puzzles.get(39), 40),
+						new BlockersHeuristicCalculator()))
+				.getStatisticsData().getData().trim().split(",");
+		String solution = csvRow[csvRow.length - 1];
+		BoardState boardState = BinaryPuzzleCodec.fromText(puzzles.get(39));
+
+		byte[] moves = BinaryPuzzleCodec.encodeSolution(boardState.getLayout(), solution);
+		assertEquals(51, moves.length);
+		assertEquals(solution, BinaryPuzzleCodec.solutionToText(boardState.getLayout(), moves));
+	}
+
+	@Test
+	public void testRecordsAreReadAsWritten() throws IOException {
+		ArrayList<String> puzzles = GameUtils.getRawPuzzlesFromInputFile(new String[0]);
+		Path binaryFile = Files.createTempFile("puzzles", ".rhb");
+		try {
+			try (BinaryPuzzleWriter writer = new BinaryPuzzleWriter(binaryFile)) {
+				for (int puzzleIndex = 0; puzzleIndex < puzzles.size(); puzzleIndex++)
+					writer.write(BinaryPuzzleCodec.fromText(puzzles.get(puzzleIndex)),
+							puzzleIndex % 2 == 0 ? null : new byte[] { (byte) puzzleIndex, 1, 2 });
+			}
+			try (BinaryPuzzleReader reader = new BinaryPuzzleReader(binaryFile)) {
+				for (int puzzleIndex = 0; puzzleIndex < puzzles.size(); puzzleIndex++) {
+					assertTrue(reader.hasNext());
+					BinaryPuzzleRecord record = reader.next();
+					assertEquals(puzzles.get(puzzleIndex), BinaryPuzzleCodec.toText(record.getPuzzle()));
+					if (puzzleIndex % 2 == 0)
+						assertNull(record.getSolution());
+					else
+						assertArrayEquals(new byte[] { (byte) puzzleIndex, 1, 2 }, record.getSolution());
+				}
+				assertFalse(reader.hasNext());
+			}
+		} finally {
+			Files.delete(binaryFile);
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import rush_hour.BoardState;
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.AStarSolutionStatisticsData;
+import search_engine.astar.AStarSolver;
+import search_engine.astar.BlockerChainHeuristic;
+import search_engine.astar.BlockersHeuristicCalculator;
+
+public class TestBlockerChainHeuristic {
+
+	@Test
+	public void testHeuristicNeverOverestimatesAndMatchesIncrementalValue() throws IOException {
+		BlockersHeuristicCalculator blockersHeuristic = new BlockersHeuristicCalculator();
+		for (int puzzleID : new int[] { 1, 25, 40 }) {
+			BlockerChainHeuristic heuristic = new BlockerChainHeuristic();
+			BoardState start = BoardState.fromVehicles(TestsUtils.getPuzzle(puzzleID).getVehicles());
+			assertTrue(heuristic.calculateValue(start) >= blockersHeuristic.calculateValue(start));
+			TestsUtils.assertAdmissibleAlongOptimalPath(heuristic, start);
+		}
+	}
+
+	@Test
+	public void testSuccessorsGetTheirParentsValueDuringSearch() {
+		int[][] puzzlesAndSolutionLengths = { { 25, 27 }, { 40, 51 } };
+		for (int[] puzzleAndSolutionLength : puzzlesAndSolutionLengths) {
+			BlockerChainHeuristic heuristic = new BlockerChainHeuristic();
+			AStarSolutionStatisticsData statisticsData = new AStarSolver(heuristic, 100000)
+					.getBestSolution(new AStarSearchNode(TestsUtils.getPuzzle(puzzleAndSolutionLength[0]), heuristic))
+					.getStatisticsData();
+			assertEquals(puzzleAndSolutionLength[1], TestsUtils.getNumberOfMoves(statisticsData));
+			// Parents evaluated again are counted as evaluations, so the successors
+			// which weren't evaluated are what's saved
+			long evaluatedStates = heuristic.getNumberOfEvaluations() + heuristic.getNumberOfParentValuesReused();
+			assertTrue(heuristic.getNumberOfParentValuesReused() + " of " + evaluatedStates + " states",
+					heuristic.getNumberOfParentValuesReused() * 10 > evaluatedStates);
+		}
+	}
+}
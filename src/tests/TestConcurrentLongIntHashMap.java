@@ -0,0 +1,121 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+import rush_hour.BinaryPuzzleCodec;
+import rush_hour.GameUtils;
+import rush_hour.StateCodec;
+import search_engine.ConcurrentLongIntHashMap;
+
+public class TestConcurrentLongIntHashMap {
+	private static final int NUMBER_OF_THREADS = 8;
+	private static final int NUMBER_OF_KEYS = 100000;
+
+	@Test
+	public void testSingleThreadedPutAndGet() {
+		ConcurrentLongIntHashMap map = new ConcurrentLongIntHashMap(16);
+		assertTrue(map.isEmpty());
+		assertEquals(ConcurrentLongIntHashMap.NO_VALUE, map.putIfAbsent(5L, 1));
+		assertEquals(1, map.putIfAbsent(5L, 2));
+		assertEquals(1, map.get(5L));
+		assertFalse(map.containsKey(6L));
+		assertEquals(ConcurrentLongIntHashMap.NO_VALUE, map.get(6L));
+		assertTrue(map.putIfLower(5L, 0));
+		assertFalse(map.putIfLower(5L, 3));
+		assertEquals(0, map.get(5L));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void testAddingPastTheLoadFactorThrows() {
+		ConcurrentLongIntHashMap map = new ConcurrentLongIntHashMap(100);
+		assertTrue(map.getMaxSize() >= 100);
+		assertEquals(map.getCapacity() / 2, map.getMaxSize());
+		for (long key = 0; key < map.getMaxSize(); key++)
+			map.putIfAbsent(key, 0);
+		// Keys which are in the map already can still be looked up and offered
+		assertEquals(0, map.putIfAbsent(0L, 1));
+		try {
+			map.putIfAbsent(map.getMaxSize(), 0);
+			fail("Adding a key past the load factor should throw");
+		} catch (IllegalStateException e) {
+			assertEquals(map.getMaxSize(), map.size());
+		}
+	}
+
+	@Test
+	public void testStateSpaceMapIsSizedByTheSmallestBound() {
+		StateCodec codec = BinaryPuzzleCodec.fromText(GameUtils.getRawPuzzlesFromInputFile(new String[0]).get(39))
+				.getLayout().getStateCodec();
+		assertTrue(codec.getNumberOfCodes() > ConcurrentLongIntHashMap.MAX_EXPECTED_SIZE);
+		ConcurrentLongIntHashMap limitedMap = ConcurrentLongIntHashMap.forStateSpace(codec, 1000);
+		assertTrue(limitedMap.getMaxSize() >= 1000);
+		assertTrue(limitedMap.getMaxSize() < 2000);
+		// Without a nodes limit the map would have to hold every code of the layout
+		try {
+			ConcurrentLongIntHashMap.forStateSpace(codec, Integer.MAX_VALUE);
+			fail("A map for more codes than it can hold should throw");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("nodes limit"));
+		}
+
+		StateCodec smallCodec = BinaryPuzzleCodec.fromText("....................XX..............").getLayout()
+				.getStateCodec();
+		ConcurrentLongIntHashMap smallMap = ConcurrentLongIntHashMap.forStateSpace(smallCodec, Integer.MAX_VALUE);
+		assertTrue(smallMap.getMaxSize() >= smallCodec.getNumberOfCodes());
+		assertTrue(smallMap.getCapacity() <= 16);
+	}
+
+	/**
+	 * Every thread adds all keys in it's own order, so each key is raced for - it
+	 * must be won exactly once and end with the lowest value offered for it
+	 */
+	@Test
+	public void testThreadsRacingOnSameKeys() throws Exception {
+		ConcurrentLongIntHashMap map = new ConcurrentLongIntHashMap(NUMBER_OF_KEYS);
+		AtomicIntegerArray wins = new AtomicIntegerArray(NUMBER_OF_KEYS);
+		CyclicBarrier barrier = new CyclicBarrier(NUMBER_OF_THREADS);
+		List<Throwable> errors = new ArrayList<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+			int threadIndex = thread;
+			threads.add(new Thread(() -> {
+				try {
+					barrier.await();
+					for (int i = 0; i < NUMBER_OF_KEYS; i++) {
+						int keyIndex = (int) ((i * 7919L + threadIndex * 104729L) % NUMBER_OF_KEYS);
+						long key = keyIndex * 31L;
+						if (map.putIfAbsent(key, 1000 + threadIndex) == ConcurrentLongIntHashMap.NO_VALUE)
+							wins.incrementAndGet(keyIndex);
+						map.putIfLower(key, threadIndex);
+					}
+				} catch (Throwable e) {
+					synchronized (errors) {
+						errors.add(e);
+					}
+				}
+			}));
+		}
+		for (Thread thread : threads)
+			thread.start();
+		for (Thread thread : threads)
+			thread.join();
+
+		assertTrue(errors.toString(), errors.isEmpty());
+		assertEquals(NUMBER_OF_KEYS, map.size());
+		for (int keyIndex = 0; keyIndex < NUMBER_OF_KEYS; keyIndex++) {
+			assertEquals(1, wins.get(keyIndex));
+			assertEquals(0, map.get(keyIndex * 31L));
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import rush_hour.BoardState;
+import rush_hour.MoveGenerator;
+import rush_hour.RawPuzzleObject;
+import rush_hour.StateCodec;
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.AStarSolutionStatisticsData;
+import search_engine.astar.AStarSolver;
+import search_engine.astar.BlockersHeuristicCalculator;
+import search_engine.distance_database.DistanceDatabase;
+import search_engine.distance_database.DistanceDatabaseGenerator;
+import search_engine.distance_database.DistanceDatabaseSolver;
+
+public class TestDistanceDatabase {
+
+	@Test
+	public void testDistancesOfNeighborStatesDifferByAtMostOne() throws IOException {
+		BoardState start = BoardState.fromVehicles(TestsUtils.getPuzzle(1).getVehicles());
+		Path databaseDirectory = Files.createTempDirectory("distanceDatabase");
+		try {
+			DistanceDatabase database = DistanceDatabase.open(
+					new DistanceDatabaseGenerator(start.getLayout()).generate(databaseDirectory), start.getLayout());
+			StateCodec codec = start.getLayout().getStateCodec();
+
+			long startCode = codec.encode(start);
+			int distance = database.getDistance(startCode);
+			assertEquals(8, distance);
+			int[] movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(start.getLayout())];
+			int numberOfMoves = MoveGenerator.getGenerator().generateMoves(start, movesBuffer);
+			for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++) {
+				int vehicleIndex = MoveGenerator.getVehicleIndex(movesBuffer[moveIndex]);
+				long successorCode = codec.encodeMove(startCode, vehicleIndex, start.getOffset(vehicleIndex),
+						MoveGenerator.getNewOffset(movesBuffer[moveIndex]));
+				assertTrue(Math.abs(database.getDistance(successorCode) - distance) <= 1);
+			}
+		} finally {
+			TestsUtils.deleteDirectory(databaseDirectory);
+		}
+	}
+
+	@Test
+	public void testSolutionsAreAsShortAsAStarSolutions() throws IOException {
+		Path databaseDirectory = Files.createTempDirectory("distanceDatabase");
+		try {
+			DistanceDatabaseSolver databaseSolver = new DistanceDatabaseSolver(databaseDirectory.toString());
+			BlockersHeuristicCalculator calculator = new BlockersHeuristicCalculator();
+			AStarSolver aStarSolver = new AStarSolver(calculator, 100000);
+			for (int puzzleID : new int[] { 1, 15, 40 }) {
+				AStarSearchNode start = new AStarSearchNode(TestsUtils.getPuzzle(puzzleID), calculator);
+				AStarSolutionStatisticsData databaseSolution = databaseSolver.getBestSolution(start)
+						.getStatisticsData();
+				AStarSolutionStatisticsData aStarSolution = aStarSolver.getBestSolution(start).getStatisticsData();
+				assertEquals(TestsUtils.getNumberOfMoves(aStarSolution),
+						TestsUtils.getNumberOfMoves(databaseSolution));
+			}
+		} finally {
+			TestsUtils.deleteDirectory(databaseDirectory);
+		}
+	}
+
+	@Test
+	public void testOnlyTheDatabasesUsedLastAreKeptOpen() throws IOException {
+		Path databaseDirectory = Files.createTempDirectory("distanceDatabase");
+		try {
+			DistanceDatabaseSolver databaseSolver = new DistanceDatabaseSolver(databaseDirectory.toString(), 1);
+			BlockersHeuristicCalculator calculator = new BlockersHeuristicCalculator();
+			int[][] puzzlesAndSolutionLengths = { { 1, 8 }, { 15, 23 }, { 1, 8 } };
+			for (int[] puzzleAndSolutionLength : puzzlesAndSolutionLengths) {
+				RawPuzzleObject puzzle = TestsUtils.getPuzzle(puzzleAndSolutionLength[0]);
+				TestsUtils.checkSolution(puzzle,
+						databaseSolver.getBestSolution(new AStarSearchNode(puzzle, calculator)).getStatisticsData(),
+						puzzleAndSolutionLength[1]);
+				assertEquals(1, databaseSolver.getNumberOfOpenDatabases());
+			}
+		} finally {
+			TestsUtils.deleteDirectory(databaseDirectory);
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testCorruptDatabaseIsNotFollowed() throws IOException {
+		RawPuzzleObject puzzle = TestsUtils.getPuzzle(1);
+		BoardState start = BoardState.fromVehicles(puzzle.getVehicles());
+		Path databaseDirectory = Files.createTempDirectory("distanceDatabase");
+		Path databaseFile = new DistanceDatabaseGenerator(start.getLayout()).generate(databaseDirectory);
+		// Distances are the last capacity bytes of the file, the start state is 8
+		// moves away and none of it's successors is 7 moves away any more
+		ByteBuffer database = ByteBuffer.wrap(Files.readAllBytes(databaseFile));
+		int capacityPosition = 3 * Integer.BYTES + database.getInt(2 * Integer.BYTES) * (Character.BYTES + 3)
+				+ 2 * Integer.BYTES;
+		int capacity = database.getInt(capacityPosition);
+		for (int position = database.capacity() - capacity; position < database.capacity(); position++)
+			if (database.get(position) == 7)
+				database.put(position, (byte) 9);
+		Files.write(databaseFile, database.array());
+		try {
+			new DistanceDatabaseSolver(databaseDirectory.toString())
+					.getBestSolution(new AStarSearchNode(puzzle, new BlockersHeuristicCalculator()));
+		} finally {
+			TestsUtils.deleteDirectory(databaseDirectory);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.AStarSolutionStatisticsData;
+import search_engine.astar.BlockerChainHeuristic;
+import search_engine.astar.BlockersHeuristicCalculator;
+import search_engine.astar.CachedHeuristic;
+import search_engine.astar.HDAStarSolver;
+import search_engine.astar.HeuristicsCalculator;
+import search_engine.astar.MaxOfHeuristics;
+
+public class TestHDAStarSolver {
+	// Shortest solutions, out of the distance database of each puzzle
+	private static final int[][] PUZZLES_AND_SOLUTION_LENGTHS = { { 1, 8 }, { 13, 16 }, { 25, 27 }, { 40, 51 } };
+
+	@Test
+	public void testSolutionsAreOptimalForAnyNumberOfWorkers() {
+		HeuristicsCalculator[] calculators = { new BlockersHeuristicCalculator(), new BlockerChainHeuristic() };
+		for (HeuristicsCalculator calculator : calculators) {
+			for (int numberOfWorkers : new int[] { 1, 2, 3, 8 }) {
+				HDAStarSolver solver = new HDAStarSolver(calculator, 100000, numberOfWorkers);
+				for (int[] puzzleAndSolutionLength : PUZZLES_AND_SOLUTION_LENGTHS) {
+					AStarSearchNode start = new AStarSearchNode(TestsUtils.getPuzzle(puzzleAndSolutionLength[0]),
+							calculator);
+					AStarSolutionStatisticsData statisticsData = solver.getBestSolution(start).getStatisticsData();
+					assertEquals(calculator.getName() + " with " + numberOfWorkers + " workers",
+							puzzleAndSolutionLength[1], TestsUtils.getNumberOfMoves(statisticsData));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSearchStopsWhenNodesLimitIsReached() {
+		BlockersHeuristicCalculator calculator = new BlockersHeuristicCalculator();
+		AStarSolutionStatisticsData statisticsData = new HDAStarSolver(calculator, 100000, 4, 100)
+				.getBestSolution(new AStarSearchNode(TestsUtils.getPuzzle(40), calculator)).getStatisticsData();
+		assertEquals(0, TestsUtils.getNumberOfMoves(statisticsData));
+	}
+
+	@Test
+	public void testHeuristicCountersOfEveryWorkerAreAddedUp() {
+		CachedHeuristic cachedHeuristic = new CachedHeuristic(new BlockerChainHeuristic());
+		HDAStarSolver solver = new HDAStarSolver(cachedHeuristic, 100000, 3);
+		AStarSolutionStatisticsData statisticsData = solver
+				.getBestSolution(new AStarSearchNode(TestsUtils.getPuzzle(25), cachedHeuristic)).getStatisticsData();
+		// Every expanded node which isn't a goal evaluates at least a single successor
+		assertTrue(statisticsData.getHeuristicCacheMisses() > 0);
+		assertTrue(statisticsData.getHeuristicCacheHits()
+				+ statisticsData.getHeuristicCacheMisses() >= statisticsData.getNumberOfNodes() - 1);
+
+		MaxOfHeuristics maxHeuristic = new MaxOfHeuristics(new BlockersHeuristicCalculator(),
+				new BlockerChainHeuristic());
+		statisticsData = new HDAStarSolver(maxHeuristic, 100000, 3)
+				.getBestSolution(new AStarSearchNode(TestsUtils.getPuzzle(25), maxHeuristic)).getStatisticsData();
+		assertTrue(statisticsData.getHeuristicComponents().startsWith("BlockingCars decided="));
+		// The first component is evaluated or skipped on every successor of every worker
+		Matcher counters = Pattern.compile("evaluated=(\\d+) skipped=(\\d+)")
+				.matcher(statisticsData.getHeuristicComponents());
+		assertTrue(counters.find());
+		assertTrue(Long.parseLong(counters.group(1)) + Long.parseLong(counters.group(2)) >= statisticsData
+				.getNumberOfNodes() - 1);
+	}
+}
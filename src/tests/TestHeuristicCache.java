@@ -0,0 +1,114 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import rush_hour.BinaryPuzzleCodec;
+import rush_hour.BoardState;
+import rush_hour.GameUtils;
+import rush_hour.RawPuzzleObject;
+import rush_hour.VehicleLayout;
+import search_engine.LongShortCache;
+import search_engine.LongShortCache.EvictionPolicy;
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.AStarSolutionStatisticsData;
+import search_engine.astar.BlockersHeuristicCalculator;
+import search_engine.astar.CachedHeuristic;
+import search_engine.astar.IDAStarSolver;
+
+public class TestHeuristicCache {
+
+	@Test
+	public void testCacheNeverGrowsBeyondCapacity() {
+		LongShortCache cache = new LongShortCache(1 << 10, EvictionPolicy.CLOCK);
+		for (long key = 0; key < 1 << 16; key++)
+			cache.put(key, (short) key);
+		int cachedKeys = 0;
+		for (long key = 0; key < 1 << 16; key++) {
+			int value = cache.get(key);
+			if (value != LongShortCache.NO_VALUE) {
+				assertEquals((short) key, value);
+				cachedKeys++;
+			}
+		}
+		assertEquals(1 << 10, cache.getCapacity());
+		assertTrue(cachedKeys <= cache.getCapacity());
+		assertEquals(cachedKeys, cache.getHits());
+	}
+
+	@Test
+	public void testLruEvictsLeastRecentlyUsedKey() {
+		// A single set, so every key competes for the same cells
+		LongShortCache cache = new LongShortCache(LongShortCache.WAYS, EvictionPolicy.LRU);
+		for (long key = 0; key < LongShortCache.WAYS; key++)
+			cache.put(key, (short) 1);
+		cache.get(0);
+		cache.put(LongShortCache.WAYS, (short) 1);
+		assertEquals(1, cache.get(0));
+		assertEquals(LongShortCache.NO_VALUE, cache.get(1));
+	}
+
+	@Test
+	public void testClockGivesReferencedKeysSecondChance() {
+		LongShortCache cache = new LongShortCache(LongShortCache.WAYS, EvictionPolicy.CLOCK);
+		for (long key = 0; key < LongShortCache.WAYS; key++)
+			cache.put(key, (short) 1);
+		// The hand clears every bit and evicts key 0, then stops at key 1
+		cache.put(100, (short) 1);
+		cache.get(2);
+		cache.put(101, (short) 1);
+		cache.put(102, (short) 1);
+		assertEquals(LongShortCache.NO_VALUE, cache.get(0));
+		assertEquals(LongShortCache.NO_VALUE, cache.get(1));
+		assertEquals(1, cache.get(2));
+		assertEquals(LongShortCache.NO_VALUE, cache.get(3));
+		assertEquals(3, cache.getEvictions());
+	}
+
+	@Test
+	public void testCachedHeuristicSolvesLikeHeuristicAndCountsHits() {
+		BlockersHeuristicCalculator calculator = new BlockersHeuristicCalculator();
+		CachedHeuristic cachedCalculator = new CachedHeuristic(calculator, 1 << 20, EvictionPolicy.LRU);
+		ArrayList<String> puzzles = GameUtils.getRawPuzzlesFromInputFile(new String[0]);
+		RawPuzzleObject puzzle = new RawPuzzleObject(puzzles.get(14), 15);
+		AStarSolutionStatisticsData solution = new IDAStarSolver(calculator, 100000, 1 << 16)
+				.getBestSolution(new AStarSearchNode(puzzle, calculator)).getStatisticsData();
+		AStarSolutionStatisticsData cachedSolution = new IDAStarSolver(cachedCalculator, 100000, 1 << 16)
+				.getBestSolution(new AStarSearchNode(puzzle, cachedCalculator)).getStatisticsData();
+
+		assertEquals(solution.getNumberOfNodes(), cachedSolution.getNumberOfNodes());
+		// Every iteration of IDA* goes over the states of the previous one again
+		assertTrue(cachedSolution.getHeuristicCacheHits() > cachedSolution.getHeuristicCacheMisses());
+		assertEquals(0, solution.getHeuristicCacheHits());
+	}
+
+	@Test
+	public void testOnlyTheLayoutsUsedLastAreRemembered() {
+		CachedHeuristic cachedCalculator = new CachedHeuristic(new BlockersHeuristicCalculator());
+		ArrayList<String> puzzles = GameUtils.getRawPuzzlesFromInputFile(new String[0]);
+		BoardState first = BinaryPuzzleCodec.fromText(puzzles.get(0));
+		cachedCalculator.calculateValue(first);
+		cachedCalculator.calculateValue(first);
+		assertEquals(1, cachedCalculator.getHits());
+
+		// Renamed vehicles give other layouts of the same boards
+		Set<VehicleLayout> layouts = new HashSet<>();
+		layouts.add(first.getLayout());
+		for (char newIdentifier = 'Z'; layouts.size() <= 1 << 6; newIdentifier--)
+			for (int puzzleIndex = 1; puzzleIndex < puzzles.size() && layouts.size() <= 1 << 6; puzzleIndex++) {
+				BoardState renamed = BinaryPuzzleCodec.fromText(puzzles.get(puzzleIndex).replace('A', newIdentifier));
+				if (layouts.add(renamed.getLayout()))
+					cachedCalculator.calculateValue(renamed);
+			}
+		long misses = cachedCalculator.getMisses();
+		cachedCalculator.calculateValue(first);
+		assertEquals(misses + 1, cachedCalculator.getMisses());
+		assertEquals(1, cachedCalculator.getHits());
+	}
+}
@@ -0,0 +1,56 @@
+package tests;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import rush_hour.RawPuzzleObject;
+import search_engine.SearchDeadline;
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.AStarSolutionStatisticsData;
+import search_engine.astar.BlockersHeuristicCalculator;
+import search_engine.astar.IDAStarSolver;
+
+public class TestIDAStarSolver {
+	// Shortest solutions, out of the distance database of each puzzle
+	private static final int[][] PUZZLES_AND_SOLUTION_LENGTHS = { { 1, 8 }, { 13, 16 }, { 15, 23 }, { 25, 27 },
+			{ 40, 51 } };
+
+	@Test
+	public void testSolutionsAreOptimal() {
+		IDAStarSolver solver = new IDAStarSolver(new BlockersHeuristicCalculator(), 100000, 1 << 16);
+		for (int[] puzzleAndSolutionLength : PUZZLES_AND_SOLUTION_LENGTHS)
+			checkSolution(solver, puzzleAndSolutionLength[0], puzzleAndSolutionLength[1]);
+		// Without a transposition table only the easy puzzles are solved in time
+		checkSolution(new IDAStarSolver(new BlockersHeuristicCalculator(), 100000), 1, 8);
+	}
+
+	@Test
+	public void testTranspositionTableSmallerThanTheStateSpaceKeepsSolutionsOptimal() {
+		// States of a full table overwrite each other, so they're pruned less often
+		// but never wrongly
+		checkSolution(new IDAStarSolver(new BlockersHeuristicCalculator(), 100000, 1 << 8), 1, 8);
+		IDAStarSolver solver = new IDAStarSolver(new BlockersHeuristicCalculator(), 100000, 1 << 12);
+		checkSolution(solver, 13, 16);
+		checkSolution(solver, 15, 23);
+	}
+
+	@Test
+	public void testSearchGivesUpWhenTimeIsUp() {
+		BlockersHeuristicCalculator calculator = new BlockersHeuristicCalculator();
+		AStarSolutionStatisticsData statisticsData = new IDAStarSolver(calculator, 0)
+				.getBestSolution(new AStarSearchNode(TestsUtils.getPuzzle(40), calculator)).getStatisticsData();
+		assertFalse(statisticsData.isSolved());
+		// The clock is read once every DEFAULT_CHECK_INTERVAL expanded states
+		assertTrue(statisticsData.getNumberOfNodes() <= SearchDeadline.DEFAULT_CHECK_INTERVAL);
+	}
+
+	private static void checkSolution(IDAStarSolver solver, int puzzleID, int solutionLength) {
+		RawPuzzleObject puzzle = TestsUtils.getPuzzle(puzzleID);
+		TestsUtils.checkSolution(puzzle,
+				solver.getBestSolution(new AStarSearchNode(puzzle, new BlockersHeuristicCalculator()))
+						.getStatisticsData(),
+				solutionLength);
+	}
+}
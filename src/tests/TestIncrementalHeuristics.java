@@ -0,0 +1,55 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import rush_hour.BoardState;
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.AStarSolver;
+import search_engine.astar.BlockerChainHeuristic;
+import search_engine.astar.BlockersAndDistanceHeuristic;
+import search_engine.astar.BlockersHeuristicCalculator;
+import search_engine.astar.CheckedIncrementalHeuristic;
+import search_engine.astar.IDAStarSolver;
+import search_engine.astar.IncrementalHeuristicsCalculator;
+import search_engine.astar.TargetVehicleDistanceFromExitHeuristic;
+
+public class TestIncrementalHeuristics {
+
+	@Test
+	public void testIncrementalValuesMatchFullEvaluationDuringSearch() {
+		IncrementalHeuristicsCalculator[] calculators = { new BlockersHeuristicCalculator(),
+				new TargetVehicleDistanceFromExitHeuristic(), new BlockersAndDistanceHeuristic(),
+				new BlockerChainHeuristic() };
+		for (IncrementalHeuristicsCalculator calculator : calculators) {
+			// The checked heuristic throws on the first successor evaluated wrongly
+			CheckedIncrementalHeuristic checkedCalculator = new CheckedIncrementalHeuristic(calculator);
+			for (int puzzleID : new int[] { 1, 15, 40 }) {
+				AStarSearchNode start = new AStarSearchNode(TestsUtils.getPuzzle(puzzleID), checkedCalculator);
+				String solution = new AStarSolver(checkedCalculator, 100000).getBestSolution(start)
+						.getStatisticsData().getData();
+				assertTrue(solution.trim().endsWith("END"));
+			}
+			AStarSearchNode start = new AStarSearchNode(TestsUtils.getPuzzle(1), checkedCalculator);
+			String solution = new IDAStarSolver(checkedCalculator, 100000).getBestSolution(start).getStatisticsData()
+					.getData();
+			assertTrue(solution.trim().endsWith("END"));
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testCheckedHeuristicFailsOnWrongIncrementalValue() {
+		BlockersHeuristicCalculator wrongCalculator = new BlockersHeuristicCalculator() {
+			@Override
+			public double calculateValue(BoardState boardState, int movedVehicle, int oldOffset, double parentValue) {
+				return parentValue + 1;
+			}
+		};
+		CheckedIncrementalHeuristic checkedCalculator = new CheckedIncrementalHeuristic(wrongCalculator);
+		AStarSearchNode start = new AStarSearchNode(TestsUtils.getPuzzle(1), checkedCalculator);
+		assertEquals(wrongCalculator.getName(), checkedCalculator.getName());
+		new AStarSolver(checkedCalculator, 100000).getBestSolution(start);
+	}
+}
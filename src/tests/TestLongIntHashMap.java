@@ -0,0 +1,48 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import search_engine.LongIntHashMap;
+
+public class TestLongIntHashMap {
+
+	@Test
+	public void testMissingKeyReturnsNoValue() {
+		LongIntHashMap map = new LongIntHashMap();
+		assertEquals(LongIntHashMap.NO_VALUE, map.get(17L));
+		assertFalse(map.containsKey(17L));
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void testReplacingValueOfExistingKey() {
+		LongIntHashMap map = new LongIntHashMap();
+		map.put(5L, 1);
+		map.put(5L, 2);
+		assertEquals(2, map.get(5L));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void testMapBehavesLikeHashMapWhileGrowing() {
+		LongIntHashMap map = new LongIntHashMap(4);
+		Map<Long, Integer> expected = new HashMap<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 100000; i++) {
+			long key = random.nextInt(50000) * 7919L;
+			map.put(key, i);
+			expected.put(key, i);
+		}
+		assertEquals(expected.size(), map.size());
+		for (Map.Entry<Long, Integer> entry : expected.entrySet())
+			assertEquals((int) entry.getValue(), map.get(entry.getKey()));
+	}
+}
@@ -0,0 +1,73 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import rush_hour.BoardState;
+import rush_hour.MoveGenerator;
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.AStarSolutionStatisticsData;
+import search_engine.astar.AStarSolver;
+import search_engine.astar.BlockerChainHeuristic;
+import search_engine.astar.BlockersHeuristicCalculator;
+import search_engine.astar.MaxOfHeuristics;
+import search_engine.astar.TargetVehicleDistanceFromExitHeuristic;
+
+public class TestMaxOfHeuristics {
+
+	@Test
+	public void testValueIsMaximumOfComponents() {
+		BlockersHeuristicCalculator blockers = new BlockersHeuristicCalculator();
+		TargetVehicleDistanceFromExitHeuristic distance = new TargetVehicleDistanceFromExitHeuristic();
+		BlockerChainHeuristic blockerChain = new BlockerChainHeuristic();
+		MaxOfHeuristics maxHeuristic = new MaxOfHeuristics(blockers, distance, blockerChain);
+		assertTrue(maxHeuristic.isIntegral());
+		for (int puzzleID = 1; puzzleID <= 40; puzzleID++) {
+			BoardState start = BoardState.fromVehicles(TestsUtils.getPuzzle(puzzleID).getVehicles());
+			int[] movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(start.getLayout())];
+			int numberOfMoves = MoveGenerator.getGenerator().generateMoves(start, movesBuffer);
+			for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++) {
+				BoardState successor = new BoardState(start);
+				successor.moveVehicle(MoveGenerator.getVehicleIndex(movesBuffer[moveIndex]),
+						MoveGenerator.getNewOffset(movesBuffer[moveIndex]));
+				double expected = Math.max(blockers.calculateValue(successor),
+						Math.max(distance.calculateValue(successor), blockerChain.calculateValue(successor)));
+				assertEquals(expected, maxHeuristic.calculateValue(successor), 0);
+			}
+		}
+	}
+
+	@Test
+	public void testComponentWhichCantBeatValueIsSkipped() {
+		// Every blocker stands between the target and the exit, so once the distance
+		// is known the blockers can never beat it
+		MaxOfHeuristics maxHeuristic = new MaxOfHeuristics(new TargetVehicleDistanceFromExitHeuristic(),
+				new BlockersHeuristicCalculator());
+		maxHeuristic.startSearch();
+		BoardState start = BoardState.fromVehicles(TestsUtils.getPuzzle(1).getVehicles());
+		maxHeuristic.calculateValue(start);
+		assertEquals(1, maxHeuristic.getEvaluationsCount(0));
+		assertEquals(1, maxHeuristic.getDecidedCount(0));
+		assertEquals(0, maxHeuristic.getEvaluationsCount(1));
+		assertEquals(1, maxHeuristic.getSkippedCount(1));
+	}
+
+	@Test
+	public void testSearchReportsDecidingComponents() {
+		MaxOfHeuristics maxHeuristic = new MaxOfHeuristics(new BlockersHeuristicCalculator(),
+				new BlockerChainHeuristic());
+		AStarSearchNode start = new AStarSearchNode(TestsUtils.getPuzzle(10), maxHeuristic);
+		AStarSolutionStatisticsData statisticsData = new AStarSolver(maxHeuristic, 100000).getBestSolution(start)
+				.getStatisticsData();
+		assertTrue(statisticsData.getHeuristicComponents().startsWith("BlockingCars decided="));
+		assertTrue(statisticsData.getHeuristicComponents().contains("BlockerChain decided="));
+		// BlockerChain counts the target as well as every blocker
+		assertEquals(0, maxHeuristic.getDecidedCount(0));
+		assertTrue(maxHeuristic.getDecidedCount(1) > 0);
+		// The statistics must not break the columns of the CSV row
+		assertEquals(statisticsData.getCsvHeader().trim().split(",").length,
+				statisticsData.getData().trim().split(",").length);
+	}
+}
@@ -0,0 +1,67 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import rush_hour.BoardState;
+import rush_hour.Constants;
+import rush_hour.GameUtils;
+import rush_hour.MoveGenerator;
+import rush_hour.RawPuzzleObject;
+import rush_hour.VehicleLayout;
+
+public class TestMoveGenerator {
+
+	// Slides every vehicle cell by cell, the "not smart" way
+	private List<Integer> getExpectedMoves(BoardState boardState) {
+		List<Integer> expectedMoves = new ArrayList<>();
+		VehicleLayout layout = boardState.getLayout();
+		for (int vehicleIndex = 0; vehicleIndex < layout.getNumberOfVehicles(); vehicleIndex++) {
+			int offset = boardState.getOffset(vehicleIndex);
+			int size = layout.getSize(vehicleIndex);
+			for (int newOffset = offset - 1; newOffset >= 0
+					&& boardState.isCellFree(layout.getCellIndex(vehicleIndex, newOffset)); newOffset--)
+				expectedMoves.add(MoveGenerator.encodeMove(vehicleIndex, newOffset));
+			for (int newOffset = offset + 1; newOffset + size <= Constants.BOARD_SIZE
+					&& boardState.isCellFree(layout.getCellIndex(vehicleIndex, newOffset + size - 1)); newOffset++)
+				expectedMoves.add(MoveGenerator.encodeMove(vehicleIndex, newOffset));
+		}
+		return expectedMoves;
+	}
+
+	private List<Integer> getActualMoves(BoardState boardState) {
+		int[] movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(boardState.getLayout())];
+		int numberOfMoves = MoveGenerator.getGenerator().generateMoves(boardState, movesBuffer);
+		List<Integer> actualMoves = new ArrayList<>();
+		Arrays.stream(movesBuffer, 0, numberOfMoves).forEach(actualMoves::add);
+		return actualMoves;
+	}
+
+	@Test
+	public void testGeneratedMovesOfSpecificPuzzle() {
+		BoardState boardState = BoardState
+				.fromVehicles(new RawPuzzleObject("OPPPAAOBCC.QOBXX.QRRRD.Q..EDFFGGE...", 2).getVehicles());
+		List<Integer> actualMoves = getActualMoves(boardState);
+		assertEquals(3, actualMoves.size());
+		assertEquals(getExpectedMoves(boardState), actualMoves);
+	}
+
+	@Test
+	public void testGeneratedMovesOfAllPuzzlesAndTheirSuccessors() {
+		for (String puzzle : GameUtils.getRawPuzzlesFromInputFile(new String[0])) {
+			BoardState boardState = BoardState.fromVehicles(new RawPuzzleObject(puzzle, 1).getVehicles());
+			List<Integer> actualMoves = getActualMoves(boardState);
+			assertEquals(getExpectedMoves(boardState), actualMoves);
+			for (int move : actualMoves) {
+				BoardState successor = new BoardState(boardState);
+				successor.moveVehicle(MoveGenerator.getVehicleIndex(move), MoveGenerator.getNewOffset(move));
+				assertEquals(getExpectedMoves(successor), getActualMoves(successor));
+			}
+		}
+	}
+}
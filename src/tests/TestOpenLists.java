@@ -0,0 +1,72 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import search_engine.BucketOpenList;
+import search_engine.FibonacciOpenList;
+import search_engine.OpenList;
+
+public class TestOpenLists {
+
+	@Test
+	public void testOpenListsBreakTiesByLowerHeuristic() {
+		for (OpenList openList : new OpenList[] { new BucketOpenList(), new FibonacciOpenList() }) {
+			openList.enqueue(1, 5, 3);
+			openList.enqueue(2, 5, 1);
+			openList.enqueue(3, 4, 4);
+			openList.enqueue(4, 7, 0);
+			assertEquals(3, openList.dequeueMin());
+			assertEquals(2, openList.dequeueMin());
+			assertEquals(1, openList.dequeueMin());
+			openList.enqueue(5, 2, 2);
+			assertEquals(5, openList.dequeueMin());
+			assertEquals(4, openList.dequeueMin());
+			assertTrue(openList.isEmpty());
+		}
+	}
+
+	@Test
+	public void testBucketAndFibonacciOpenListsDequeueTheSameValues() {
+		OpenList bucketOpenList = new BucketOpenList();
+		OpenList fibonacciOpenList = new FibonacciOpenList();
+		Random random = new Random(7);
+		double[] fValues = new double[20000];
+		double[] hValues = new double[fValues.length];
+		for (int node = 0; node < fValues.length; node++) {
+			fValues[node] = random.nextInt(200);
+			hValues[node] = random.nextInt(20);
+			bucketOpenList.enqueue(node, fValues[node], hValues[node]);
+			fibonacciOpenList.enqueue(node, fValues[node], hValues[node]);
+		}
+		assertEquals(fibonacciOpenList.size(), bucketOpenList.size());
+		while (!fibonacciOpenList.isEmpty()) {
+			int fibonacciNode = fibonacciOpenList.dequeueMin();
+			int bucketNode = bucketOpenList.dequeueMin();
+			assertEquals(fValues[bucketNode], fValues[fibonacciNode], 0);
+			assertEquals(hValues[bucketNode], hValues[fibonacciNode], 0);
+		}
+		assertTrue(bucketOpenList.isEmpty());
+	}
+
+	@Test
+	public void testDecreaseKeyMovesNodeWithoutDuplicatingIt() {
+		for (OpenList openList : new OpenList[] { new BucketOpenList(), new FibonacciOpenList() }) {
+			openList.enqueue(0, 6, 2);
+			openList.enqueue(1, 8, 2);
+			openList.enqueue(2, 8, 3);
+			openList.enqueue(3, 8, 1);
+			openList.decreaseKey(2, 5, 1);
+			assertEquals(4, openList.size());
+			assertEquals(2, openList.dequeueMin());
+			assertEquals(0, openList.dequeueMin());
+			openList.dequeueMin();
+			openList.dequeueMin();
+			assertTrue(openList.isEmpty());
+		}
+	}
+}
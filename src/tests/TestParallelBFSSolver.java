@@ -0,0 +1,67 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import rush_hour.RawPuzzleObject;
+import search_engine.ParallelBFSSolver;
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.BlockersHeuristicCalculator;
+
+public class TestParallelBFSSolver {
+
+	@Test
+	public void testSolutionsAreShortestAndReachTheGoal() {
+		for (int parallelism : new int[] { 1, 3 })
+			checkSolutions(new ParallelBFSSolver(100000, parallelism));
+	}
+
+	@Test
+	public void testOnlyTheCurrentAndPreviousLayersAreKept() {
+		ParallelBFSSolver solver = new ParallelBFSSolver(100000, 2);
+		BlockersHeuristicCalculator calculator = new BlockersHeuristicCalculator();
+		for (int puzzleID : new int[] { 1, 15, 40 }) {
+			assertTrue(solver.getBestSolution(new AStarSearchNode(TestsUtils.getPuzzle(puzzleID), calculator))
+					.getStatisticsData().isSolved());
+			// Neither the search nor the searches for it's path keep older layers
+			assertEquals(2, solver.getMaxNumberOfRetainedLayers());
+		}
+	}
+
+	@Test
+	public void testSearchGivesUpWhenTimeIsUp() {
+		for (int parallelism : new int[] { 1, 3 }) {
+			ParallelBFSSolver solver = new ParallelBFSSolver(0, parallelism);
+			assertFalse(solver
+					.getBestSolution(new AStarSearchNode(TestsUtils.getPuzzle(40), new BlockersHeuristicCalculator()))
+					.getStatisticsData().isSolved());
+		}
+	}
+
+	@Test
+	public void testSearchStopsWhenItsThreadIsInterrupted() {
+		Thread.currentThread().interrupt();
+		try {
+			ParallelBFSSolver solver = new ParallelBFSSolver(100000, 2);
+			assertFalse(solver
+					.getBestSolution(new AStarSearchNode(TestsUtils.getPuzzle(40), new BlockersHeuristicCalculator()))
+					.getStatisticsData().isSolved());
+		} finally {
+			Thread.interrupted();
+		}
+	}
+
+	private static void checkSolutions(ParallelBFSSolver solver) {
+		BlockersHeuristicCalculator calculator = new BlockersHeuristicCalculator();
+		int[][] puzzlesAndSolutionLengths = { { 1, 8 }, { 15, 23 }, { 40, 51 } };
+		for (int[] puzzleAndSolutionLength : puzzlesAndSolutionLengths) {
+			RawPuzzleObject puzzle = TestsUtils.getPuzzle(puzzleAndSolutionLength[0]);
+			TestsUtils.checkSolution(puzzle,
+					solver.getBestSolution(new AStarSearchNode(puzzle, calculator)).getStatisticsData(),
+					puzzleAndSolutionLength[1]);
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import rush_hour.BoardState;
+import rush_hour.GameUtils;
+import rush_hour.RawPuzzleObject;
+import search_engine.astar.BlockersHeuristicCalculator;
+import search_engine.astar.PatternDatabaseHeuristic;
+
+public class TestPatternDatabaseHeuristic {
+
+	@Test
+	public void testHeuristicNeverOverestimatesAndBeatsBlockers() throws IOException {
+		PatternDatabaseHeuristic heuristic = new PatternDatabaseHeuristic();
+		BlockersHeuristicCalculator blockersHeuristic = new BlockersHeuristicCalculator();
+		for (int puzzleID : new int[] { 1, 25, 40 }) {
+			BoardState start = BoardState.fromVehicles(TestsUtils.getPuzzle(puzzleID).getVehicles());
+			// Every blocker of the start state is in the patterns, and so is the target
+			// which has to move after them
+			assertTrue(heuristic.calculateValue(start) > blockersHeuristic.calculateValue(start));
+			TestsUtils.assertAdmissibleAlongOptimalPath(heuristic, start);
+		}
+	}
+
+	@Test
+	public void testOnlyTheLayoutsUsedLastAreCached() {
+		ArrayList<String> puzzles = GameUtils.getRawPuzzlesFromInputFile(new String[0]);
+		PatternDatabaseHeuristic heuristic = new PatternDatabaseHeuristic(PatternDatabaseHeuristic.DEFAULT_MAX_TABLE_SIZE,
+				2);
+		for (int puzzleID = 1; puzzleID <= 4; puzzleID++) {
+			BoardState start = BoardState.fromVehicles(new RawPuzzleObject(puzzles.get(puzzleID - 1), puzzleID)
+					.getVehicles());
+			assertEquals(new PatternDatabaseHeuristic().calculateValue(start), heuristic.calculateValue(start), 0);
+			assertTrue(heuristic.getNumberOfCachedLayouts() <= 2);
+		}
+	}
+
+	@Test
+	public void testThreadsOfTheSameLayoutShareItsDatabases() throws InterruptedException {
+		BoardState start = BoardState.fromVehicles(
+				new RawPuzzleObject(GameUtils.getRawPuzzlesFromInputFile(new String[0]).get(39), 40).getVehicles());
+		PatternDatabaseHeuristic heuristic = new PatternDatabaseHeuristic();
+		double[] values = new double[4];
+		Thread[] threads = new Thread[values.length];
+		for (int threadIndex = 0; threadIndex < threads.length; threadIndex++) {
+			int valueIndex = threadIndex;
+			threads[threadIndex] = new Thread(() -> values[valueIndex] = heuristic.calculateValue(start));
+			threads[threadIndex].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		for (double value : values)
+			assertEquals(heuristic.calculateValue(start), value, 0);
+		assertEquals(1, heuristic.getNumberOfCachedLayouts());
+	}
+}
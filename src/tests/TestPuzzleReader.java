@@ -0,0 +1,47 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import rush_hour.GameUtils;
+import rush_hour.PuzzleReader;
+import rush_hour.RawPuzzleObject;
+
+public class TestPuzzleReader {
+
+	@Test
+	public void testPuzzlesAreNumberedByLineAndReadLazily() throws IOException {
+		ArrayList<String> puzzles = GameUtils.getRawPuzzlesFromInputFile(new String[0]);
+		Path inputFile = Files.createTempFile("puzzles", ".txt");
+		try {
+			Files.write(inputFile, Arrays.asList(puzzles.get(0), "", puzzles.get(1)));
+			List<Integer> readPuzzles = new ArrayList<>();
+			try (PuzzleReader reader = new PuzzleReader(inputFile.toString(),
+					(rawPuzzle, puzzleID) -> readPuzzles.add(puzzleID))) {
+				assertTrue(reader.hasNext());
+				assertTrue(readPuzzles.isEmpty());
+
+				RawPuzzleObject first = reader.next();
+				assertEquals(1, first.getPuzzleId());
+				assertEquals(new RawPuzzleObject(puzzles.get(0), 1), first);
+				RawPuzzleObject second = reader.next();
+				assertEquals(3, second.getPuzzleId());
+				assertEquals(new RawPuzzleObject(puzzles.get(1), 2), second);
+				assertFalse(reader.hasNext());
+			}
+			assertEquals(Arrays.asList(1, 3), readPuzzles);
+		} finally {
+			Files.delete(inputFile);
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import rush_hour.GameUtils;
+import rush_hour.PuzzlesSolver;
+import rush_hour.RawPuzzleObject;
+import search_engine.BidirectionalBFSSolver;
+import search_engine.SearchAlgorithmSolver;
+import search_engine.astar.AStarSolutionStatisticsData;
+import search_engine.astar.BlockersHeuristicCalculator;
+import search_engine.astar.SolvedPuzzle;
+import search_engine.solution_store.SolutionStore;
+import search_engine.statistics_calculator.StatisticsWriter;
+
+public class TestPuzzlesSolver {
+	private static final int NUMBER_OF_PUZZLES = 20;
+	private static final int FAILING_PUZZLE = 5;
+	private static final int SOLUTION_COLUMN = 16;
+	// As PuzzlesSolver.MAX_PENDING_PUZZLES_PER_WORKER
+	private static final int MAX_PENDING_PUZZLES_PER_WORKER = 4;
+
+	/**
+	 * Solves later puzzles faster, so they're done before the ones before them,
+	 * and throws on FAILING_PUZZLE
+	 */
+	private static final SearchAlgorithmSolver FAKE_SOLVER = start -> {
+		if (start.getPuzzleID() == FAILING_PUZZLE)
+			throw new IllegalStateException("Solver failure");
+		sleep(NUMBER_OF_PUZZLES - start.getPuzzleID());
+		return new SolvedPuzzle(new AStarSolutionStatisticsData(start.getPuzzleID(), "fake"));
+	};
+
+	@Test
+	public void testRowsAreInPuzzlesOrderAndFailuresAreSkipped() throws IOException {
+		for (int numberOfWorkers : new int[] { 1, 3 }) {
+			List<Integer> storedPuzzles = solve(getPuzzles(NUMBER_OF_PUZZLES), numberOfWorkers);
+			List<Integer> expectedPuzzles = new ArrayList<>();
+			for (int puzzleId = 1; puzzleId <= NUMBER_OF_PUZZLES; puzzleId++)
+				if (puzzleId != FAILING_PUZZLE)
+					expectedPuzzles.add(puzzleId);
+			assertEquals(expectedPuzzles, storedPuzzles);
+		}
+	}
+
+	@Test
+	public void testPuzzlesAreTakenOnlyWhenThereIsRoomForThem() throws IOException {
+		for (int numberOfWorkers : new int[] { 1, 3 }) {
+			AtomicInteger takenPuzzles = new AtomicInteger();
+			AtomicInteger takenWhileFirstIsSolved = new AtomicInteger();
+			Iterator<RawPuzzleObject> puzzles = getPuzzles(NUMBER_OF_PUZZLES).iterator();
+			Iterator<RawPuzzleObject> countingPuzzles = new Iterator<RawPuzzleObject>() {
+				@Override
+				public boolean hasNext() {
+					return puzzles.hasNext();
+				}
+
+				@Override
+				public RawPuzzleObject next() {
+					takenPuzzles.incrementAndGet();
+					return puzzles.next();
+				}
+			};
+			SearchAlgorithmSolver solver = start -> {
+				if (start.getPuzzleID() == 1) {
+					// Gives the batch time to take every puzzle it has room for
+					sleep(100);
+					takenWhileFirstIsSolved.set(takenPuzzles.get());
+				}
+				return new SolvedPuzzle(new AStarSolutionStatisticsData(start.getPuzzleID(), "fake"));
+			};
+
+			List<String[]> rows = solve(countingPuzzles, () -> solver, numberOfWorkers, null);
+			// The pending puzzles, and the next one which waits for room
+			int maxTakenPuzzles = numberOfWorkers == 1 ? 1 : numberOfWorkers * MAX_PENDING_PUZZLES_PER_WORKER + 1;
+			assertTrue(takenWhileFirstIsSolved.get() + " puzzles were taken",
+					takenWhileFirstIsSolved.get() <= maxTakenPuzzles);
+			assertEquals(NUMBER_OF_PUZZLES, takenPuzzles.get());
+			assertEquals(NUMBER_OF_PUZZLES, rows.size());
+			for (int row = 0; row < rows.size(); row++)
+				assertEquals(Integer.toString(row + 1), rows.get(row)[0]);
+		}
+	}
+
+	@Test
+	public void testPuzzlesStoredByAResumedBatchAreSkipped() throws IOException {
+		Path outputFile = Files.createTempFile("statistics", ".csv");
+		try {
+			List<String[]> storedRows = solve(getPuzzles(NUMBER_OF_PUZZLES).iterator(), () -> FAKE_SOLVER, 3, null,
+					outputFile, false);
+			List<Integer> solvedPuzzles = new ArrayList<>();
+			SearchAlgorithmSolver solver = start -> {
+				synchronized (solvedPuzzles) {
+					solvedPuzzles.add(start.getPuzzleID());
+				}
+				return new SolvedPuzzle(new AStarSolutionStatisticsData(start.getPuzzleID(), "fake"));
+			};
+			List<String[]> resumedRows = solve(getPuzzles(NUMBER_OF_PUZZLES).iterator(), () -> solver, 3, null,
+					outputFile, true);
+			// Only the puzzle whose solver failed has no row
+			assertEquals(Arrays.asList(FAILING_PUZZLE), solvedPuzzles);
+			assertEquals(NUMBER_OF_PUZZLES, resumedRows.size());
+			for (int row = 0; row < storedRows.size(); row++)
+				assertArrayEquals(storedRows.get(row), resumedRows.get(row));
+			assertEquals(Integer.toString(FAILING_PUZZLE), resumedRows.get(NUMBER_OF_PUZZLES - 1)[0]);
+		} finally {
+			Files.delete(outputFile);
+		}
+	}
+
+	@Test
+	public void testSolvedPuzzlesAreTakenFromTheSolutionStore() throws IOException {
+		Path directory = Files.createTempDirectory("solutionStore");
+		ArrayList<RawPuzzleObject> puzzles = getPuzzles(3);
+		try (SolutionStore store = SolutionStore.open(directory)) {
+			List<String[]> searchedRows = solve(puzzles.iterator(), () -> new BidirectionalBFSSolver(100000), 1,
+					store);
+			assertEquals(puzzles.size(), store.size());
+			assertEquals(0, store.getHits());
+			// The fake solver would fail FAILING_PUZZLE or name the rows "fake"
+			List<String[]> storedRows = solve(puzzles.iterator(), () -> FAKE_SOLVER, 2, store);
+			assertEquals(puzzles.size(), store.getHits());
+			assertEquals(puzzles.size(), storedRows.size());
+			for (int row = 0; row < storedRows.size(); row++) {
+				assertEquals(searchedRows.get(row)[0], storedRows.get(row)[0]);
+				assertEquals(SolutionStore.NAME, storedRows.get(row)[1]);
+				assertEquals(searchedRows.get(row)[SOLUTION_COLUMN], storedRows.get(row)[SOLUTION_COLUMN]);
+			}
+		}
+		TestsUtils.deleteDirectory(directory);
+	}
+
+	/**
+	 * @return puzzle numbers of the stored rows, by their order
+	 */
+	private static List<Integer> solve(ArrayList<RawPuzzleObject> puzzles, int numberOfWorkers) throws IOException {
+		List<Integer> storedPuzzles = new ArrayList<>();
+		for (String[] row : solve(puzzles.iterator(), () -> FAKE_SOLVER, numberOfWorkers, null))
+			storedPuzzles.add(Integer.parseInt(row[0]));
+		return storedPuzzles;
+	}
+
+	/**
+	 * @return columns of the stored rows, by their order
+	 */
+	private static List<String[]> solve(Iterator<RawPuzzleObject> puzzles,
+			Supplier<SearchAlgorithmSolver> solversFactory, int numberOfWorkers, SolutionStore solutionStore)
+			throws IOException {
+		Path outputFile = Files.createTempFile("statistics", ".csv");
+		try {
+			return solve(puzzles, solversFactory, numberOfWorkers, solutionStore, outputFile, false);
+		} finally {
+			Files.delete(outputFile);
+		}
+	}
+
+	/**
+	 * @param resume - keep the rows of the output file, as a resumed batch does
+	 * @return columns of every row of the output file, by their order
+	 */
+	private static List<String[]> solve(Iterator<RawPuzzleObject> puzzles,
+			Supplier<SearchAlgorithmSolver> solversFactory, int numberOfWorkers, SolutionStore solutionStore,
+			Path outputFile, boolean resume) throws IOException {
+		String outputFilePath = outputFile.toString().substring(0, outputFile.toString().length() - ".csv".length());
+		try (StatisticsWriter<AStarSolutionStatisticsData> writer = new StatisticsWriter<>(outputFilePath, resume)) {
+			PuzzlesSolver puzzlesSolver = new PuzzlesSolver(writer, puzzles, new BlockersHeuristicCalculator(),
+					solversFactory, numberOfWorkers);
+			puzzlesSolver.setSolutionStore(solutionStore);
+			puzzlesSolver.startSolve();
+		}
+		List<String> lines = Files.readAllLines(outputFile);
+		List<String[]> rows = new ArrayList<>();
+		for (String line : lines.subList(1, lines.size()))
+			rows.add(line.split(","));
+		return rows;
+	}
+
+	private static ArrayList<RawPuzzleObject> getPuzzles(int numberOfPuzzles) {
+		ArrayList<String> rawPuzzles = GameUtils.getRawPuzzlesFromInputFile(new String[0]);
+		ArrayList<RawPuzzleObject> puzzles = new ArrayList<>();
+		for (int puzzleId = 1; puzzleId <= numberOfPuzzles; puzzleId++)
+			puzzles.add(new RawPuzzleObject(rawPuzzles.get(puzzleId - 1), puzzleId));
+		return puzzles;
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import rush_hour.RawPuzzleCsvExporter;
+
+public class TestRawPuzzleCsvExporter {
+	private static final String PUZZLE = "AA...OP..Q.OPXXQ.OP..Q..B...CCB.RRR.";
+	private static final List<String> PUZZLE_TABLE = Arrays.asList(",0,1,2,3,4,5", "0|,A,A,.,.,.,O,|",
+			"1|,P,.,.,Q,.,O,|", "2|,P,X,X,Q,.,O,EXIT,", "3|,P,.,.,Q,.,.,|", "4|,B,.,.,.,C,C,|", "5|,B,.,R,R,R,.,|",
+			",0,1,2,3,4,5");
+
+	@Test
+	public void testSinglePuzzlePerFile() throws IOException {
+		Path directory = Files.createTempDirectory("rawPuzzles");
+		try (RawPuzzleCsvExporter exporter = new RawPuzzleCsvExporter(directory.toString(), 1)) {
+			exporter.accept(PUZZLE, 1);
+			exporter.accept(PUZZLE, 3);
+		}
+		assertEquals(PUZZLE_TABLE, Files.readAllLines(directory.resolve("1.csv")));
+		assertEquals(PUZZLE_TABLE, Files.readAllLines(directory.resolve("3.csv")));
+		assertEquals(2, directory.toFile().list().length);
+		TestsUtils.deleteDirectory(directory);
+	}
+
+	@Test
+	public void testPuzzlesAreGroupedByTheirNumbers() throws IOException {
+		Path directory = Files.createTempDirectory("rawPuzzles");
+		try (RawPuzzleCsvExporter exporter = new RawPuzzleCsvExporter(directory.toString(), 2)) {
+			for (int puzzleNumber = 1; puzzleNumber <= 3; puzzleNumber++)
+				exporter.accept(PUZZLE, puzzleNumber);
+		}
+		List<String> firstFile = Files.readAllLines(directory.resolve("1-2.csv"));
+		assertEquals(2 * (PUZZLE_TABLE.size() + 1), firstFile.size());
+		assertEquals("Puzzle 1", firstFile.get(0));
+		assertEquals(PUZZLE_TABLE, firstFile.subList(1, PUZZLE_TABLE.size() + 1));
+		assertEquals("Puzzle 2", firstFile.get(PUZZLE_TABLE.size() + 1));
+		assertTrue(Files.readAllLines(directory.resolve("3-4.csv")).contains("Puzzle 3"));
+		TestsUtils.deleteDirectory(directory);
+	}
+}
@@ -0,0 +1,61 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import rush_hour.GameUtils;
+import rush_hour.RawPuzzleObject;
+import search_engine.SearchDeadline;
+import search_engine.astar.AStar;
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.AStarSolutionStatisticsData;
+import search_engine.astar.BlockersHeuristicCalculator;
+
+public class TestSearchDeadline {
+
+	@Test
+	public void testClockIsReadOnlyEveryCheckInterval() {
+		SearchDeadline deadline = new SearchDeadline(0, 4);
+		assertFalse(deadline.isExpired());
+		assertFalse(deadline.isExpired());
+		assertFalse(deadline.isExpired());
+		assertTrue(deadline.isExpired());
+		assertTrue(deadline.isExpired());
+	}
+
+	@Test
+	public void testCancelledDeadlineExpiresOnNextClockRead() {
+		SearchDeadline deadline = new SearchDeadline(Double.MAX_VALUE, 1);
+		assertFalse(deadline.isExpired());
+		deadline.cancel();
+		assertTrue(deadline.isExpired());
+	}
+
+	@Test
+	public void testExpiredSearchStopsWithPartialStatistics() {
+		ArrayList<String> puzzles = GameUtils.getRawPuzzlesFromInputFile(new String[0]);
+		BlockersHeuristicCalculator calculator = new BlockersHeuristicCalculator();
+		AStarSearchNode start = new AStarSearchNode(new RawPuzzleObject(puzzles.get(puzzles.size() - 1), 40),
+				calculator);
+
+		SearchDeadline deadline = new SearchDeadline(Double.MAX_VALUE, 1);
+		deadline.cancel();
+		AStarSolutionStatisticsData statistics = new AStar()
+				.getBestSolution(start, calculator, deadline).getStatisticsData();
+		assertTrue(statistics.getData().contains(",N,"));
+		assertEquals(0, statistics.getNumberOfNodes());
+
+		deadline = new SearchDeadline(Double.MAX_VALUE, 2000);
+		deadline.cancel();
+		statistics = new AStar().getBestSolution(start, calculator, deadline)
+				.getStatisticsData();
+		assertTrue(statistics.getData().contains(",N,"));
+		assertTrue(statistics.getNumberOfNodes() > 0);
+		assertTrue(statistics.getBestF() >= calculator.calculateValue(start.getBoardState()));
+	}
+}
@@ -0,0 +1,155 @@
+package tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+
+import org.junit.Test;
+
+import rush_hour.BinaryPuzzleCodec;
+import rush_hour.BoardState;
+import rush_hour.GameUtils;
+import rush_hour.RawPuzzleObject;
+import search_engine.BidirectionalBFSSolver;
+import search_engine.astar.AStarSearchNode;
+import search_engine.astar.BlockersHeuristicCalculator;
+import search_engine.solution_store.SolutionStore;
+
+public class TestSolutionStore {
+	private static final String FIRST_PUZZLE = "AA...OP..Q.OPXXQ.OP..Q..B...CCB.RRR.";
+
+	private static String solve(String rawPuzzle) {
+		return new BidirectionalBFSSolver(100000)
+				.getBestSolution(new AStarSearchNode(new RawPuzzleObject(rawPuzzle, 1), new BlockersHeuristicCalculator()))
+				.getStatisticsData().getPuzzleSolution();
+	}
+
+	@Test
+	public void testStoredSolutionIsFoundAfterReopening() throws IOException {
+		Path directory = Files.createTempDirectory("solutionStore");
+		BoardState puzzle = BinaryPuzzleCodec.fromText(FIRST_PUZZLE);
+		byte[] solution = BinaryPuzzleCodec.encodeSolution(puzzle.getLayout(), solve(FIRST_PUZZLE));
+		try (SolutionStore store = SolutionStore.open(directory)) {
+			assertNull(store.getSolution(puzzle));
+			assertTrue(store.putSolution(puzzle, solution));
+			assertArrayEquals(solution, store.getSolution(puzzle));
+			assertEquals(1, store.getHits());
+			assertEquals(1, store.getMisses());
+		}
+		try (SolutionStore store = SolutionStore.open(directory)) {
+			assertEquals(1, store.size());
+			assertArrayEquals(solution, store.getSolution(puzzle));
+		}
+		TestsUtils.deleteDirectory(directory);
+	}
+
+	@Test
+	public void testRenamedVehiclesGetTheSameSolution() throws IOException {
+		BoardState puzzle = BinaryPuzzleCodec.fromText(FIRST_PUZZLE);
+		String solution = solve(FIRST_PUZZLE);
+		// A is the first vehicle of the layout after the target, Z the last one
+		String renamedPuzzle = FIRST_PUZZLE.replace('A', 'Z');
+		BoardState renamed = BinaryPuzzleCodec.fromText(renamedPuzzle);
+		Path directory = Files.createTempDirectory("solutionStore");
+		try (SolutionStore store = SolutionStore.open(directory)) {
+			store.putSolution(puzzle, BinaryPuzzleCodec.encodeSolution(puzzle.getLayout(), solution));
+			byte[] renamedSolution = store.getSolution(renamed);
+			assertEquals(solution.replace('A', 'Z'),
+					BinaryPuzzleCodec.solutionToText(renamed.getLayout(), renamedSolution));
+		}
+		TestsUtils.deleteDirectory(directory);
+	}
+
+	@Test
+	public void testOnlyShorterSolutionsReplaceStoredOnes() throws IOException {
+		Path directory = Files.createTempDirectory("solutionStore");
+		BoardState puzzle = BinaryPuzzleCodec.fromText(FIRST_PUZZLE);
+		byte[] solution = BinaryPuzzleCodec.encodeSolution(puzzle.getLayout(), solve(FIRST_PUZZLE));
+		byte[] longerSolution = new byte[solution.length + 2];
+		byte[] shorterSolution = new byte[solution.length - 1];
+		try (SolutionStore store = SolutionStore.open(directory)) {
+			assertTrue(store.putSolution(puzzle, longerSolution));
+			assertTrue(store.putSolution(puzzle, solution));
+			assertFalse(store.putSolution(puzzle, longerSolution));
+			assertFalse(store.putSolution(puzzle, solution));
+			assertArrayEquals(solution, store.getSolution(puzzle));
+			assertTrue(store.putSolution(puzzle, shorterSolution));
+			assertArrayEquals(shorterSolution, store.getSolution(puzzle));
+
+			long logLength = Files.size(directory.resolve("solutions.log"));
+			assertEquals(2, store.compact());
+			assertTrue(Files.size(directory.resolve("solutions.log")) < logLength);
+			assertEquals(1, store.size());
+			assertArrayEquals(shorterSolution, store.getSolution(puzzle));
+		}
+		try (SolutionStore store = SolutionStore.open(directory)) {
+			assertArrayEquals(shorterSolution, store.getSolution(puzzle));
+		}
+		TestsUtils.deleteDirectory(directory);
+	}
+
+	@Test
+	public void testEntryCutByACrashIsDropped() throws IOException {
+		Path directory = Files.createTempDirectory("solutionStore");
+		BoardState puzzle = BinaryPuzzleCodec.fromText(FIRST_PUZZLE);
+		byte[] solution = BinaryPuzzleCodec.encodeSolution(puzzle.getLayout(), solve(FIRST_PUZZLE));
+		try (SolutionStore store = SolutionStore.open(directory)) {
+			store.putSolution(puzzle, solution);
+		}
+		long logLength = Files.size(directory.resolve("solutions.log"));
+		Files.write(directory.resolve("solutions.log"), new byte[] { 1, 2, 3, 4, 5 }, StandardOpenOption.APPEND);
+
+		try (SolutionStore store = SolutionStore.open(directory)) {
+			assertEquals(logLength, Files.size(directory.resolve("solutions.log")));
+			assertEquals(1, store.size());
+			assertArrayEquals(solution, store.getSolution(puzzle));
+		}
+		TestsUtils.deleteDirectory(directory);
+	}
+
+	@Test
+	public void testIndexGrowsWithTheSolutions() throws IOException {
+		Path directory = Files.createTempDirectory("solutionStore");
+		ArrayList<BoardState> states = getReachableStates(GameUtils.getRawPuzzlesFromInputFile(new String[0]).get(0),
+				2000);
+		// More than a new store's index of 1024 cells holds at half of it's capacity
+		assertTrue(states.size() > 512);
+		try (SolutionStore store = SolutionStore.open(directory)) {
+			for (int stateIndex = 0; stateIndex < states.size(); stateIndex++)
+				assertTrue(store.putSolution(states.get(stateIndex), new byte[stateIndex % 10]));
+			assertEquals(states.size(), store.size());
+		}
+		try (SolutionStore store = SolutionStore.open(directory)) {
+			for (int stateIndex = 0; stateIndex < states.size(); stateIndex++)
+				assertEquals(stateIndex % 10, store.getSolution(states.get(stateIndex)).length);
+		}
+		TestsUtils.deleteDirectory(directory);
+	}
+
+	private static ArrayList<BoardState> getReachableStates(String rawPuzzle, int numberOfStates) {
+		ArrayList<BoardState> states = new ArrayList<>();
+		Set<Long> seenStates = new HashSet<>();
+		Queue<AStarSearchNode> nodes = new ArrayDeque<>();
+		nodes.add(new AStarSearchNode(new RawPuzzleObject(rawPuzzle, 1), new BlockersHeuristicCalculator()));
+		while (!nodes.isEmpty() && states.size() < numberOfStates) {
+			AStarSearchNode node = nodes.poll();
+			if (!seenStates.add(node.getUUID()))
+				continue;
+			states.add(new BoardState(node.getBoardState()));
+			nodes.addAll(node.getSuccessors());
+		}
+		return states;
+	}
+}
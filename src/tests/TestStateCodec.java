@@ -0,0 +1,73 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import rush_hour.BoardState;
+import rush_hour.GameUtils;
+import rush_hour.MoveGenerator;
+import rush_hour.RawPuzzleObject;
+import rush_hour.StateCodec;
+
+public class TestStateCodec {
+
+	@Test
+	public void testEncodingAndDecodingOfAllPuzzlesAndTheirSuccessors() {
+		int[] movesBuffer = new int[64];
+		for (String puzzle : GameUtils.getRawPuzzlesFromInputFile(new String[0])) {
+			BoardState boardState = BoardState.fromVehicles(new RawPuzzleObject(puzzle, 1).getVehicles());
+			StateCodec codec = boardState.getLayout().getStateCodec();
+			long code = codec.encode(boardState);
+			assertEquals(boardState, codec.decode(code));
+
+			Set<Long> successorsCodes = new HashSet<>();
+			successorsCodes.add(code);
+			int numberOfMoves = MoveGenerator.getGenerator().generateMoves(boardState, movesBuffer);
+			for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++) {
+				int vehicleIndex = MoveGenerator.getVehicleIndex(movesBuffer[moveIndex]);
+				int newOffset = MoveGenerator.getNewOffset(movesBuffer[moveIndex]);
+				BoardState successor = new BoardState(boardState);
+				successor.moveVehicle(vehicleIndex, newOffset);
+
+				long successorCode = codec.encode(successor);
+				assertTrue(0 <= successorCode && successorCode < codec.getNumberOfCodes());
+				assertEquals(successorCode,
+						codec.encodeMove(code, vehicleIndex, boardState.getOffset(vehicleIndex), newOffset));
+				assertEquals(successor, codec.decode(successorCode));
+				assertTrue(successorsCodes.add(successorCode));
+
+				BoardState decodedInPlace = new BoardState(boardState);
+				codec.decodeInto(successorCode, decodedInPlace);
+				assertEquals(successor, decodedInPlace);
+			}
+		}
+	}
+
+	@Test
+	public void testDecodingIntoAStateFarFromTheDecodedOne() {
+		int[] movesBuffer = new int[64];
+		for (String puzzle : GameUtils.getRawPuzzlesFromInputFile(new String[0])) {
+			BoardState startState = BoardState.fromVehicles(new RawPuzzleObject(puzzle, 1).getVehicles());
+			StateCodec codec = startState.getLayout().getStateCodec();
+
+			// Walk away from the start state, every time with the last legal move
+			BoardState farState = new BoardState(startState);
+			for (int step = 0; step < 10; step++) {
+				int numberOfMoves = MoveGenerator.getGenerator().generateMoves(farState, movesBuffer);
+				int lastMove = movesBuffer[numberOfMoves - 1];
+				farState.moveVehicle(MoveGenerator.getVehicleIndex(lastMove), MoveGenerator.getNewOffset(lastMove));
+			}
+
+			BoardState decodedInPlace = new BoardState(farState);
+			codec.decodeInto(codec.encode(startState), decodedInPlace);
+			assertEquals(startState, decodedInPlace);
+			codec.decodeInto(codec.encode(farState), decodedInPlace);
+			assertEquals(farState, decodedInPlace);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.Test;
+
+import search_engine.astar.AStarSolutionStatisticsData;
+import search_engine.statistics_calculator.StatisticsWriter;
+
+public class TestStatisticsWriter {
+
+	@Test
+	public void testRowsAreWrittenWhenTheBufferFillsAndWhenTheWriterCloses() throws IOException {
+		Path outputFile = Files.createTempFile("statistics", ".csv");
+		String outputFilePath = getPathWithoutSuffix(outputFile);
+		int numberOfRows = 2000;
+		try {
+			try (StatisticsWriter<AStarSolutionStatisticsData> writer = new StatisticsWriter<>(outputFilePath)) {
+				for (int puzzleNumber = 1; puzzleNumber <= numberOfRows; puzzleNumber++)
+					writer.storeResult(new AStarSolutionStatisticsData(puzzleNumber, "h"));
+				assertTrue(writer.isStored(1));
+				// The rows are longer than the buffer, so some of them are written already
+				assertTrue(Files.size(outputFile) > 0);
+			}
+			List<String> lines = Files.readAllLines(outputFile);
+			assertEquals(numberOfRows + 1, lines.size());
+			assertTrue(lines.get(0).startsWith("Problem,"));
+			for (int puzzleNumber = 1; puzzleNumber <= numberOfRows; puzzleNumber++)
+				assertTrue(lines.get(puzzleNumber).startsWith(puzzleNumber + ",h,"));
+		} finally {
+			Files.delete(outputFile);
+		}
+	}
+
+	@Test
+	public void testResumingKeepsCompleteRowsAndDropsCutRow() throws IOException {
+		Path outputFile = Files.createTempFile("statistics", ".csv");
+		String outputFilePath = getPathWithoutSuffix(outputFile);
+		try {
+			try (StatisticsWriter<AStarSolutionStatisticsData> writer = new StatisticsWriter<>(outputFilePath)) {
+				writer.storeResult(new AStarSolutionStatisticsData(1, "h"));
+				writer.storeResult(new AStarSolutionStatisticsData(2, "h"));
+			}
+			// A crash in the middle of writing the row of puzzle 3
+			Files.write(outputFile, "3,h,17".getBytes(), StandardOpenOption.APPEND);
+
+			try (StatisticsWriter<AStarSolutionStatisticsData> writer = new StatisticsWriter<>(outputFilePath, true)) {
+				assertTrue(writer.isStored(1));
+				assertTrue(writer.isStored(2));
+				assertFalse(writer.isStored(3));
+				writer.storeResult(new AStarSolutionStatisticsData(3, "h"));
+			}
+			List<String> lines = Files.readAllLines(outputFile);
+			assertEquals(4, lines.size());
+			assertTrue(lines.get(0).startsWith("Problem,"));
+			assertTrue(lines.get(3).startsWith("3,h,"));
+
+			try (StatisticsWriter<AStarSolutionStatisticsData> writer = new StatisticsWriter<>(outputFilePath)) {
+				assertFalse(writer.isStored(1));
+			}
+			assertEquals(0, Files.size(outputFile));
+		} finally {
+			Files.delete(outputFile);
+		}
+	}
+
+	private static String getPathWithoutSuffix(Path outputFile) {
+		String path = outputFile.toString();
+		return path.substring(0, path.lastIndexOf('.'));
+	}
+}
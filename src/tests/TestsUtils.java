@@ -5,10 +5,25 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.awt.Point;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
+import rush_hour.BoardState;
 import rush_hour.Constants;
+import rush_hour.GameUtils;
+import rush_hour.MoveGenerator;
+import rush_hour.RawPuzzleObject;
+import rush_hour.StateCodec;
 import rush_hour.Vehicle;
+import rush_hour.VehicleLayout;
+import search_engine.astar.AStarSolutionStatisticsData;
+import search_engine.astar.HeuristicsCalculator;
+import search_engine.astar.IncrementalHeuristicsCalculator;
+import search_engine.distance_database.DistanceDatabase;
+import search_engine.distance_database.DistanceDatabaseGenerator;
 
 public final class TestsUtils {
 	public static Vehicle getVehicle(char identifier, boolean orientation, int size, Point startPoint) {
@@ -37,4 +52,100 @@ public final class TestsUtils {
 		assertEquals(0, actual.size());
 		assertTrue(actual.isEmpty());
 	}
+
+	/**
+	 * Deletes a directory of files, which has no directories in it
+	 */
+	public static void deleteDirectory(Path directory) throws IOException {
+		for (String fileName : directory.toFile().list())
+			Files.delete(directory.resolve(fileName));
+		Files.delete(directory);
+	}
+
+	/**
+	 * @param puzzleID - number of the puzzle in the default input file, from 1
+	 */
+	public static RawPuzzleObject getPuzzle(int puzzleID) {
+		ArrayList<String> puzzles = GameUtils.getRawPuzzlesFromInputFile(new String[0]);
+		return new RawPuzzleObject(puzzles.get(puzzleID - 1), puzzleID);
+	}
+
+	public static int getNumberOfMoves(AStarSolutionStatisticsData statisticsData) {
+		return statisticsData.getData().split("-->").length - 1;
+	}
+
+	/**
+	 * Checks the solution has the expected number of moves, and replays it on the
+	 * puzzle - every movement must be a legal move, and the last one must reach
+	 * the goal
+	 */
+	public static void checkSolution(RawPuzzleObject puzzle, AStarSolutionStatisticsData statisticsData,
+			int solutionLength) {
+		String[] csvRow = statisticsData.getData().trim().split(",");
+		String[] movements = csvRow[csvRow.length - 1].replace(" END", "").trim().split(" -->");
+		assertEquals(solutionLength, movements.length);
+
+		BoardState boardState = BoardState.fromVehicles(puzzle.getVehicles());
+		int[] movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(boardState.getLayout())];
+		for (String movement : movements)
+			applyMovement(boardState, movement.trim(), movesBuffer);
+		assertTrue(boardState.isGoal());
+	}
+
+	/**
+	 * Walks along the optimal solution of the start state, which is found in a
+	 * distance database generated into a temp directory. The heuristic must stay
+	 * below the real distance all the way to the goal, and an incremental
+	 * heuristic must give every successor the same value as a full evaluation
+	 */
+	public static void assertAdmissibleAlongOptimalPath(HeuristicsCalculator heuristic, BoardState start)
+			throws IOException {
+		Path databaseDirectory = Files.createTempDirectory("distanceDatabase");
+		try {
+			DistanceDatabase database = DistanceDatabase.open(
+					new DistanceDatabaseGenerator(start.getLayout()).generate(databaseDirectory), start.getLayout());
+			StateCodec codec = start.getLayout().getStateCodec();
+			BoardState currentState = new BoardState(start);
+			int[] movesBuffer = new int[MoveGenerator.getMaxNumberOfMoves(start.getLayout())];
+			for (int distance = database.getDistance(codec.encode(start)); distance > 0; distance--) {
+				double value = heuristic.calculateValue(currentState);
+				assertTrue(value <= distance);
+				BoardState nextState = null;
+				int numberOfMoves = MoveGenerator.getGenerator().generateMoves(currentState, movesBuffer);
+				for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++) {
+					int vehicleIndex = MoveGenerator.getVehicleIndex(movesBuffer[moveIndex]);
+					BoardState successor = new BoardState(currentState);
+					successor.moveVehicle(vehicleIndex, MoveGenerator.getNewOffset(movesBuffer[moveIndex]));
+					if (heuristic instanceof IncrementalHeuristicsCalculator) {
+						double incrementalValue = ((IncrementalHeuristicsCalculator) heuristic)
+								.calculateValue(successor, vehicleIndex, currentState.getOffset(vehicleIndex), value);
+						assertEquals(heuristic.calculateValue(successor), incrementalValue, 0);
+					}
+					if (nextState == null && database.getDistance(codec.encode(successor)) == distance - 1)
+						nextState = successor;
+				}
+				currentState = nextState;
+			}
+			assertTrue(currentState.isGoal());
+			assertEquals(0, heuristic.calculateValue(currentState), 0);
+		} finally {
+			deleteDirectory(databaseDirectory);
+		}
+	}
+
+	private static void applyMovement(BoardState boardState, String movement, int[] movesBuffer) {
+		VehicleLayout layout = boardState.getLayout();
+		int vehicleIndex = layout.getIndexOf(movement.charAt(0));
+		int distance = Integer.parseInt(movement.substring(2));
+		char direction = movement.charAt(1);
+		int newOffset = boardState.getOffset(vehicleIndex)
+				+ (direction == 'R' || direction == 'D' ? distance : -distance);
+		boolean isLegal = false;
+		int numberOfMoves = MoveGenerator.getGenerator().generateMoves(boardState, movesBuffer);
+		for (int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++)
+			isLegal |= MoveGenerator.getVehicleIndex(movesBuffer[moveIndex]) == vehicleIndex
+					&& MoveGenerator.getNewOffset(movesBuffer[moveIndex]) == newOffset;
+		assertTrue(movement, isLegal);
+		boardState.moveVehicle(vehicleIndex, newOffset);
+	}
 }